@@ -21,6 +21,10 @@ import java.io.*;
 
 import mino.exception.*;
 import mino.language_mino.*;
+import mino.machine.*;
+import mino.structure.*;
+import mino.tree.*;
+import mino.vm.*;
 import mino.walker.*;
 
 public class MinoInterpreter {
@@ -28,27 +32,81 @@ public class MinoInterpreter {
     public static void main(
             String[] args) {
 
+        String fileName = null;
+        boolean printStatistics = false;
+        String engineName = "tree";
+        int outputBufferSize = StandardOutput.DEFAULT_BUFFER_SIZE;
+        String jarFileName = null;
+
+        for (String arg : args) {
+            if (arg.equals("--stats")) {
+                printStatistics = true;
+            }
+            else if (arg.startsWith("--engine=")) {
+                engineName = arg.substring("--engine=".length());
+                if (!engineName.equals("tree")
+                        && !engineName.equals("walker")
+                        && !engineName.equals("stack")
+                        && !engineName.equals("vm")
+                        && !engineName.equals("jit")) {
+                    System.err.println("COMMAND-LINE ERROR: unknown engine '"
+                            + engineName + "'.");
+                    System.exit(1);
+                }
+            }
+            else if (arg.startsWith("--output-buffer=")) {
+                String size = arg.substring("--output-buffer=".length());
+                try {
+                    outputBufferSize = Integer.parseInt(size);
+                }
+                catch (NumberFormatException e) {
+                    outputBufferSize = 0;
+                }
+                if (outputBufferSize < 1) {
+                    System.err.println("COMMAND-LINE ERROR: invalid output "
+                            + "buffer size '" + size + "'.");
+                    System.exit(1);
+                }
+            }
+            else if (arg.startsWith("--aot=")) {
+                jarFileName = arg.substring("--aot=".length());
+                if (jarFileName.isEmpty()) {
+                    System.err.println(
+                            "COMMAND-LINE ERROR: missing JAR file name.");
+                    System.exit(1);
+                }
+            }
+            else if (arg.startsWith("-")) {
+                System.err.println(
+                        "COMMAND-LINE ERROR: unknown option '" + arg + "'.");
+                System.exit(1);
+            }
+            else if (fileName == null) {
+                fileName = arg;
+            }
+            else {
+                System.err.println("COMMAND-LINE ERROR: too many arguments.");
+                System.exit(1);
+            }
+        }
+
         Reader in = null;
 
-        if (args.length == 0) {
+        if (fileName == null) {
             // read from standard input
             in = new InputStreamReader(System.in);
         }
-        else if (args.length == 1) {
+        else {
             // read from given file
             try {
-                in = new FileReader(args[0]);
+                in = new FileReader(fileName);
             }
             catch (FileNotFoundException e) {
                 System.err.println(
-                        "INPUT ERROR: file not found '" + args[0] + "'.");
+                        "INPUT ERROR: file not found '" + fileName + "'.");
                 System.exit(1);
             }
         }
-        else {
-            System.err.println("COMMAND-LINE ERROR: too many arguments.");
-            System.exit(1);
-        }
 
         Node syntaxTree = null;
 
@@ -58,11 +116,11 @@ public class MinoInterpreter {
         }
         catch (IOException e) {
             String inputName;
-            if (args.length == 0) {
+            if (fileName == null) {
                 inputName = "standard input";
             }
             else {
-                inputName = "file '" + args[0] + "'";
+                inputName = "file '" + fileName + "'";
             }
             System.err.println("INPUT ERROR: " + e.getMessage()
                     + " while reading " + inputName + ".");
@@ -77,20 +135,72 @@ public class MinoInterpreter {
             System.exit(1);
         }
 
-        InterpreterEngine interpreterEngine = new InterpreterEngine();
+        if (jarFileName != null) {
+            // compile instead of running
+            try {
+                new AotCompiler().compile(syntaxTree, jarFileName);
+            }
+            catch (InterpreterException e) {
+                System.err.println(
+                        "INTERPRETER ERROR: " + e.getMessage() + ".");
+                System.exit(1);
+            }
+            catch (IOException e) {
+                System.err.println("OUTPUT ERROR: " + e.getMessage()
+                        + " while writing file '" + jarFileName + "'.");
+                System.exit(1);
+            }
+            System.exit(0);
+        }
+
+        StandardOutput standardOutput = new StandardOutput(outputBufferSize);
+        ExecutionEngine executionEngine;
+        if (engineName.equals("walker")) {
+            executionEngine = new InterpreterEngine(standardOutput);
+        }
+        else if (engineName.equals("stack")) {
+            executionEngine = new StackMachine(standardOutput);
+        }
+        else if (engineName.equals("vm")) {
+            executionEngine = new VirtualMachine(standardOutput, false);
+        }
+        else if (engineName.equals("jit")) {
+            executionEngine = new VirtualMachine(standardOutput, true);
+        }
+        else {
+            executionEngine = new TreeEngine(standardOutput);
+        }
+
+        int status = 0;
         try {
-            // interpret
-            interpreterEngine.visit(syntaxTree);
+            // interpret; the syntax tree is only referenced by the engine
+            // from here on, which may discard it once the program is loaded
+            executionEngine.load(syntaxTree);
+            syntaxTree = null;
+            executionEngine.run();
         }
         catch (InterpreterException e) {
-            System.out.flush();
+            standardOutput.flush();
             System.err.println("INTERPRETER ERROR: " + e.getMessage() + ".");
-            interpreterEngine.printStackTrace();
-            System.exit(1);
+            executionEngine.printStackTrace();
+            status = 1;
+        }
+        finally {
+            standardOutput.flush();
+        }
+
+        if (standardOutput.getErrorOrNull() != null) {
+            System.err.println("OUTPUT ERROR: "
+                    + standardOutput.getErrorOrNull().getMessage()
+                    + " while writing standard output.");
+            status = 1;
+        }
+
+        if (printStatistics) {
+            executionEngine.printStatistics();
         }
 
-        // finish normally
-        System.exit(0);
+        System.exit(status);
     }
 
 }
@@ -24,24 +24,39 @@ public class InterpreterException
 
     private final String message;
 
-    private final Token token;
+    private final int line;
+
+    private final int pos;
 
     public InterpreterException(
             String message,
             Token token) {
 
         this.message = message;
-        this.token = token;
+        if (token != null) {
+            this.line = token.getLine();
+            this.pos = token.getPos();
+        }
+        else {
+            this.line = 1;
+            this.pos = 1;
+        }
+    }
+
+    public InterpreterException(
+            String message,
+            int line,
+            int pos) {
+
+        this.message = message;
+        this.line = line;
+        this.pos = pos;
     }
 
     @Override
     public String getMessage() {
 
-        if (this.token != null) {
-            return this.message + " at line " + this.token.getLine()
-                    + " position " + this.token.getPos();
-        }
-
-        return this.message + " at line 1 position 1";
+        return this.message + " at line " + this.line + " position "
+                + this.pos;
     }
 }
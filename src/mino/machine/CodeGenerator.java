@@ -0,0 +1,368 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.machine;
+
+import java.util.*;
+
+import mino.language_mino.*;
+import mino.machine.Instruction.Opcode;
+import mino.structure.*;
+import mino.walker.*;
+
+/**
+ * Pass that translates a method body or the main program into instructions
+ * of the stack machine. Control structures become jumps, and a call whose
+ * result is directly returned becomes a tail call.
+ */
+class CodeGenerator
+        extends Walker {
+
+    private final Resolver resolver;
+
+    private final BooleanClassInfo booleanClassInfo;
+
+    private List<Instruction> instructions;
+
+    private boolean main;
+
+    private Node tailCallSite;
+
+    CodeGenerator(
+            Program program) {
+
+        this.resolver = program.getResolver();
+        this.booleanClassInfo = program.getBooleanClassInfo();
+    }
+
+    Instruction[] generate(
+            NStms stms,
+            boolean main) {
+
+        this.instructions = new ArrayList<>();
+        this.main = main;
+        visit(stms);
+        if (main) {
+            emit(Opcode.HALT, null);
+        }
+        else {
+            emit(Opcode.RETURN, null);
+        }
+
+        Instruction[] code = this.instructions
+                .toArray(new Instruction[this.instructions.size()]);
+        this.instructions = null;
+        return code;
+    }
+
+    private void visit(
+            Node node) {
+
+        node.apply(this);
+    }
+
+    private Instruction emit(
+            Opcode opcode,
+            Token location) {
+
+        Instruction instruction = new Instruction(opcode, location);
+        this.instructions.add(instruction);
+        return instruction;
+    }
+
+    private int getNextAddress() {
+
+        return this.instructions.size();
+    }
+
+    private Node getCallSiteOrNull(
+            NExp exp) {
+
+        if (!(exp instanceof NExp_Simple)) {
+            return null;
+        }
+        NAddExp addExp = ((NExp_Simple) exp).get_AddExp();
+        if (!(addExp instanceof NAddExp_Simple)) {
+            return null;
+        }
+        NLeftUnaryExp leftUnaryExp
+                = ((NAddExp_Simple) addExp).get_LeftUnaryExp();
+        if (!(leftUnaryExp instanceof NLeftUnaryExp_Simple)) {
+            return null;
+        }
+        NRightUnaryExp rightUnaryExp
+                = ((NLeftUnaryExp_Simple) leftUnaryExp).get_RightUnaryExp();
+        if (rightUnaryExp instanceof NRightUnaryExp_Call) {
+            return ((NRightUnaryExp_Call) rightUnaryExp).get_Call();
+        }
+        NTerm term = ((NRightUnaryExp_Simple) rightUnaryExp).get_Term();
+        if (term instanceof NTerm_SelfCall) {
+            return ((NTerm_SelfCall) term).get_SelfCall();
+        }
+        if (term instanceof NTerm_Par) {
+            return getCallSiteOrNull(((NTerm_Par) term).get_Exp());
+        }
+        return null;
+    }
+
+    @Override
+    public void caseStm_VarAssign(
+            NStm_VarAssign node) {
+
+        visit(node.get_Exp());
+        Instruction instruction = emit(Opcode.STORE_VAR, node.get_Id());
+        instruction.operand = this.resolver.getSlot(node.get_Id());
+    }
+
+    @Override
+    public void caseStm_FieldAssign(
+            NStm_FieldAssign node) {
+
+        visit(node.get_Exp());
+        Instruction instruction
+                = emit(Opcode.STORE_FIELD, node.get_FieldName());
+        instruction.value
+                = this.resolver.getFieldInfoOrNull(node.get_FieldName());
+        instruction.node = node.get_FieldName();
+    }
+
+    @Override
+    public void caseStm_While(
+            NStm_While node) {
+
+        int start = getNextAddress();
+        visit(node.get_Exp());
+        Instruction branch = emit(Opcode.BRANCH_IF_FALSE, node.get_LPar());
+        visit(node.get_Stms());
+        emit(Opcode.JUMP, null).operand = start;
+        branch.operand = getNextAddress();
+    }
+
+    @Override
+    public void caseStm_If(
+            NStm_If node) {
+
+        visit(node.get_Exp());
+        Instruction branch = emit(Opcode.BRANCH_IF_FALSE, node.get_LPar());
+        visit(node.get_Stms());
+        if (node.get_ElseOpt() instanceof NElseOpt_One) {
+            Instruction jump = emit(Opcode.JUMP, null);
+            branch.operand = getNextAddress();
+            visit(node.get_ElseOpt());
+            jump.operand = getNextAddress();
+        }
+        else {
+            branch.operand = getNextAddress();
+        }
+    }
+
+    @Override
+    public void caseStm_Return(
+            NStm_Return node) {
+
+        if (this.main) {
+            emit(Opcode.ERROR, node.get_ReturnKwd()).value
+                    = "return statement is not allowed in main program";
+            return;
+        }
+
+        if (node.get_ExpOpt() instanceof NExpOpt_One) {
+            NExp exp = ((NExpOpt_One) node.get_ExpOpt()).get_Exp();
+            this.tailCallSite = getCallSiteOrNull(exp);
+            visit(exp);
+            this.tailCallSite = null;
+            emit(Opcode.RETURN_VALUE, null);
+        }
+        else {
+            emit(Opcode.RETURN, null);
+        }
+    }
+
+    @Override
+    public void outStm_Call(
+            NStm_Call node) {
+
+        emit(Opcode.POP, null);
+    }
+
+    @Override
+    public void outStm_SelfCall(
+            NStm_SelfCall node) {
+
+        emit(Opcode.POP, null);
+    }
+
+    @Override
+    public void outExp_Is(
+            NExp_Is node) {
+
+        emit(Opcode.IS, null);
+    }
+
+    @Override
+    public void outExp_Eq(
+            NExp_Eq node) {
+
+        emit(Opcode.EQ, node.get_Eq()).value
+                = this.resolver.getInlineCache(node);
+    }
+
+    @Override
+    public void caseExp_Isa(
+            NExp_Isa node) {
+
+        visit(node.get_Exp());
+        Instruction instruction = emit(Opcode.ISA, node.get_ClassName());
+        instruction.value = this.resolver.getClassInfoOrNull(node);
+        instruction.node = node.get_ClassName();
+    }
+
+    @Override
+    public void outAddExp_Add(
+            NAddExp_Add node) {
+
+        emit(Opcode.ADD, node.get_Plus()).value
+                = this.resolver.getInlineCache(node);
+    }
+
+    @Override
+    public void outLeftUnaryExp_Not(
+            NLeftUnaryExp_Not node) {
+
+        emit(Opcode.NOT, node.get_Not());
+    }
+
+    @Override
+    public void caseTerm_New(
+            NTerm_New node) {
+
+        Instruction instruction = emit(Opcode.NEW, node.get_NewKwd());
+        instruction.value = this.resolver.getClassInfoOrNull(node);
+        instruction.node = node;
+    }
+
+    @Override
+    public void caseTerm_Field(
+            NTerm_Field node) {
+
+        Instruction instruction
+                = emit(Opcode.LOAD_FIELD, node.get_FieldName());
+        instruction.value
+                = this.resolver.getFieldInfoOrNull(node.get_FieldName());
+        instruction.node = node.get_FieldName();
+    }
+
+    @Override
+    public void caseTerm_Var(
+            NTerm_Var node) {
+
+        Instruction instruction = emit(Opcode.LOAD_VAR, node.get_Id());
+        instruction.operand = this.resolver.getSlot(node.get_Id());
+        instruction.node = node.get_Id();
+    }
+
+    @Override
+    public void caseTerm_Num(
+            NTerm_Num node) {
+
+        emit(Opcode.PUSH, null).value = this.resolver.getLiteralInstance(node);
+    }
+
+    @Override
+    public void caseTerm_Null(
+            NTerm_Null node) {
+
+        emit(Opcode.PUSH, null);
+    }
+
+    @Override
+    public void caseTerm_Self(
+            NTerm_Self node) {
+
+        emit(Opcode.PUSH_SELF, null);
+    }
+
+    @Override
+    public void caseTerm_True(
+            NTerm_True node) {
+
+        emit(Opcode.PUSH, null).value = this.booleanClassInfo.getTrue();
+    }
+
+    @Override
+    public void caseTerm_False(
+            NTerm_False node) {
+
+        emit(Opcode.PUSH, null).value = this.booleanClassInfo.getFalse();
+    }
+
+    @Override
+    public void caseTerm_String(
+            NTerm_String node) {
+
+        emit(Opcode.PUSH, null).value = this.resolver.getLiteralInstance(node);
+    }
+
+    @Override
+    public void caseCall(
+            NCall node) {
+
+        boolean tailCall = node == this.tailCallSite;
+        visit(node.get_RightUnaryExp());
+        emit(Opcode.PREPARE_CALL, node.get_Id()).value
+                = this.resolver.getInlineCache(node);
+        visit(node.get_ExpListOpt());
+        if (tailCall) {
+            emit(Opcode.TAIL_INVOKE, node.get_Id());
+        }
+        else {
+            emit(Opcode.INVOKE, node.get_Id());
+        }
+    }
+
+    @Override
+    public void caseSelfCall(
+            NSelfCall node) {
+
+        boolean tailCall = node == this.tailCallSite;
+        emit(Opcode.PREPARE_SELF_CALL, node.get_Id()).value
+                = this.resolver.getInlineCache(node);
+        visit(node.get_ExpListOpt());
+        if (tailCall) {
+            emit(Opcode.TAIL_INVOKE, node.get_Id());
+        }
+        else {
+            emit(Opcode.INVOKE, node.get_Id());
+        }
+    }
+
+    @Override
+    public void caseExpList(
+            NExpList node) {
+
+        visit(node.get_Exp());
+        emit(Opcode.ARGUMENT, null);
+        visit(node.get_AdditionalExps());
+    }
+
+    @Override
+    public void caseAdditionalExp(
+            NAdditionalExp node) {
+
+        visit(node.get_Exp());
+        emit(Opcode.ARGUMENT, null);
+    }
+}
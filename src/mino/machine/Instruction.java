@@ -0,0 +1,82 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.machine;
+
+import mino.language_mino.*;
+
+/**
+ * Instruction of the stack machine. Operands are taken from, and results
+ * pushed on, the operand stack of the machine.
+ */
+class Instruction {
+
+    static enum Opcode {
+        // push value, which is an instance or null
+        PUSH,
+        PUSH_SELF,
+        // push variable in slot operand; node is its identifier
+        LOAD_VAR,
+        STORE_VAR,
+        // value is the resolved field or null; node is the field name
+        LOAD_FIELD,
+        STORE_FIELD,
+        // value is the resolved class or null; node is the new term
+        NEW,
+        IS,
+        // value is the resolved class or null; node is the class name
+        ISA,
+        // value is the inline cache of the operator
+        EQ,
+        ADD,
+        NOT,
+        // jump to operand
+        JUMP,
+        BRANCH_IF_FALSE,
+        // value is the inline cache; pushes the frame of the callee
+        PREPARE_CALL,
+        PREPARE_SELF_CALL,
+        // set next parameter of the frame of the callee
+        ARGUMENT,
+        INVOKE,
+        TAIL_INVOKE,
+        POP,
+        RETURN,
+        RETURN_VALUE,
+        // value is the message
+        ERROR,
+        HALT;
+    }
+
+    final Opcode opcode;
+
+    // token reported in error messages and stack traces
+    final Token location;
+
+    int operand;
+
+    Object value;
+
+    Node node;
+
+    Instruction(
+            Opcode opcode,
+            Token location) {
+
+        this.opcode = opcode;
+        this.location = location;
+    }
+}
@@ -0,0 +1,423 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.machine;
+
+import java.util.*;
+
+import mino.exception.*;
+import mino.language_mino.*;
+import mino.machine.Instruction.Opcode;
+import mino.structure.*;
+
+/**
+ * Execution engine that runs the program as instructions of a stack machine.
+ * Activation records live on the heap, in the call stack and in the return
+ * address stack of the machine, so mino recursion does not use the Java
+ * stack, and the frame of a method that returns the result of a call is
+ * replaced by the frame of the callee.
+ */
+public class StackMachine
+        implements ExecutionEngine {
+
+    private static final int INITIAL_STACK_CAPACITY = 256;
+
+    private static final int INITIAL_ACTIVATION_CAPACITY = 64;
+
+    private final StandardOutput standardOutput;
+
+    private Program program;
+
+    private CodeGenerator codeGenerator;
+
+    private final Map<MethodInfo, Instruction[]> methodInfoToCodeMap
+            = new IdentityHashMap<>();
+
+    private final CallStack callStack = new CallStack();
+
+    private Frame currentFrame;
+
+    private BooleanClassInfo booleanClassInfo;
+
+    // operand stack
+    private Instance[] stack = new Instance[INITIAL_STACK_CAPACITY];
+
+    private int stackSize;
+
+    private Instruction[] code;
+
+    private int pc;
+
+    // return addresses of the active methods
+    private Instruction[][] returnCodes
+            = new Instruction[INITIAL_ACTIVATION_CAPACITY][];
+
+    private int[] returnPcs = new int[INITIAL_ACTIVATION_CAPACITY];
+
+    private int activationCount;
+
+    // set while invoking a method whose result is directly returned
+    private boolean tailCall;
+
+    // set when the invoked method is entered rather than run to completion
+    private boolean entered;
+
+    public StackMachine(
+            StandardOutput standardOutput) {
+
+        this.standardOutput = standardOutput;
+    }
+
+    @Override
+    public void load(
+            Node syntaxTree) {
+
+        this.program = new Program((NFile) syntaxTree, this.standardOutput);
+        this.codeGenerator = new CodeGenerator(this.program);
+        this.booleanClassInfo = this.program.getBooleanClassInfo();
+    }
+
+    @Override
+    public void run() {
+
+        // create initial Object instance
+        Instance instance = this.program.getObjectClassInfo().newInstance();
+
+        // create initial frame
+        this.currentFrame = this.callStack.push(null, instance,
+                this.program.getMainVariableTable());
+
+        // execute statements
+        this.code
+                = this.codeGenerator.generate(this.program.getMainStms(), true);
+        this.pc = 0;
+        execute();
+    }
+
+    @Override
+    public void printStackTrace() {
+
+        if (this.currentFrame != null) {
+            this.currentFrame.printStackTrace();
+        }
+    }
+
+    @Override
+    public void printStatistics() {
+
+        Program.printStatistics(this.program);
+    }
+
+    @Override
+    public Frame getCurrentFrame() {
+
+        return this.currentFrame;
+    }
+
+    @Override
+    public Primitives getPrimitives() {
+
+        return this.program.getPrimitives();
+    }
+
+    @Override
+    public void executeBody(
+            MethodInfo methodInfo) {
+
+        Instruction[] code = this.methodInfoToCodeMap.get(methodInfo);
+        if (code == null) {
+            code = this.codeGenerator
+                    .generate(this.program.getBodyOrNull(methodInfo), false);
+            this.methodInfoToCodeMap.put(methodInfo, code);
+        }
+
+        if (this.tailCall) {
+            // the callee returns directly to the caller of the current method
+            this.currentFrame = this.callStack
+                    .replace(this.currentFrame.getPreviousFrame());
+        }
+        else {
+            if (this.activationCount == this.returnPcs.length) {
+                int capacity = this.returnPcs.length * 2;
+                this.returnCodes = Arrays.copyOf(this.returnCodes, capacity);
+                this.returnPcs = Arrays.copyOf(this.returnPcs, capacity);
+            }
+            this.returnCodes[this.activationCount] = this.code;
+            this.returnPcs[this.activationCount] = this.pc;
+            this.activationCount++;
+        }
+
+        this.code = code;
+        this.pc = 0;
+        this.entered = true;
+    }
+
+    private void push(
+            Instance value) {
+
+        if (this.stackSize == this.stack.length) {
+            this.stack = Arrays.copyOf(this.stack, this.stack.length * 2);
+        }
+        this.stack[this.stackSize++] = value;
+    }
+
+    private Instance pop() {
+
+        Instance value = this.stack[--this.stackSize];
+        this.stack[this.stackSize] = null;
+        return value;
+    }
+
+    private Instance getBoolean(
+            boolean value) {
+
+        if (value) {
+            return this.booleanClassInfo.getTrue();
+        }
+
+        return this.booleanClassInfo.getFalse();
+    }
+
+    private boolean getCondition(
+            Instance value,
+            Token location) {
+
+        if (value == null) {
+            throw new InterpreterException("expression is null", location);
+        }
+
+        if (!value.isa(this.booleanClassInfo)) {
+            throw new InterpreterException("expression is not boolean",
+                    location);
+        }
+
+        return value == this.booleanClassInfo.getTrue();
+    }
+
+    private FieldInfo getFieldInfo(
+            Instance self,
+            Instruction instruction) {
+
+        FieldInfo fieldInfo = (FieldInfo) instruction.value;
+        if (fieldInfo == null) {
+            fieldInfo = self.getClassInfo().getFieldTable()
+                    .getFieldInfo((NFieldName) instruction.node);
+        }
+
+        return fieldInfo;
+    }
+
+    private void prepareCall(
+            Instance receiver,
+            Instruction instruction) {
+
+        MethodInfo invokedMethod = ((InlineCache) instruction.value)
+                .getMethodInfo(receiver.getClassInfo());
+        this.callStack.push(this.currentFrame, receiver, invokedMethod);
+    }
+
+    private void invoke(
+            Token location,
+            boolean tailCall) {
+
+        Frame frame = this.callStack.getTop();
+        Intrinsic intrinsic = frame.getInvokedMethod().getIntrinsicOrNull();
+        if (intrinsic != null) {
+            Instance value = intrinsic.execute(frame);
+            if (value != Intrinsic.NOT_HANDLED) {
+                push(value);
+                this.callStack.pop(frame);
+                return;
+            }
+        }
+
+        this.currentFrame.setCurrentLocation(location);
+        this.currentFrame = frame;
+        this.tailCall = tailCall;
+        this.entered = false;
+        frame.getInvokedMethod().execute(this);
+        this.tailCall = false;
+
+        if (!this.entered) {
+            // a primitive method has completed
+            this.currentFrame = frame.getPreviousFrame();
+            this.currentFrame.setCurrentLocation(null);
+            push(frame.getReturnValue());
+            this.callStack.pop(frame);
+        }
+    }
+
+    private void leave() {
+
+        Frame frame = this.currentFrame;
+        this.currentFrame = frame.getPreviousFrame();
+        this.currentFrame.setCurrentLocation(null);
+
+        this.activationCount--;
+        this.code = this.returnCodes[this.activationCount];
+        this.pc = this.returnPcs[this.activationCount];
+        this.returnCodes[this.activationCount] = null;
+
+        push(frame.getReturnValue());
+        this.callStack.pop(frame);
+    }
+
+    private void execute() {
+
+        while (true) {
+            Instruction instruction = this.code[this.pc++];
+            switch (instruction.opcode) {
+            case PUSH:
+                push((Instance) instruction.value);
+                break;
+            case PUSH_SELF:
+                push(this.currentFrame.getReceiver());
+                break;
+            case LOAD_VAR:
+                push(this.currentFrame.getVar(instruction.operand,
+                        (NId) instruction.node));
+                break;
+            case STORE_VAR:
+                this.currentFrame.setVar(instruction.operand, pop());
+                break;
+            case LOAD_FIELD: {
+                Instance self = this.currentFrame.getReceiver();
+                push(self.getField(getFieldInfo(self, instruction)));
+                break;
+            }
+            case STORE_FIELD: {
+                Instance value = pop();
+                Instance self = this.currentFrame.getReceiver();
+                self.setField(getFieldInfo(self, instruction), value);
+                break;
+            }
+            case NEW: {
+                ClassInfo classInfo = (ClassInfo) instruction.value;
+                if (classInfo == null) {
+                    // the class is either unknown, which is reported here, or
+                    // one that cannot be instantiated
+                    NTerm_New term = (NTerm_New) instruction.node;
+                    this.program.getClassTable().get(term.get_ClassName());
+                    throw new InterpreterException(
+                            "invalid use of new operator",
+                            instruction.location);
+                }
+                push(classInfo.newInstance());
+                break;
+            }
+            case IS: {
+                Instance right = pop();
+                Instance left = pop();
+                push(getBoolean(Instance.isSame(left, right)));
+                break;
+            }
+            case ISA: {
+                Instance left = pop();
+                ClassInfo right = (ClassInfo) instruction.value;
+                if (right == null) {
+                    // reports the unknown class
+                    right = this.program.getClassTable()
+                            .get((NClassName) instruction.node);
+                }
+                push(getBoolean(left == null || left.isa(right)));
+                break;
+            }
+            case EQ: {
+                Instance right = pop();
+                Instance left = pop();
+                if (left == null || right == null) {
+                    push(getBoolean(left == right));
+                }
+                else {
+                    prepareCall(left, instruction);
+                    this.callStack.getTop().setParam(right);
+                    invoke(instruction.location, false);
+                }
+                break;
+            }
+            case ADD: {
+                Instance right = pop();
+                Instance left = pop();
+                if (left == null) {
+                    throw new InterpreterException(
+                            "left argument of + method is null",
+                            instruction.location);
+                }
+                else if (right == null) {
+                    throw new InterpreterException(
+                            "right argument of + method is null",
+                            instruction.location);
+                }
+                prepareCall(left, instruction);
+                this.callStack.getTop().setParam(right);
+                invoke(instruction.location, false);
+                break;
+            }
+            case NOT:
+                push(getBoolean(!getCondition(pop(), instruction.location)));
+                break;
+            case JUMP:
+                this.pc = instruction.operand;
+                break;
+            case BRANCH_IF_FALSE:
+                if (!getCondition(pop(), instruction.location)) {
+                    this.pc = instruction.operand;
+                }
+                break;
+            case PREPARE_CALL: {
+                Instance receiver = pop();
+                if (receiver == null) {
+                    throw new InterpreterException("receiver of "
+                            + instruction.location.getText()
+                            + " method is null", instruction.location);
+                }
+                prepareCall(receiver, instruction);
+                break;
+            }
+            case PREPARE_SELF_CALL:
+                prepareCall(this.currentFrame.getReceiver(), instruction);
+                break;
+            case ARGUMENT:
+                this.callStack.getTop().setParam(pop());
+                break;
+            case INVOKE:
+                invoke(instruction.location, false);
+                break;
+            case TAIL_INVOKE:
+                invoke(instruction.location, true);
+                break;
+            case POP:
+                pop();
+                break;
+            case RETURN:
+                leave();
+                break;
+            case RETURN_VALUE:
+                this.currentFrame.setReturnValue(pop());
+                leave();
+                break;
+            case ERROR:
+                throw new InterpreterException((String) instruction.value,
+                        instruction.location);
+            case HALT:
+                return;
+            default:
+                // if this point is reached, there's a bug
+                throw new RuntimeException("unhandled case");
+            }
+        }
+    }
+}
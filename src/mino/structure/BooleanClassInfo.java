@@ -22,15 +22,16 @@ import mino.language_mino.*;
 public class BooleanClassInfo
         extends ClassInfo {
 
-    private final Instance trueInstance = new BooleanInstance(this, true);
+    private Instance trueInstance;
 
-    private final Instance falseInstance = new BooleanInstance(this, false);
+    private Instance falseInstance;
 
     BooleanClassInfo(
             ClassTable classTable,
-            NClassdef definition) {
+            String name,
+            ClassInfo superClass) {
 
-        super(classTable, definition);
+        super(classTable, name, superClass);
     }
 
     @Override
@@ -41,12 +42,28 @@ public class BooleanClassInfo
 
     public Instance getTrue() {
 
+        if (this.trueInstance == null) {
+            createInstances();
+        }
+
         return this.trueInstance;
     }
 
     public Instance getFalse() {
 
+        if (this.falseInstance == null) {
+            createInstances();
+        }
+
         return this.falseInstance;
     }
 
+    private void createInstances() {
+
+        // the fields of Boolean are only known once all class definitions
+        // are collected, so the instances are created lazily
+        this.trueInstance = new BooleanInstance(this, true);
+        this.falseInstance = new BooleanInstance(this, false);
+    }
+
 }
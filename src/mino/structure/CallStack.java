@@ -0,0 +1,166 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package mino.structure;
+
+import java.util.*;
+
+/**
+ * Stack of active frames. The variables of all frames are stored in a single
+ * array, each frame using a window of it, and frame objects are reused, so
+ * that calling a method does not allocate once the stack has grown to its
+ * working size.
+ */
+public class CallStack {
+
+    private static final int INITIAL_VALUE_CAPACITY = 1024;
+
+    private static final int INITIAL_FRAME_CAPACITY = 64;
+
+    Instance[] values = new Instance[INITIAL_VALUE_CAPACITY];
+
+    private int valueCount;
+
+    private Frame[] frames = new Frame[INITIAL_FRAME_CAPACITY];
+
+    private int frameCount;
+
+    public Frame push(
+            Frame previousFrame,
+            Instance receiver,
+            MethodInfo invokedMethod) {
+
+        return push(previousFrame, receiver, invokedMethod,
+                invokedMethod.getVariableTable().getSlotCount());
+    }
+
+    public Frame push(
+            Frame previousFrame,
+            Instance receiver,
+            VariableTable variableTable) {
+
+        return push(previousFrame, receiver, null,
+                variableTable.getSlotCount());
+    }
+
+    /**
+     * Pushes a frame with the given number of slots, which must be at least
+     * the number of variables of the invoked method. The invoked method is
+     * null for the main program.
+     */
+    public Frame push(
+            Frame previousFrame,
+            Instance receiver,
+            MethodInfo invokedMethod,
+            int slotCount) {
+
+        int base = this.valueCount;
+        int end = base + slotCount;
+        if (end > this.values.length) {
+            this.values = Arrays.copyOf(this.values,
+                    Math.max(this.values.length * 2, end));
+        }
+
+        if (this.frameCount == this.frames.length) {
+            this.frames = Arrays.copyOf(this.frames, this.frames.length * 2);
+        }
+
+        Frame frame = this.frames[this.frameCount];
+        if (frame == null) {
+            frame = new Frame(this);
+            this.frames[this.frameCount] = frame;
+        }
+
+        this.frameCount++;
+        this.valueCount = end;
+        frame.reset(previousFrame, receiver, invokedMethod, slotCount, base,
+                0);
+        return frame;
+    }
+
+    /**
+     * Returns the array holding the variables of all frames, for engines
+     * that address the slots of a frame from its base. The array is replaced
+     * when a push makes the stack grow.
+     */
+    public Instance[] getValues() {
+
+        return this.values;
+    }
+
+    public Frame getTop() {
+
+        if (this.frameCount == 0) {
+            // if this point is reached, there's a bug
+            throw new RuntimeException("the call stack is empty");
+        }
+
+        return this.frames[this.frameCount - 1];
+    }
+
+    /**
+     * Replaces the given frame by the frame pushed on top of it, whose
+     * parameters are all set. The callee takes over the window and the
+     * caller of the replaced frame, so a chain of tail calls runs in constant
+     * stack space.
+     */
+    public Frame replace(
+            Frame frame) {
+
+        if (this.frameCount < 2 || this.frames[this.frameCount - 2] != frame) {
+            // if this point is reached, there's a bug
+            throw new RuntimeException("only the frame below the top frame "
+                    + "can be replaced");
+        }
+
+        Frame top = this.frames[this.frameCount - 1];
+        int paramCount = top.getInvokedMethod().getParamCount();
+        int slotCount = top.getSlotCount();
+
+        // the window of the top frame follows that of the replaced frame, so
+        // the window never grows beyond the current capacity
+        System.arraycopy(this.values, top.getBase(), this.values,
+                frame.getBase(), paramCount);
+
+        int end = frame.getBase() + slotCount;
+        Arrays.fill(this.values, end, this.valueCount, null);
+
+        this.frameCount--;
+        this.valueCount = end;
+        frame.reset(frame.getPreviousFrame(), top.getReceiver(),
+                top.getInvokedMethod(), slotCount, frame.getBase(),
+                paramCount);
+        top.clear();
+        return frame;
+    }
+
+    public void pop(
+            Frame frame) {
+
+        if (this.frameCount == 0 || this.frames[this.frameCount - 1] != frame) {
+            // if this point is reached, there's a bug
+            throw new RuntimeException("frames must be popped in order");
+        }
+
+        // popped windows and frames must not keep values reachable
+        Arrays.fill(this.values, frame.getBase(), this.valueCount, null);
+        frame.clear();
+
+        this.frameCount--;
+        this.valueCount = frame.getBase();
+    }
+}
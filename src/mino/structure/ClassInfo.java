@@ -17,14 +17,13 @@
 
 package mino.structure;
 
-import mino.exception.*;
-import mino.language_mino.*;
+import java.util.*;
 
 public class ClassInfo {
 
     private final ClassTable classTable;
 
-    private final NClassdef definition;
+    private final String name;
 
     private final ClassInfo superClass;
 
@@ -32,53 +31,36 @@ public class ClassInfo {
 
     private final FieldTable fieldTable = new FieldTable(this);
 
+    // ancestors of this class, indexed by depth, this class included; the
+    // super class is always defined first, so this is known at construction
+    private final ClassInfo[] display;
+
+    // number of instances created by newInstance
+    private long allocationCount;
+
     ClassInfo(
             ClassTable classTable,
-            NClassdef definition) {
+            String name,
+            ClassInfo superClass) {
 
         this.classTable = classTable;
-        this.definition = definition;
-
-        if (getName().equals("Object")) {
-            // Object
-            if (definition.get_SpecialOpt() instanceof NSpecialOpt_One) {
-                throw new InterpreterException(
-                        "class Object may not have a super class",
-                        definition.get_ClassName());
-            }
-            this.superClass = null;
-        }
-        else if (definition.get_SpecialOpt() instanceof NSpecialOpt_Zero) {
-            // implicit Object super class
-            ClassInfo objectClass = classTable.getObjectClassInfoOrNull();
-            if (objectClass == null) {
-                throw new InterpreterException(
-                        "class Object has not yet been defined",
-                        definition.get_ClassName());
-            }
-            this.superClass = objectClass;
+        this.name = name;
+        this.superClass = superClass;
+
+        if (this.superClass == null) {
+            this.display = new ClassInfo[] { this };
         }
         else {
-            // explicit super class
-            NSpecial aSpecial = ((NSpecialOpt_One) definition.get_SpecialOpt())
-                    .get_Special();
-
-            String superClassName = aSpecial.get_ClassName().getText();
-            if (superClassName.equals("Boolean")
-                    || superClassName.equals("Integer")
-                    || superClassName.equals("String")) {
-                throw new InterpreterException(
-                        "class " + superClassName + " cannot be specialized",
-                        aSpecial.get_ClassName());
-            }
-
-            this.superClass = classTable.get(aSpecial.get_ClassName());
+            ClassInfo[] superDisplay = this.superClass.display;
+            this.display
+                    = Arrays.copyOf(superDisplay, superDisplay.length + 1);
+            this.display[superDisplay.length] = this;
         }
     }
 
     public String getName() {
 
-        return this.definition.get_ClassName().getText();
+        return this.name;
     }
 
     public MethodTable getMethodTable() {
@@ -98,20 +80,20 @@ public class ClassInfo {
 
     public Instance newInstance() {
 
+        this.allocationCount++;
         return new Instance(this);
     }
 
-    public boolean isa(
-            ClassInfo classInfo) {
+    public long getAllocationCount() {
 
-        if (this == classInfo) {
-            return true;
-        }
+        return this.allocationCount;
+    }
 
-        if (this.superClass != null) {
-            return this.superClass.isa(classInfo);
-        }
+    public boolean isa(
+            ClassInfo classInfo) {
 
-        return false;
+        int depth = classInfo.display.length - 1;
+        return depth < this.display.length
+                && this.display[depth] == classInfo;
     }
 }
@@ -27,6 +27,9 @@ public class ClassTable {
     private final Map<String, ClassInfo> nameToClassInfoMap
             = new LinkedHashMap<>();
 
+    private final Map<String, Integer> methodNameToSelectorMap
+            = new LinkedHashMap<>();
+
     public ClassInfo add(
             NClassdef definition) {
 
@@ -38,24 +41,140 @@ public class ClassTable {
                     "duplicate definition of class " + name, nameToken);
         }
 
+        ClassInfo superClassInfo;
+        if (name.equals("Object")) {
+            // Object
+            if (definition.get_SpecialOpt() instanceof NSpecialOpt_One) {
+                throw new InterpreterException(
+                        "class Object may not have a super class", nameToken);
+            }
+            superClassInfo = null;
+        }
+        else if (definition.get_SpecialOpt() instanceof NSpecialOpt_Zero) {
+            // implicit Object super class
+            superClassInfo = getObjectClassInfoOrNull();
+            if (superClassInfo == null) {
+                throw new InterpreterException(
+                        "class Object has not yet been defined", nameToken);
+            }
+        }
+        else {
+            // explicit super class
+            NSpecial aSpecial = ((NSpecialOpt_One) definition.get_SpecialOpt())
+                    .get_Special();
+
+            String superClassName = aSpecial.get_ClassName().getText();
+            if (superClassName.equals("Boolean")
+                    || superClassName.equals("Integer")
+                    || superClassName.equals("String")) {
+                throw new InterpreterException(
+                        "class " + superClassName + " cannot be specialized",
+                        aSpecial.get_ClassName());
+            }
+
+            superClassInfo = get(aSpecial.get_ClassName());
+        }
+
+        return add(name, superClassInfo);
+    }
+
+    /**
+     * Adds a class of a program that was checked when it was compiled ahead
+     * of time. The super class, if any, must already be in the table.
+     */
+    public ClassInfo add(
+            String name,
+            ClassInfo superClassInfo) {
+
         ClassInfo classInfo;
         if (name.equals("Boolean")) {
-            classInfo = new BooleanClassInfo(this, definition);
+            classInfo = new BooleanClassInfo(this, name, superClassInfo);
         }
         else if (name.equals("Integer")) {
-            classInfo = new IntegerClassInfo(this, definition);
+            classInfo = new IntegerClassInfo(this, name, superClassInfo);
         }
         else if (name.equals("String")) {
-            classInfo = new StringClassInfo(this, definition);
+            classInfo = new StringClassInfo(this, name, superClassInfo);
         }
         else {
-            classInfo = new ClassInfo(this, definition);
+            classInfo = new ClassInfo(this, name, superClassInfo);
         }
 
         this.nameToClassInfoMap.put(name, classInfo);
         return classInfo;
     }
 
+    public void buildVirtualTables() {
+
+        // number every method name of the program
+        for (ClassInfo classInfo : this.nameToClassInfoMap.values()) {
+            for (MethodInfo methodInfo : classInfo.getMethodTable()
+                    .getMethodInfos()) {
+                String name = methodInfo.getName();
+                if (!this.methodNameToSelectorMap.containsKey(name)) {
+                    this.methodNameToSelectorMap.put(name,
+                            this.methodNameToSelectorMap.size());
+                }
+            }
+        }
+
+        // a class is always defined after its super class, so the table of
+        // the super class is built first
+        for (ClassInfo classInfo : this.nameToClassInfoMap.values()) {
+            classInfo.getMethodTable().buildVirtualTable(this);
+        }
+    }
+
+    public int getSelectorCount() {
+
+        return this.methodNameToSelectorMap.size();
+    }
+
+    public int getSelector(
+            String methodName) {
+
+        Integer selector = this.methodNameToSelectorMap.get(methodName);
+        if (selector == null) {
+            // no class has such a method
+            return -1;
+        }
+
+        return selector;
+    }
+
+    /**
+     * Returns the only method that the instances of a class and of its
+     * subclasses invoke with a selector, or null when they invoke several
+     * methods or none. The program declares all its classes before it runs,
+     * so no class can later add another method.
+     */
+    public MethodInfo getSingleImplementationOrNull(
+            ClassInfo classInfo,
+            int selector) {
+
+        MethodInfo implementation = null;
+        for (ClassInfo otherClassInfo : this.nameToClassInfoMap.values()) {
+            if (otherClassInfo.isa(classInfo)) {
+                MethodInfo methodInfo = otherClassInfo.getMethodTable()
+                        .getMethodInfoOrNull(selector);
+                if (implementation == null) {
+                    implementation = methodInfo;
+                }
+                else if (methodInfo != null && methodInfo != implementation) {
+                    return null;
+                }
+            }
+        }
+
+        return implementation;
+    }
+
+    public Collection<ClassInfo> getClassInfos() {
+
+        return Collections.unmodifiableCollection(
+                this.nameToClassInfoMap.values());
+    }
+
     public ClassInfo getObjectClassInfoOrNull() {
 
         return this.nameToClassInfoMap.get("Object");
@@ -74,6 +193,12 @@ public class ClassTable {
         return this.nameToClassInfoMap.get(name);
     }
 
+    public ClassInfo getClassInfoOrNull(
+            String name) {
+
+        return this.nameToClassInfoMap.get(name);
+    }
+
     public ClassInfo getBooleanClassInfoOrNull() {
 
         return this.nameToClassInfoMap.get("Boolean");
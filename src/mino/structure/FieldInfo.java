@@ -17,25 +17,32 @@
 
 package mino.structure;
 
-import mino.language_mino.*;
-
 public class FieldInfo {
 
     private final FieldTable fieldTable;
 
-    private final NMember_Field definition;
+    private final String name;
+
+    private final int offset;
 
     FieldInfo(
             FieldTable fieldTable,
-            NMember_Field definition) {
+            String name,
+            int offset) {
 
         this.fieldTable = fieldTable;
-        this.definition = definition;
+        this.name = name;
+        this.offset = offset;
     }
 
     public String getName() {
 
-        return this.definition.get_FieldName().getText();
+        return this.name;
+    }
+
+    public int getOffset() {
+
+        return this.offset;
     }
 
 }
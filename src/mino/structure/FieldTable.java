@@ -56,20 +56,64 @@ public class FieldTable {
                     "duplicate definition of field " + name, nameToken);
         }
 
-        this.nameToFieldInfoMap.put(name, new FieldInfo(this, definition));
+        add(name);
     }
 
-    public boolean contains(
+    /** Adds a field of a program that was checked when it was compiled. */
+    public void add(
             String name) {
 
         ClassInfo superClassInfo = this.classInfo.getSuperClassInfoOrNull();
+
+        // inherited fields come first, so the offset of a field is the same
+        // in all subclasses
+        int offset = this.nameToFieldInfoMap.size();
         if (superClassInfo != null) {
-            if (superClassInfo.getFieldTable().contains(name)) {
-                return true;
-            }
+            offset += superClassInfo.getFieldTable().getFieldCount();
         }
 
-        return this.nameToFieldInfoMap.containsKey(name);
+        this.nameToFieldInfoMap.put(name,
+                new FieldInfo(this, name, offset));
+        this.fields = null;
+    }
+
+    public boolean contains(
+            String name) {
+
+        return getFieldInfoOrNull(name) != null;
+    }
+
+    public FieldInfo getFieldInfoOrNull(
+            String name) {
+
+        FieldInfo fieldInfo = this.nameToFieldInfoMap.get(name);
+        ClassInfo superClassInfo = this.classInfo.getSuperClassInfoOrNull();
+
+        if (fieldInfo == null && superClassInfo != null) {
+            fieldInfo
+                    = superClassInfo.getFieldTable().getFieldInfoOrNull(name);
+        }
+
+        return fieldInfo;
+    }
+
+    public FieldInfo getFieldInfo(
+            NFieldName fieldName) {
+
+        String name = fieldName.getText();
+        FieldInfo fieldInfo = getFieldInfoOrNull(name);
+
+        if (fieldInfo == null) {
+            throw new InterpreterException("class " + this.classInfo.getName()
+                    + " has no " + name + " field", fieldName);
+        }
+
+        return fieldInfo;
+    }
+
+    public int getFieldCount() {
+
+        return getFields().size();
     }
 
     public Set<FieldInfo> getFields() {
@@ -24,37 +24,81 @@ import mino.language_mino.*;
 
 public class Frame {
 
-    private final Frame previousFrame;
+    // marks variables that have not yet been assigned
+    private static final Instance UNDEFINED = new Instance();
 
-    private final Instance receiver;
+    private final CallStack callStack;
 
-    private final MethodInfo invokedMethod;
+    private Frame previousFrame;
 
-    private final Map<String, Instance> varNameToValueMap
-            = new LinkedHashMap<>();
+    private Instance receiver;
+
+    private MethodInfo invokedMethod;
+
+    private int slotCount;
+
+    // index of the first variable of this frame in the call stack
+    private int base;
 
     private Instance returnValue;
 
     private int nextParamIndex;
 
-    private Token currentLocation;
+    // line and position of the call being executed, 0 when there is none
+    private int currentLine;
+
+    private int currentPos;
+
+    Frame(
+            CallStack callStack) {
 
-    public Frame(
+        this.callStack = callStack;
+    }
+
+    void reset(
             Frame previousFrame,
             Instance receiver,
-            MethodInfo invokedMethod) {
+            MethodInfo invokedMethod,
+            int slotCount,
+            int base,
+            int paramCount) {
 
+        // the first paramCount slots already hold the parameters
         this.previousFrame = previousFrame;
         this.receiver = receiver;
         this.invokedMethod = invokedMethod;
+        this.slotCount = slotCount;
+        this.base = base;
+        this.returnValue = null;
+        this.nextParamIndex = paramCount;
+        this.currentLine = 0;
+        this.currentPos = 0;
+        Arrays.fill(this.callStack.values, base + paramCount, base + slotCount,
+                UNDEFINED);
+    }
+
+    void clear() {
+
+        this.previousFrame = null;
+        this.receiver = null;
+        this.returnValue = null;
+    }
+
+    public int getBase() {
+
+        return this.base;
+    }
+
+    int getSlotCount() {
+
+        return this.slotCount;
     }
 
     public void setVar(
-            NId id,
+            int slot,
             Instance value) {
 
-        String name = id.getText();
-        this.varNameToValueMap.put(name, value);
+        this.callStack.values[this.base + slot] = value;
     }
 
     public Instance getReceiver() {
@@ -81,9 +125,8 @@ public class Frame {
     public void setParam(
             Instance value) {
 
-        String paramName
-                = this.invokedMethod.getParamName(this.nextParamIndex++);
-        this.varNameToValueMap.put(paramName, value);
+        // parameters occupy the first slots
+        this.callStack.values[this.base + this.nextParamIndex++] = value;
     }
 
     public Instance getReturnValue() {
@@ -92,35 +135,94 @@ public class Frame {
     }
 
     public Instance getVar(
+            int slot,
             NId id) {
 
-        String name = id.getText();
+        Instance value = this.callStack.values[this.base + slot];
 
-        if (!this.varNameToValueMap.containsKey(name)) {
-            throw new InterpreterException("unknown variable " + name, id);
+        if (value == UNDEFINED) {
+            throw new InterpreterException("unknown variable " + id.getText(),
+                    id);
         }
 
-        return this.varNameToValueMap.get(name);
+        return value;
     }
 
-    public Instance getParameterValueWithoutId(
-            String name) {
+    public Instance getValue(
+            int slot) {
+
+        return this.callStack.values[this.base + slot];
+    }
 
-        if (!this.varNameToValueMap.containsKey(name)) {
+    public boolean isDefined(
+            int slot) {
+
+        return this.callStack.values[this.base + slot] != UNDEFINED;
+    }
+
+    public Instance getParameterValue(
+            int index) {
+
+        Instance value = this.callStack.values[this.base + index];
+
+        if (value == UNDEFINED) {
             throw new RuntimeException("parameter should have been set");
         }
 
-        return this.varNameToValueMap.get(name);
+        return value;
     }
 
-    public Token getCurrentLocation() {
+    public int getCurrentLine() {
 
-        return this.currentLocation;
+        return this.currentLine;
+    }
+
+    public int getCurrentPos() {
+
+        return this.currentPos;
     }
 
     public void setCurrentLocation(
             Token currentLocation) {
 
-        this.currentLocation = currentLocation;
+        if (currentLocation != null) {
+            this.currentLine = currentLocation.getLine();
+            this.currentPos = currentLocation.getPos();
+        }
+        else {
+            this.currentLine = 0;
+            this.currentPos = 0;
+        }
+    }
+
+    public void setCurrentLocation(
+            int line,
+            int pos) {
+
+        this.currentLine = line;
+        this.currentPos = pos;
+    }
+
+    public void printStackTrace() {
+
+        Frame frame = this;
+        while (frame != null) {
+            String location = "";
+            if (frame.currentLine != 0) {
+                location = " at line " + frame.currentLine + " position "
+                        + frame.currentPos;
+            }
+            MethodInfo invokedMethod = frame.invokedMethod;
+            if (invokedMethod != null) {
+                System.err.println(
+                        " in " + invokedMethod.getClassInfo().getName() + "."
+                                + invokedMethod.getName() + "()" + location);
+            }
+            else {
+                System.err.println(" in main program" + location);
+            }
+
+            frame = frame.previousFrame;
+        }
     }
 }
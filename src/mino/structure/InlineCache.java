@@ -0,0 +1,127 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package mino.structure;
+
+import mino.exception.*;
+import mino.language_mino.*;
+
+public class InlineCache {
+
+    // beyond this number of receiver classes, the call site is megamorphic
+    // and further lookups are not cached
+    private static final int MAX_ENTRY_COUNT = 4;
+
+    private final String name;
+
+    private final int line;
+
+    private final int pos;
+
+    private final int selector;
+
+    private final int argCount;
+
+    // method that the receivers of the call site invoke when they are
+    // instances of its class, as no subclass redefines it, or null
+    private final MethodInfo staticMethodInfo;
+
+    private final ClassInfo[] classInfos = new ClassInfo[MAX_ENTRY_COUNT];
+
+    private final MethodInfo[] methodInfos = new MethodInfo[MAX_ENTRY_COUNT];
+
+    private int entryCount;
+
+    public InlineCache(
+            Token nameToken,
+            int selector,
+            int argCount,
+            MethodInfo staticMethodInfo) {
+
+        this(nameToken.getText(), nameToken.getLine(), nameToken.getPos(),
+                selector, argCount, staticMethodInfo);
+    }
+
+    public InlineCache(
+            String name,
+            int line,
+            int pos,
+            int selector,
+            int argCount,
+            MethodInfo staticMethodInfo) {
+
+        this.name = name;
+        this.line = line;
+        this.pos = pos;
+        this.selector = selector;
+        this.argCount = argCount;
+        this.staticMethodInfo = staticMethodInfo;
+    }
+
+    public int getArgCount() {
+
+        return this.argCount;
+    }
+
+    /**
+     * Returns the method bound to the call site by class hierarchy analysis,
+     * or null if the site was left virtual.
+     */
+    public MethodInfo getStaticMethodInfoOrNull() {
+
+        return this.staticMethodInfo;
+    }
+
+    public MethodInfo getMethodInfo(
+            ClassInfo classInfo) {
+
+        if (this.staticMethodInfo != null
+                && classInfo.isa(this.staticMethodInfo.getClassInfo())) {
+            return this.staticMethodInfo;
+        }
+
+        for (int i = 0; i < this.entryCount; i++) {
+            if (this.classInfos[i] == classInfo) {
+                return this.methodInfos[i];
+            }
+        }
+
+        MethodInfo methodInfo
+                = classInfo.getMethodTable().getMethodInfoOrNull(this.selector);
+        if (methodInfo == null) {
+            throw new InterpreterException("class " + classInfo.getName()
+                    + " has no " + this.name + " method", this.line, this.pos);
+        }
+
+        // the argument count of a call site never changes, so cached entries
+        // need not be checked again
+        if (methodInfo.getParamCount() != this.argCount) {
+            throw new InterpreterException(
+                    "method " + methodInfo.getName() + " expects "
+                            + methodInfo.getParamCount() + " arguments",
+                    this.line, this.pos);
+        }
+
+        if (this.entryCount < MAX_ENTRY_COUNT) {
+            this.classInfos[this.entryCount] = classInfo;
+            this.methodInfos[this.entryCount] = methodInfo;
+            this.entryCount++;
+        }
+
+        return methodInfo;
+    }
+}
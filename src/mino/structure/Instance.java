@@ -17,38 +17,60 @@
 
 package mino.structure;
 
-import java.util.*;
-
-import mino.exception.*;
-import mino.language_mino.*;
-
 public class Instance {
 
     private final ClassInfo classInfo;
 
-    private final Map<String, Instance> fieldNameToValueMap
-            = new LinkedHashMap<>();
+    private final Instance[] fieldValues;
+
+    Instance() {
+
+        // only used for markers that are never visible to mino programs
+        this.classInfo = null;
+        this.fieldValues = null;
+    }
 
     Instance(
             ClassInfo classInfo) {
 
         this.classInfo = classInfo;
-        for (FieldInfo fieldInfo : classInfo.getFieldTable().getFields()) {
-            this.fieldNameToValueMap.put(fieldInfo.getName(), null);
+        this.fieldValues
+                = new Instance[classInfo.getFieldTable().getFieldCount()];
+    }
+
+    /**
+     * Returns a new instance of no class, for engines that mark values with
+     * it. Markers are not counted as allocations of a class.
+     */
+    public static Instance newMarker() {
+
+        return new Instance();
+    }
+
+    /**
+     * Returns whether two values are the same instance for the is operator.
+     */
+    public static boolean isSame(
+            Instance left,
+            Instance right) {
+
+        if (left == right) {
+            return true;
         }
+
+        // concatenated strings are only interned when compared
+        if (left == null || right == null) {
+            return false;
+        }
+
+        return left.getCanonicalInstance() == right.getCanonicalInstance();
     }
 
     public void setField(
-            NFieldName fieldName,
+            FieldInfo fieldInfo,
             Instance value) {
 
-        String name = fieldName.getText();
-        if (!this.fieldNameToValueMap.containsKey(name)) {
-            throw new InterpreterException("class " + this.classInfo.getName()
-                    + " has no " + name + " field", fieldName);
-        }
-
-        this.fieldNameToValueMap.put(name, value);
+        this.fieldValues[fieldInfo.getOffset()] = value;
     }
 
     public boolean isa(
@@ -57,20 +79,20 @@ public class Instance {
         return this.classInfo.isa(classInfo);
     }
 
+    // the instance that represents this value for the is operator
+    Instance getCanonicalInstance() {
+
+        return this;
+    }
+
     public ClassInfo getClassInfo() {
 
         return this.classInfo;
     }
 
     public Instance getField(
-            NFieldName fieldName) {
-
-        String name = fieldName.getText();
-        if (!this.fieldNameToValueMap.containsKey(name)) {
-            throw new InterpreterException("class " + this.classInfo.getName()
-                    + " has no " + name + " field", fieldName);
-        }
+            FieldInfo fieldInfo) {
 
-        return this.fieldNameToValueMap.get(name);
+        return this.fieldValues[fieldInfo.getOffset()];
     }
 }
@@ -18,21 +18,28 @@
 package mino.structure;
 
 import java.math.*;
-import java.util.*;
 
 import mino.language_mino.*;
 
 public class IntegerClassInfo
         extends ClassInfo {
 
-    private final Map<BigInteger, Instance> valueMap
-            = new LinkedHashMap<>();
+    // values in this range always exist and are never looked up in the
+    // intern table
+    private static final int MIN_CACHED_VALUE = -128;
+
+    private static final int MAX_CACHED_VALUE = 1023;
+
+    private Instance[] cachedInstances;
+
+    private final InternTable internTable = new InternTable();
 
     IntegerClassInfo(
             ClassTable classTable,
-            NClassdef definition) {
+            String name,
+            ClassInfo superClass) {
 
-        super(classTable, definition);
+        super(classTable, name, superClass);
     }
 
     @Override
@@ -41,16 +48,74 @@ public class IntegerClassInfo
         throw new RuntimeException("invalid instance creation");
     }
 
+    public Instance newInteger(
+            long value) {
+
+        if (value >= MIN_CACHED_VALUE && value <= MAX_CACHED_VALUE) {
+            if (this.cachedInstances == null) {
+                // the fields of Integer are only known once all class
+                // definitions are collected, so the cache is filled lazily
+                this.cachedInstances
+                        = new Instance[MAX_CACHED_VALUE - MIN_CACHED_VALUE + 1];
+                for (int i = 0; i < this.cachedInstances.length; i++) {
+                    this.cachedInstances[i]
+                            = new IntegerInstance(this, MIN_CACHED_VALUE + i);
+                }
+            }
+
+            return this.cachedInstances[(int) value - MIN_CACHED_VALUE];
+        }
+
+        int hash = InternTable.hash(value);
+        InternTable.Entry entry = this.internTable.getFirstEntry(hash);
+        while (entry != null) {
+            IntegerInstance instance = (IntegerInstance) entry.get();
+            if (instance != null && instance.isLong()
+                    && instance.getLongValue() == value) {
+                return instance;
+            }
+            entry = entry.getNext();
+        }
+
+        Instance instance = new IntegerInstance(this, value);
+        this.internTable.add(hash, instance);
+        return instance;
+    }
+
     public Instance newInteger(
             BigInteger value) {
 
-        Instance instance = this.valueMap.get(value);
+        if (value.bitLength() < 64) {
+            return newInteger(value.longValue());
+        }
 
-        if (instance == null) {
-            instance = new IntegerInstance(this, value);
-            this.valueMap.put(value, instance);
+        int hash = InternTable.hash(value.hashCode());
+        InternTable.Entry entry = this.internTable.getFirstEntry(hash);
+        while (entry != null) {
+            IntegerInstance instance = (IntegerInstance) entry.get();
+            if (instance != null && !instance.isLong()
+                    && instance.getValue().equals(value)) {
+                return instance;
+            }
+            entry = entry.getNext();
         }
 
+        Instance instance = new IntegerInstance(this, value);
+        this.internTable.add(hash, instance);
         return instance;
     }
+
+    public int getCachedCount() {
+
+        if (this.cachedInstances == null) {
+            return 0;
+        }
+
+        return this.cachedInstances.length;
+    }
+
+    public InternTable getInternTable() {
+
+        return this.internTable;
+    }
 }
@@ -22,18 +22,72 @@ import java.math.*;
 public class IntegerInstance
         extends Instance {
 
-    private final BigInteger value;
+    private final long longValue;
+
+    // only set for values that do not fit in a long
+    private final BigInteger bigValue;
+
+    public IntegerInstance(
+            ClassInfo classInfo,
+            long value) {
+
+        super(classInfo);
+        this.longValue = value;
+        this.bigValue = null;
+    }
 
     public IntegerInstance(
             ClassInfo classInfo,
             BigInteger value) {
 
         super(classInfo);
-        this.value = value;
+        if (value.bitLength() < 64) {
+            // if this point is reached, there's a bug
+            throw new RuntimeException("value fits in a long");
+        }
+        this.longValue = 0;
+        this.bigValue = value;
+    }
+
+    @Override
+    public void setField(
+            FieldInfo fieldInfo,
+            Instance value) {
+
+        // interned instances are otherwise reclaimed when no longer used
+        ((IntegerClassInfo) getClassInfo()).getInternTable().retain(this);
+        super.setField(fieldInfo, value);
+    }
+
+    public boolean isLong() {
+
+        return this.bigValue == null;
+    }
+
+    public long getLongValue() {
+
+        if (this.bigValue != null) {
+            throw new RuntimeException("value does not fit in a long");
+        }
+
+        return this.longValue;
     }
 
     public BigInteger getValue() {
 
-        return this.value;
+        if (this.bigValue == null) {
+            return BigInteger.valueOf(this.longValue);
+        }
+
+        return this.bigValue;
+    }
+
+    public String getDecimalValue() {
+
+        if (this.bigValue == null) {
+            return Long.toString(this.longValue);
+        }
+
+        return this.bigValue.toString();
     }
 }
@@ -0,0 +1,172 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package mino.structure;
+
+import java.lang.ref.*;
+import java.util.*;
+
+/**
+ * Hash table of canonical Integer or String instances. Instances are only
+ * weakly referenced, so values that are no longer used by the program can be
+ * reclaimed; an equal value that is created later gets a new instance, which
+ * cannot be observed by the program. Instances whose fields were written are
+ * kept, as the new instance would not have their field values.
+ */
+public class InternTable {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final ReferenceQueue<Instance> queue = new ReferenceQueue<>();
+
+    private Entry[] buckets = new Entry[INITIAL_CAPACITY];
+
+    private final Set<Instance> retainedInstances
+            = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private int size;
+
+    private long reclaimedCount;
+
+    InternTable() {
+
+    }
+
+    Entry getFirstEntry(
+            int hash) {
+
+        return this.buckets[hash & (this.buckets.length - 1)];
+    }
+
+    void add(
+            int hash,
+            Instance instance) {
+
+        expungeReclaimedEntries();
+
+        int index = hash & (this.buckets.length - 1);
+        this.buckets[index]
+                = new Entry(instance, hash, this.queue, this.buckets[index]);
+        this.size++;
+
+        if (this.size > this.buckets.length / 4 * 3) {
+            resize();
+        }
+    }
+
+    void retain(
+            Instance instance) {
+
+        this.retainedInstances.add(instance);
+    }
+
+    public int getSize() {
+
+        return this.size;
+    }
+
+    public int getCapacity() {
+
+        return this.buckets.length;
+    }
+
+    public long getReclaimedCount() {
+
+        return this.reclaimedCount;
+    }
+
+    private void expungeReclaimedEntries() {
+
+        Reference<? extends Instance> reference;
+        while ((reference = this.queue.poll()) != null) {
+            Entry entry = (Entry) reference;
+            int index = entry.hash & (this.buckets.length - 1);
+
+            Entry previous = null;
+            Entry current = this.buckets[index];
+            while (current != null && current != entry) {
+                previous = current;
+                current = current.next;
+            }
+
+            if (current != null) {
+                if (previous == null) {
+                    this.buckets[index] = current.next;
+                }
+                else {
+                    previous.next = current.next;
+                }
+                this.size--;
+                this.reclaimedCount++;
+            }
+        }
+    }
+
+    private void resize() {
+
+        Entry[] oldBuckets = this.buckets;
+        this.buckets = new Entry[oldBuckets.length * 2];
+
+        for (Entry first : oldBuckets) {
+            Entry entry = first;
+            while (entry != null) {
+                Entry next = entry.next;
+                int index = entry.hash & (this.buckets.length - 1);
+                entry.next = this.buckets[index];
+                this.buckets[index] = entry;
+                entry = next;
+            }
+        }
+    }
+
+    static int hash(
+            int hashCode) {
+
+        return hashCode ^ (hashCode >>> 16);
+    }
+
+    static int hash(
+            long value) {
+
+        long hash = value * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    static class Entry
+            extends WeakReference<Instance> {
+
+        private final int hash;
+
+        private Entry next;
+
+        private Entry(
+                Instance instance,
+                int hash,
+                ReferenceQueue<Instance> queue,
+                Entry next) {
+
+            super(instance, queue);
+            this.hash = hash;
+            this.next = next;
+        }
+
+        Entry getNext() {
+
+            return this.next;
+        }
+    }
+}
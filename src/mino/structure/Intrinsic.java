@@ -0,0 +1,398 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.structure;
+
+import java.util.*;
+
+import mino.language_mino.*;
+import mino.walker.*;
+
+/**
+ * Native implementation of a method whose body has a well-known shape, such
+ * as the identity comparison, print and assert methods of class Object.
+ * Engines run it on the prepared frame of a call instead of the body. It
+ * returns NOT_HANDLED when the body would fail or would call a method that
+ * is not known, and the engine then executes the body, which reports errors
+ * as usual.
+ */
+public class Intrinsic {
+
+    /** Result of an intrinsic that leaves the call to the engine. */
+    public static final Instance NOT_HANDLED = new Instance();
+
+    private static enum Kind {
+        NULL,
+        SELF,
+        IDENTITY,
+        CHOICE,
+        PRINT,
+        GUARD;
+    }
+
+    private final Kind kind;
+
+    // parameter used by the body, or -1
+    private final int paramIndex;
+
+    // values returned by a choice when self is true and when it is false
+    private final Instance trueValue;
+
+    private final Instance falseValue;
+
+    private final BooleanClassInfo booleanClassInfo;
+
+    private final Primitives primitives;
+
+    private final int toSSelector;
+
+    private final int toSystemOutSelector;
+
+    private Intrinsic(
+            Program program,
+            Kind kind,
+            int paramIndex,
+            Instance trueValue,
+            Instance falseValue) {
+
+        this.kind = kind;
+        this.paramIndex = paramIndex;
+        this.trueValue = trueValue;
+        this.falseValue = falseValue;
+        this.booleanClassInfo = program.getBooleanClassInfo();
+        this.primitives = program.getPrimitives();
+        this.toSSelector = program.getClassTable().getSelector("to_s");
+        this.toSystemOutSelector
+                = program.getClassTable().getSelector("to_system_out");
+    }
+
+    /**
+     * Returns the intrinsic of a method whose resolved body has a known
+     * shape, or null.
+     */
+    static Intrinsic recognizeOrNull(
+            Program program,
+            MethodInfo methodInfo,
+            NStms body) {
+
+        List<NStm> stms = getStms(body);
+        if (stms.isEmpty()) {
+            return new Intrinsic(program, Kind.NULL, -1, null, null);
+        }
+
+        NStm stm = stms.get(0);
+        if (stms.size() == 1 && stm instanceof NStm_Return) {
+            NExpOpt expOpt = ((NStm_Return) stm).get_ExpOpt();
+            if (expOpt instanceof NExpOpt_Zero) {
+                return new Intrinsic(program, Kind.NULL, -1, null, null);
+            }
+
+            // return null; return self; return self is param;
+            NExp exp = ((NExpOpt_One) expOpt).get_Exp();
+            NTerm term = getTermOrNull(exp);
+            if (term instanceof NTerm_Null) {
+                return new Intrinsic(program, Kind.NULL, -1, null, null);
+            }
+            if (term instanceof NTerm_Self) {
+                return new Intrinsic(program, Kind.SELF, -1, null, null);
+            }
+            if (exp instanceof NExp_Is) {
+                NExp_Is is = (NExp_Is) exp;
+                int paramIndex = getParamIndex(methodInfo,
+                        getTermOrNull(is.get_AddExp()));
+                if (getTermOrNull(is.get_Exp()) instanceof NTerm_Self
+                        && paramIndex >= 0) {
+                    return new Intrinsic(program, Kind.IDENTITY, paramIndex,
+                            null, null);
+                }
+            }
+        }
+        else if (stm instanceof NStm_If) {
+            NStm_If ifStm = (NStm_If) stm;
+            NElseOpt elseOpt = ifStm.get_ElseOpt();
+
+            // if (self) { return literal; } return literal; in class Boolean,
+            // where self is always a boolean
+            List<NStm> falseStms = null;
+            if (elseOpt instanceof NElseOpt_One && stms.size() == 1) {
+                falseStms = getStms(
+                        ((NElseOpt_One) elseOpt).get_Else().get_Stms());
+            }
+            else if (elseOpt instanceof NElseOpt_Zero && stms.size() == 2) {
+                falseStms = stms.subList(1, 2);
+            }
+            if (methodInfo.getClassInfo() == program.getBooleanClassInfo()
+                    && getTermOrNull(ifStm.get_Exp()) instanceof NTerm_Self
+                    && falseStms != null) {
+                Resolver resolver = program.getResolver();
+                Instance trueValue = getReturnedLiteralOrNull(
+                        getStms(ifStm.get_Stms()), resolver);
+                Instance falseValue
+                        = getReturnedLiteralOrNull(falseStms, resolver);
+                if (trueValue != null && falseValue != null) {
+                    return new Intrinsic(program, Kind.CHOICE, -1, trueValue,
+                            falseValue);
+                }
+            }
+
+            // if (!param) { ... } does nothing when the parameter is true
+            NLeftUnaryExp condition = getLeftUnaryExpOrNull(ifStm.get_Exp());
+            if (stms.size() == 1 && elseOpt instanceof NElseOpt_Zero
+                    && condition instanceof NLeftUnaryExp_Not) {
+                int paramIndex = getParamIndex(methodInfo, getTermOrNull(
+                        ((NLeftUnaryExp_Not) condition).get_LeftUnaryExp()));
+                if (paramIndex >= 0) {
+                    return new Intrinsic(program, Kind.GUARD, paramIndex,
+                            null, null);
+                }
+            }
+        }
+        else if (stms.size() == 1 && stm instanceof NStm_Call) {
+            // param.to_s().to_system_out();
+            NCall call = ((NStm_Call) stm).get_Call();
+            NRightUnaryExp receiver = call.get_RightUnaryExp();
+            if (call.get_Id().getText().equals("to_system_out")
+                    && call.get_ExpListOpt() instanceof NExpListOpt_Zero
+                    && receiver instanceof NRightUnaryExp_Call) {
+                NCall toSCall = ((NRightUnaryExp_Call) receiver).get_Call();
+                int paramIndex = getParamIndex(methodInfo,
+                        getTermOrNull(toSCall.get_RightUnaryExp()));
+                if (toSCall.get_Id().getText().equals("to_s")
+                        && toSCall.get_ExpListOpt() instanceof NExpListOpt_Zero
+                        && paramIndex >= 0) {
+                    return new Intrinsic(program, Kind.PRINT, paramIndex,
+                            null, null);
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private static List<NStm> getStms(
+            NStms stms) {
+
+        List<NStm> list = new ArrayList<>();
+        while (stms instanceof NStms_More) {
+            NStms_More more = (NStms_More) stms;
+            list.add(0, more.get_Stm());
+            stms = more.get_Stms();
+        }
+
+        return list;
+    }
+
+    private static NLeftUnaryExp getLeftUnaryExpOrNull(
+            NExp exp) {
+
+        if (!(exp instanceof NExp_Simple)) {
+            return null;
+        }
+        NAddExp addExp = ((NExp_Simple) exp).get_AddExp();
+        if (!(addExp instanceof NAddExp_Simple)) {
+            return null;
+        }
+
+        return ((NAddExp_Simple) addExp).get_LeftUnaryExp();
+    }
+
+    // returns the term of an expression, without parentheses, or null if
+    // the expression has an operator or is a call
+    private static NTerm getTermOrNull(
+            NExp exp) {
+
+        NLeftUnaryExp leftUnaryExp = getLeftUnaryExpOrNull(exp);
+        if (leftUnaryExp == null) {
+            return null;
+        }
+
+        return getTermOrNull(leftUnaryExp);
+    }
+
+    private static NTerm getTermOrNull(
+            NAddExp addExp) {
+
+        if (!(addExp instanceof NAddExp_Simple)) {
+            return null;
+        }
+
+        return getTermOrNull(((NAddExp_Simple) addExp).get_LeftUnaryExp());
+    }
+
+    private static NTerm getTermOrNull(
+            NLeftUnaryExp leftUnaryExp) {
+
+        if (!(leftUnaryExp instanceof NLeftUnaryExp_Simple)) {
+            return null;
+        }
+
+        return getTermOrNull(
+                ((NLeftUnaryExp_Simple) leftUnaryExp).get_RightUnaryExp());
+    }
+
+    private static NTerm getTermOrNull(
+            NRightUnaryExp rightUnaryExp) {
+
+        if (!(rightUnaryExp instanceof NRightUnaryExp_Simple)) {
+            return null;
+        }
+        NTerm term = ((NRightUnaryExp_Simple) rightUnaryExp).get_Term();
+        if (term instanceof NTerm_Par) {
+            return getTermOrNull(((NTerm_Par) term).get_Exp());
+        }
+
+        return term;
+    }
+
+    // returns the index of the parameter that a term reads, or -1
+    private static int getParamIndex(
+            MethodInfo methodInfo,
+            NTerm term) {
+
+        if (term instanceof NTerm_Var) {
+            String name = ((NTerm_Var) term).get_Id().getText();
+            for (int i = 0; i < methodInfo.getParamCount(); i++) {
+                if (methodInfo.getParamName(i).equals(name)) {
+                    return i;
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    // returns the literal returned by statements that only return a number
+    // or a string, or null
+    private static Instance getReturnedLiteralOrNull(
+            List<NStm> stms,
+            Resolver resolver) {
+
+        if (stms.size() != 1 || !(stms.get(0) instanceof NStm_Return)) {
+            return null;
+        }
+        NExpOpt expOpt = ((NStm_Return) stms.get(0)).get_ExpOpt();
+        if (!(expOpt instanceof NExpOpt_One)) {
+            return null;
+        }
+
+        NTerm term = getTermOrNull(((NExpOpt_One) expOpt).get_Exp());
+        if (term instanceof NTerm_Num || term instanceof NTerm_String) {
+            return resolver.getLiteralInstance(term);
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns whether the method has no effect and cannot fail, so that it
+     * may be executed before run time on known values.
+     */
+    public boolean isPure() {
+
+        return this.kind != Kind.PRINT && this.kind != Kind.GUARD;
+    }
+
+    /** Executes the method on the frame of a call, whose parameters are set. */
+    public Instance execute(
+            Frame frame) {
+
+        Instance argument = null;
+        if (this.paramIndex >= 0) {
+            argument = frame.getParameterValue(this.paramIndex);
+        }
+
+        return execute(frame.getReceiver(), argument);
+    }
+
+    /**
+     * Executes a method that has at most one parameter, given the value of
+     * this parameter.
+     */
+    public Instance execute(
+            Instance self,
+            Instance argument) {
+
+        switch (this.kind) {
+        case NULL:
+            return null;
+        case SELF:
+            return self;
+        case IDENTITY:
+            if (Instance.isSame(self, argument)) {
+                return this.booleanClassInfo.getTrue();
+            }
+            return this.booleanClassInfo.getFalse();
+        case CHOICE:
+            if (self == this.booleanClassInfo.getTrue()) {
+                return this.trueValue;
+            }
+            return this.falseValue;
+        case PRINT:
+            return print(argument);
+        case GUARD:
+            if (argument == this.booleanClassInfo.getTrue()) {
+                return null;
+            }
+            return NOT_HANDLED;
+        default:
+            // if this point is reached, there's a bug
+            throw new RuntimeException("unhandled case");
+        }
+    }
+
+    // prints a value when neither its to_s method nor the to_system_out
+    // method of the result can fail or have other effects
+    private Instance print(
+            Instance value) {
+
+        if (value == null) {
+            return NOT_HANDLED;
+        }
+
+        MethodInfo toS = value.getClassInfo().getMethodTable()
+                .getMethodInfoOrNull(this.toSSelector);
+        if (toS == null || toS.getParamCount() != 0) {
+            return NOT_HANDLED;
+        }
+
+        Instance string;
+        if (toS instanceof PrimitiveNormalMethodInfo) {
+            // the only primitive to_s method is that of class Integer
+            string = this.primitives.toS((IntegerInstance) value);
+        }
+        else if (toS.getIntrinsicOrNull() != null) {
+            // intrinsics without parameters call no method
+            string = toS.getIntrinsicOrNull().execute(value, null);
+        }
+        else {
+            return NOT_HANDLED;
+        }
+
+        if (string == null || string == NOT_HANDLED) {
+            return NOT_HANDLED;
+        }
+
+        // the only primitive to_system_out method is that of class String
+        MethodInfo toSystemOut = string.getClassInfo().getMethodTable()
+                .getMethodInfoOrNull(this.toSystemOutSelector);
+        if (!(toSystemOut instanceof PrimitiveNormalMethodInfo)) {
+            return NOT_HANDLED;
+        }
+
+        this.primitives.toSystemOut((StringInstance) string);
+        return null;
+    }
+}
@@ -21,33 +21,63 @@ import java.util.*;
 
 import mino.exception.*;
 import mino.language_mino.*;
-import mino.walker.*;
 
 public abstract class MethodInfo {
 
     private final MethodTable methodTable;
 
+    private final String name;
+
     private final List<String> paramNames = new LinkedList<>();
 
+    private final VariableTable variableTable = new VariableTable();
+
+    // execution counters, maintained by the engines that compile hot methods
+    private int invocationCount;
+
+    private int backEdgeCount;
+
+    private Intrinsic intrinsic;
+
     MethodInfo(
             MethodTable methodTable,
+            String name,
             List<NId> params) {
 
         this.methodTable = methodTable;
+        this.name = name;
 
         Set<String> paramNameSet = new LinkedHashSet<>();
         for (NId id : params) {
-            String name = id.getText();
-            if (paramNameSet.contains(name)) {
-                throw new InterpreterException("duplicate parameter " + name,
-                        id);
+            String paramName = id.getText();
+            if (paramNameSet.contains(paramName)) {
+                throw new InterpreterException(
+                        "duplicate parameter " + paramName, id);
             }
-            paramNameSet.add(name);
-            this.paramNames.add(name);
+            paramNameSet.add(paramName);
+            this.paramNames.add(paramName);
+            this.variableTable.addParam(paramName);
+        }
+    }
+
+    MethodInfo(
+            MethodTable methodTable,
+            String name,
+            String[] paramNames) {
+
+        this.methodTable = methodTable;
+        this.name = name;
+
+        for (String paramName : paramNames) {
+            this.paramNames.add(paramName);
+            this.variableTable.addParam(paramName);
         }
     }
 
-    public abstract String getName();
+    public String getName() {
+
+        return this.name;
+    }
 
     public String getParamName(
             int i) {
@@ -60,8 +90,53 @@ public abstract class MethodInfo {
         return this.paramNames.size();
     }
 
+    public VariableTable getVariableTable() {
+
+        return this.variableTable;
+    }
+
+    /** Counts an invocation of this method, and returns the new count. */
+    public int countInvocation() {
+
+        return ++this.invocationCount;
+    }
+
+    /**
+     * Counts a jump back to the start of a loop of this method, and returns
+     * the new count.
+     */
+    public int countBackEdge() {
+
+        return ++this.backEdgeCount;
+    }
+
+    public int getInvocationCount() {
+
+        return this.invocationCount;
+    }
+
+    public int getBackEdgeCount() {
+
+        return this.backEdgeCount;
+    }
+
+    /**
+     * Returns the native implementation of the body of this method, or null
+     * if it has none.
+     */
+    public Intrinsic getIntrinsicOrNull() {
+
+        return this.intrinsic;
+    }
+
+    void setIntrinsic(
+            Intrinsic intrinsic) {
+
+        this.intrinsic = intrinsic;
+    }
+
     public abstract void execute(
-            InterpreterEngine interpreterEngine);
+            ExecutionEngine executionEngine);
 
     public ClassInfo getClassInfo() {
 
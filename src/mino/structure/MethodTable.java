@@ -29,13 +29,16 @@ public class MethodTable {
     private final Map<String, MethodInfo> nameToMethodInfoMap
             = new LinkedHashMap<>();
 
+    // own and inherited methods, indexed by selector
+    private MethodInfo[] virtualTable;
+
     MethodTable(
             ClassInfo classInfo) {
 
         this.classInfo = classInfo;
     }
 
-    public void add(
+    public MethodInfo add(
             NMember_Method definition,
             List<NId> params) {
 
@@ -47,11 +50,12 @@ public class MethodTable {
                     "duplicate definition of method " + name, nameToken);
         }
 
-        this.nameToMethodInfoMap.put(name,
-                new NormalMethodInfo(this, definition, params));
+        MethodInfo methodInfo = new NormalMethodInfo(this, name, params);
+        this.nameToMethodInfoMap.put(name, methodInfo);
+        return methodInfo;
     }
 
-    public void add(
+    public MethodInfo add(
             NMember_Operator definition,
             List<NId> params,
             Token operatorToken) {
@@ -63,8 +67,10 @@ public class MethodTable {
                     "duplicate definition of operator " + name, operatorToken);
         }
 
-        this.nameToMethodInfoMap.put(name, new OperatorMethodInfo(this,
-                definition, params, operatorToken));
+        MethodInfo methodInfo
+                = new OperatorMethodInfo(this, params, operatorToken);
+        this.nameToMethodInfoMap.put(name, methodInfo);
+        return methodInfo;
     }
 
     public void add(
@@ -80,7 +86,7 @@ public class MethodTable {
         }
 
         this.nameToMethodInfoMap.put(name,
-                new PrimitiveNormalMethodInfo(this, definition, params));
+                new PrimitiveNormalMethodInfo(this, nameToken, params));
     }
 
     public void add(
@@ -95,36 +101,69 @@ public class MethodTable {
                     "duplicate definition of operator " + name, operatorToken);
         }
 
-        this.nameToMethodInfoMap.put(name, new PrimitiveOperatorMethodInfo(this,
-                definition, params, operatorToken));
+        this.nameToMethodInfoMap.put(name,
+                new PrimitiveOperatorMethodInfo(this, params, operatorToken));
     }
 
-    private MethodInfo getMethodInfoOrNull(
-            String name) {
-
-        MethodInfo methodInfo = this.nameToMethodInfoMap.get(name);
-        ClassInfo superClassInfo = this.classInfo.getSuperClassInfoOrNull();
-
-        if (methodInfo == null && superClassInfo != null) {
+    /**
+     * Adds a method of a program that was checked when it was compiled ahead
+     * of time.
+     */
+    public MethodInfo add(
+            String name,
+            String[] paramNames,
+            boolean primitive) {
+
+        MethodInfo methodInfo;
+        if (!primitive) {
+            // operators with a body behave as other methods at run time
+            methodInfo = new NormalMethodInfo(this, name, paramNames);
+        }
+        else if (name.equals("+") || name.equals("==")) {
             methodInfo
-                    = superClassInfo.getMethodTable().getMethodInfoOrNull(name);
+                    = new PrimitiveOperatorMethodInfo(this, name, paramNames);
+        }
+        else {
+            methodInfo = new PrimitiveNormalMethodInfo(this, name, paramNames);
         }
 
+        this.nameToMethodInfoMap.put(name, methodInfo);
         return methodInfo;
     }
 
-    public MethodInfo getMethodInfo(
-            Token nameToken) {
+    void buildVirtualTable(
+            ClassTable classTable) {
 
-        String name = nameToken.getText();
-        MethodInfo methodInfo = getMethodInfoOrNull(name);
+        this.virtualTable = new MethodInfo[classTable.getSelectorCount()];
 
-        if (methodInfo == null) {
-            throw new InterpreterException("class " + this.classInfo.getName()
-                    + " has no " + name + " method", nameToken);
+        ClassInfo superClassInfo = this.classInfo.getSuperClassInfoOrNull();
+        if (superClassInfo != null) {
+            MethodInfo[] superVirtualTable
+                    = superClassInfo.getMethodTable().virtualTable;
+            System.arraycopy(superVirtualTable, 0, this.virtualTable, 0,
+                    superVirtualTable.length);
         }
 
-        return methodInfo;
+        for (MethodInfo methodInfo : this.nameToMethodInfoMap.values()) {
+            int selector = classTable.getSelector(methodInfo.getName());
+            this.virtualTable[selector] = methodInfo;
+        }
+    }
+
+    public MethodInfo getMethodInfoOrNull(
+            int selector) {
+
+        if (selector < 0) {
+            return null;
+        }
+
+        return this.virtualTable[selector];
+    }
+
+    public Collection<MethodInfo> getMethodInfos() {
+
+        return Collections.unmodifiableCollection(
+                this.nameToMethodInfoMap.values());
     }
 
     public ClassInfo getClassInfo() {
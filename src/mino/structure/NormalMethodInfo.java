@@ -20,32 +20,30 @@ package mino.structure;
 import java.util.*;
 
 import mino.language_mino.*;
-import mino.walker.*;
 
 public class NormalMethodInfo
         extends MethodInfo {
 
-    private final NMember_Method definition;
-
     NormalMethodInfo(
             MethodTable methodTable,
-            NMember_Method definition,
+            String name,
             List<NId> params) {
 
-        super(methodTable, params);
-        this.definition = definition;
+        super(methodTable, name, params);
     }
 
-    @Override
-    public String getName() {
+    NormalMethodInfo(
+            MethodTable methodTable,
+            String name,
+            String[] paramNames) {
 
-        return this.definition.get_Id().getText();
+        super(methodTable, name, paramNames);
     }
 
     @Override
     public void execute(
-            InterpreterEngine interpreterEngine) {
+            ExecutionEngine executionEngine) {
 
-        interpreterEngine.visit(this.definition.get_Stms());
+        executionEngine.executeBody(this);
     }
 }
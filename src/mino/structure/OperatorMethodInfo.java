@@ -21,24 +21,16 @@ import java.util.*;
 
 import mino.exception.*;
 import mino.language_mino.*;
-import mino.walker.*;
 
 public class OperatorMethodInfo
         extends MethodInfo {
 
-    private final NMember_Operator definition;
-
-    private final Token operatorToken;
-
     OperatorMethodInfo(
             MethodTable methodTable,
-            NMember_Operator definition,
             List<NId> params,
             Token operatorToken) {
 
-        super(methodTable, params);
-        this.definition = definition;
-        this.operatorToken = operatorToken;
+        super(methodTable, operatorToken.getText(), params);
 
         if (getName().equals("+")) {
             if (getParamCount() != 1) {
@@ -59,16 +51,11 @@ public class OperatorMethodInfo
         }
     }
 
-    @Override
-    public String getName() {
-
-        return this.operatorToken.getText();
-    }
 
     @Override
     public void execute(
-            InterpreterEngine interpreterEngine) {
+            ExecutionEngine executionEngine) {
 
-        interpreterEngine.visit(this.definition.get_Stms());
+        executionEngine.executeBody(this);
     }
 }
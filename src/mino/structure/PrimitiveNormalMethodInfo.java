@@ -21,79 +21,98 @@ import java.util.*;
 
 import mino.exception.*;
 import mino.language_mino.*;
-import mino.walker.*;
 
 public class PrimitiveNormalMethodInfo
         extends MethodInfo {
 
     private static enum Operation {
         OBJECT_ABORT,
+        OBJECT_FLUSH_SYSTEM_OUT,
         INTEGER_TO_S,
         STRING_TO_SYSTEM_OUT;
     }
 
-    private final NMember_PrimitiveMethod definition;
-
     private final Operation operation;
 
     PrimitiveNormalMethodInfo(
             MethodTable methodTable,
-            NMember_PrimitiveMethod definition,
+            Token nameToken,
             List<NId> params) {
 
-        super(methodTable, params);
-        this.definition = definition;
+        super(methodTable, nameToken.getText(), params);
+        this.operation = getOperation(nameToken);
+    }
+
+    PrimitiveNormalMethodInfo(
+            MethodTable methodTable,
+            String name,
+            String[] paramNames) {
+
+        super(methodTable, name, paramNames);
+        this.operation = getOperation(null);
+    }
+
+    private Operation getOperation(
+            Token nameToken) {
 
-        String className = methodTable.getClassInfo().getName();
+        String className = getClassInfo().getName();
         if (className.equals("Object") && getName().equals("abort")) {
-            if (params.size() != 1) {
+            if (getParamCount() != 1) {
                 throw new InterpreterException("abort method has one parameter",
-                        definition.get_Id());
+                        nameToken);
             }
-            this.operation = Operation.OBJECT_ABORT;
+            return Operation.OBJECT_ABORT;
+        }
+        else if (className.equals("Object")
+                && getName().equals("flush_system_out")) {
+            if (getParamCount() != 0) {
+                throw new InterpreterException(
+                        "flush_system_out method has no parameter",
+                        nameToken);
+            }
+            return Operation.OBJECT_FLUSH_SYSTEM_OUT;
         }
         else if (className.equals("Integer") && getName().equals("to_s")) {
-            if (params.size() != 0) {
+            if (getParamCount() != 0) {
                 throw new InterpreterException("to_s method has no parameter",
-                        definition.get_Id());
+                        nameToken);
             }
-            this.operation = Operation.INTEGER_TO_S;
+            return Operation.INTEGER_TO_S;
         }
         else if (className.equals("String")
                 && getName().equals("to_system_out")) {
-            if (params.size() != 0) {
+            if (getParamCount() != 0) {
                 throw new InterpreterException(
                         "to_system_out method has no parameter",
-                        definition.get_Id());
+                        nameToken);
             }
-            this.operation = Operation.STRING_TO_SYSTEM_OUT;
+            return Operation.STRING_TO_SYSTEM_OUT;
         }
         else {
             throw new InterpreterException("method " + getName()
                     + " is not primitive in class " + className,
-                    definition.get_Id());
+                    nameToken);
         }
     }
 
-    @Override
-    public String getName() {
-
-        return this.definition.get_Id().getText();
-    }
-
     @Override
     public void execute(
-            InterpreterEngine interpreterEngine) {
+            ExecutionEngine executionEngine) {
 
+        Primitives primitives = executionEngine.getPrimitives();
+        Frame frame = executionEngine.getCurrentFrame();
         switch (this.operation) {
         case OBJECT_ABORT:
-            interpreterEngine.objectAbort(this);
+            primitives.objectAbort(frame);
+            break;
+        case OBJECT_FLUSH_SYSTEM_OUT:
+            primitives.objectFlushSystemOut(frame);
             break;
         case INTEGER_TO_S:
-            interpreterEngine.integerToS(this);
+            primitives.integerToS(frame);
             break;
         case STRING_TO_SYSTEM_OUT:
-            interpreterEngine.stringToSystemOut(this);
+            primitives.stringToSystemOut(frame);
             break;
         default:
             throw new RuntimeException("unhandled case");
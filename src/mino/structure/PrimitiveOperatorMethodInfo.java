@@ -21,7 +21,6 @@ import java.util.*;
 
 import mino.exception.*;
 import mino.language_mino.*;
-import mino.walker.*;
 
 public class PrimitiveOperatorMethodInfo
         extends MethodInfo {
@@ -31,21 +30,28 @@ public class PrimitiveOperatorMethodInfo
         STRING_PLUS;
     }
 
-    private final NMember_PrimitiveOperator definition;
-
-    private final Token operatorToken;
-
     private final Operation operation;
 
     PrimitiveOperatorMethodInfo(
             MethodTable methodTable,
-            NMember_PrimitiveOperator definition,
             List<NId> params,
             Token operatorToken) {
 
-        super(methodTable, params);
-        this.definition = definition;
-        this.operatorToken = operatorToken;
+        super(methodTable, operatorToken.getText(), params);
+        this.operation = getOperation(operatorToken);
+    }
+
+    PrimitiveOperatorMethodInfo(
+            MethodTable methodTable,
+            String name,
+            String[] paramNames) {
+
+        super(methodTable, name, paramNames);
+        this.operation = getOperation(null);
+    }
+
+    private Operation getOperation(
+            Token operatorToken) {
 
         if (getName().equals("+")) {
             if (getParamCount() != 1) {
@@ -53,12 +59,12 @@ public class PrimitiveOperatorMethodInfo
                         "method + must have a single parameter", operatorToken);
             }
 
-            String className = methodTable.getClassInfo().getName();
+            String className = getClassInfo().getName();
             if (className.equals("Integer")) {
-                this.operation = Operation.INTEGER_PLUS;
+                return Operation.INTEGER_PLUS;
             }
             else if (className.equals("String")) {
-                this.operation = Operation.STRING_PLUS;
+                return Operation.STRING_PLUS;
             }
             else {
                 throw new InterpreterException(
@@ -73,7 +79,7 @@ public class PrimitiveOperatorMethodInfo
                         operatorToken);
             }
 
-            String className = methodTable.getClassInfo().getName();
+            String className = getClassInfo().getName();
             throw new InterpreterException(
                     "method == is not primitive in class " + className,
                     operatorToken);
@@ -84,22 +90,18 @@ public class PrimitiveOperatorMethodInfo
         }
     }
 
-    @Override
-    public String getName() {
-
-        return this.operatorToken.getText();
-    }
-
     @Override
     public void execute(
-            InterpreterEngine interpreterEngine) {
+            ExecutionEngine executionEngine) {
 
+        Primitives primitives = executionEngine.getPrimitives();
+        Frame frame = executionEngine.getCurrentFrame();
         switch (this.operation) {
         case INTEGER_PLUS:
-            interpreterEngine.integerPlus(this);
+            primitives.integerPlus(frame);
             break;
         case STRING_PLUS:
-            interpreterEngine.stringPlus(this);
+            primitives.stringPlus(frame);
             break;
         default:
             throw new RuntimeException("unhandled case");
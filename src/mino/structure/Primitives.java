@@ -0,0 +1,151 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.structure;
+
+import mino.exception.*;
+
+/**
+ * Implementation of the primitive methods, shared by the execution engines.
+ * Each primitive reads its receiver and arguments from the given frame and
+ * stores its result as the return value of the frame.
+ */
+public class Primitives {
+
+    private final IntegerClassInfo integerClassInfo;
+
+    private final StringClassInfo stringClassInfo;
+
+    private final StandardOutput standardOutput;
+
+    public Primitives(
+            IntegerClassInfo integerClassInfo,
+            StringClassInfo stringClassInfo,
+            StandardOutput standardOutput) {
+
+        this.integerClassInfo = integerClassInfo;
+        this.stringClassInfo = stringClassInfo;
+        this.standardOutput = standardOutput;
+    }
+
+    private static InterpreterException newCallException(
+            String message,
+            Frame frame) {
+
+        // errors of primitive methods are located at their call
+        Frame caller = frame.getPreviousFrame();
+        return new InterpreterException(message, caller.getCurrentLine(),
+                caller.getCurrentPos());
+    }
+
+    public void integerPlus(
+            Frame frame) {
+
+        IntegerInstance self = (IntegerInstance) frame.getReceiver();
+
+        Instance arg = frame.getParameterValue(0);
+        if (!arg.isa(this.integerClassInfo)) {
+            throw newCallException("right argument is not Integer", frame);
+        }
+
+        frame.setReturnValue(add(self, (IntegerInstance) arg));
+    }
+
+    public Instance add(
+            IntegerInstance left,
+            IntegerInstance right) {
+
+        if (left.isLong() && right.isLong()) {
+            long leftValue = left.getLongValue();
+            long rightValue = right.getLongValue();
+            long sum = leftValue + rightValue;
+
+            // the sum fits in a long unless both operands have the same sign
+            // and the sum has the opposite sign
+            if (((leftValue ^ sum) & (rightValue ^ sum)) >= 0) {
+                return this.integerClassInfo.newInteger(sum);
+            }
+        }
+
+        return this.integerClassInfo
+                .newInteger(left.getValue().add(right.getValue()));
+    }
+
+    public void stringPlus(
+            Frame frame) {
+
+        StringInstance self = (StringInstance) frame.getReceiver();
+
+        Instance arg = frame.getParameterValue(0);
+        if (!arg.isa(this.stringClassInfo)) {
+            throw newCallException("right argument is not String", frame);
+        }
+
+        frame.setReturnValue(concat(self, (StringInstance) arg));
+    }
+
+    public Instance concat(
+            StringInstance left,
+            StringInstance right) {
+
+        return this.stringClassInfo.concat(left, right);
+    }
+
+    public void objectAbort(
+            Frame frame) {
+
+        Instance arg = frame.getParameterValue(0);
+        if (arg == null) {
+            throw newCallException("abort argument is null", frame);
+        }
+        if (!arg.isa(this.stringClassInfo)) {
+            throw newCallException("abort argument is not String", frame);
+        }
+
+        String message = "ABORT: " + ((StringInstance) arg).getValue();
+        throw newCallException(message, frame);
+    }
+
+    public void integerToS(
+            Frame frame) {
+
+        frame.setReturnValue(toS((IntegerInstance) frame.getReceiver()));
+    }
+
+    public Instance toS(
+            IntegerInstance integer) {
+
+        return this.stringClassInfo.newString(integer.getDecimalValue());
+    }
+
+    public void stringToSystemOut(
+            Frame frame) {
+
+        toSystemOut((StringInstance) frame.getReceiver());
+    }
+
+    public void toSystemOut(
+            StringInstance string) {
+
+        this.standardOutput.println(string.getValue());
+    }
+
+    public void objectFlushSystemOut(
+            Frame frame) {
+
+        this.standardOutput.flush();
+    }
+}
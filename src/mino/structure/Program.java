@@ -0,0 +1,249 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.structure;
+
+import java.lang.management.*;
+import java.util.*;
+
+import mino.exception.*;
+import mino.language_mino.*;
+import mino.walker.*;
+
+/**
+ * Parsed program ready for execution: its classes are collected, the
+ * compiler-known classes are checked, the method dispatch tables are built,
+ * the method bodies and the main program are resolved, and the methods of
+ * well-known shape are given intrinsics.
+ */
+public class Program {
+
+    private final ClassTable classTable = new ClassTable();
+
+    private final Resolver resolver = new Resolver(this.classTable);
+
+    private final Map<MethodInfo, NStms> methodInfoToBodyMap
+            = new IdentityHashMap<>();
+
+    private final VariableTable mainVariableTable = new VariableTable();
+
+    private final NStms mainStms;
+
+    private final ClassInfo objectClassInfo;
+
+    private final BooleanClassInfo booleanClassInfo;
+
+    private final IntegerClassInfo integerClassInfo;
+
+    private final StringClassInfo stringClassInfo;
+
+    private final Primitives primitives;
+
+    public Program(
+            NFile file,
+            StandardOutput standardOutput) {
+
+        // collect class, field and method definitions
+        new ClassCollector(this.classTable, this.methodInfoToBodyMap)
+                .visit(file);
+
+        // handle compiler-known classes
+        this.objectClassInfo = this.classTable.getObjectClassInfoOrNull();
+        if (this.objectClassInfo == null) {
+            throw new InterpreterException("class Object is not defined", null);
+        }
+
+        this.booleanClassInfo = (BooleanClassInfo) this.classTable
+                .getBooleanClassInfoOrNull();
+        if (this.booleanClassInfo == null) {
+            throw new InterpreterException("class Boolean was not defined",
+                    null);
+        }
+
+        this.integerClassInfo = (IntegerClassInfo) this.classTable
+                .getIntegerClassInfoOrNull();
+        if (this.integerClassInfo == null) {
+            throw new InterpreterException("class Integer was not defined",
+                    null);
+        }
+
+        this.stringClassInfo
+                = (StringClassInfo) this.classTable.getStringClassInfoOrNull();
+        if (this.stringClassInfo == null) {
+            throw new InterpreterException("class String was not defined",
+                    null);
+        }
+
+        this.primitives = new Primitives(this.integerClassInfo,
+                this.stringClassInfo, standardOutput);
+
+        // build method dispatch tables
+        this.classTable.buildVirtualTables();
+
+        // resolve variables, fields and call sites of method bodies and of
+        // main program
+        for (ClassInfo classInfo : this.classTable.getClassInfos()) {
+            for (MethodInfo methodInfo : classInfo.getMethodTable()
+                    .getMethodInfos()) {
+                NStms body = this.methodInfoToBodyMap.get(methodInfo);
+                if (body != null) {
+                    this.resolver.resolve(body, classInfo,
+                            methodInfo.getVariableTable());
+                }
+            }
+        }
+        this.mainStms = file.get_Stms();
+        this.resolver.resolve(this.mainStms, this.objectClassInfo,
+                this.mainVariableTable);
+
+        // give the methods whose body has a well-known shape a native
+        // implementation
+        for (ClassInfo classInfo : this.classTable.getClassInfos()) {
+            for (MethodInfo methodInfo : classInfo.getMethodTable()
+                    .getMethodInfos()) {
+                NStms body = this.methodInfoToBodyMap.get(methodInfo);
+                if (body != null) {
+                    methodInfo.setIntrinsic(
+                            Intrinsic.recognizeOrNull(this, methodInfo, body));
+                }
+            }
+        }
+    }
+
+    public ClassTable getClassTable() {
+
+        return this.classTable;
+    }
+
+    public Resolver getResolver() {
+
+        return this.resolver;
+    }
+
+    /** Returns the body of a method, or null for a primitive method. */
+    public NStms getBodyOrNull(
+            MethodInfo methodInfo) {
+
+        return this.methodInfoToBodyMap.get(methodInfo);
+    }
+
+    public VariableTable getMainVariableTable() {
+
+        return this.mainVariableTable;
+    }
+
+    public NStms getMainStms() {
+
+        return this.mainStms;
+    }
+
+    public ClassInfo getObjectClassInfo() {
+
+        return this.objectClassInfo;
+    }
+
+    public BooleanClassInfo getBooleanClassInfo() {
+
+        return this.booleanClassInfo;
+    }
+
+    public IntegerClassInfo getIntegerClassInfo() {
+
+        return this.integerClassInfo;
+    }
+
+    public StringClassInfo getStringClassInfo() {
+
+        return this.stringClassInfo;
+    }
+
+    public Primitives getPrimitives() {
+
+        return this.primitives;
+    }
+
+    public static void printStatistics(
+            Program program) {
+
+        if (program != null) {
+            printStatistics(program.integerClassInfo, program.stringClassInfo);
+            printAllocations(program.classTable);
+            System.err.println(
+                    " Calls: " + program.resolver.getStaticCallSiteReport());
+        }
+        else {
+            printStatistics(null, null);
+        }
+    }
+
+    /**
+     * Prints the statistics of a program whose compiler-known classes may
+     * not be known, if loading failed.
+     */
+    public static void printStatistics(
+            IntegerClassInfo integerClassInfo,
+            StringClassInfo stringClassInfo) {
+
+        System.err.println("STATISTICS:");
+        if (integerClassInfo != null) {
+            System.err.println(" Integer: " + integerClassInfo.getCachedCount()
+                    + " cached, " + getInternTableStatistics(
+                            integerClassInfo.getInternTable()));
+            System.err.println(" String: " + getInternTableStatistics(
+                    stringClassInfo.getInternTable()));
+        }
+
+        // not all virtual machines can measure allocations
+        java.lang.management.ThreadMXBean threadMXBean
+                = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            long allocatedBytes
+                    = ((com.sun.management.ThreadMXBean) threadMXBean)
+                            .getThreadAllocatedBytes(
+                                    Thread.currentThread().getId());
+            System.err.println(
+                    " Thread: " + allocatedBytes + " bytes allocated");
+        }
+    }
+
+    /** Prints the number of instances of each class that were created. */
+    public static void printAllocations(
+            ClassTable classTable) {
+
+        StringBuilder counts = new StringBuilder();
+        for (ClassInfo classInfo : classTable.getClassInfos()) {
+            if (classInfo.getAllocationCount() > 0) {
+                if (counts.length() > 0) {
+                    counts.append(", ");
+                }
+                counts.append(classInfo.getAllocationCount() + " "
+                        + classInfo.getName());
+            }
+        }
+
+        if (counts.length() > 0) {
+            System.err.println(" Allocations: " + counts);
+        }
+    }
+
+    private static String getInternTableStatistics(
+            InternTable internTable) {
+
+        return internTable.getSize() + " interned, "
+                + internTable.getReclaimedCount() + " reclaimed, capacity "
+                + internTable.getCapacity();
+    }
+}
@@ -0,0 +1,106 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.structure;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+
+/**
+ * Buffered standard output of mino programs. Lines are encoded with a single
+ * reused encoder into a byte buffer, which is written to the file channel of
+ * the standard output descriptor when it is full or when it is flushed. Unlike
+ * System.out, nothing is synchronized or flushed after each line.
+ */
+public class StandardOutput {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel
+            = new FileOutputStream(FileDescriptor.out).getChannel();
+
+    private final CharsetEncoder encoder = Charset.defaultCharset()
+            .newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    private final CharBuffer lineSeparator
+            = CharBuffer.wrap(System.lineSeparator());
+
+    private final ByteBuffer buffer;
+
+    private IOException error;
+
+    public StandardOutput(
+            int bufferSize) {
+
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("invalid buffer size");
+        }
+
+        this.buffer = ByteBuffer.allocate(bufferSize);
+    }
+
+    public void println(
+            String value) {
+
+        encode(CharBuffer.wrap(value));
+        this.lineSeparator.rewind();
+        encode(this.lineSeparator);
+    }
+
+    private void encode(
+            CharBuffer in) {
+
+        // a full buffer is written out and encoding resumes where it stopped
+        this.encoder.reset();
+        while (this.encoder.encode(in, this.buffer, true)
+                == CoderResult.OVERFLOW) {
+            write();
+        }
+        while (this.encoder.flush(this.buffer) == CoderResult.OVERFLOW) {
+            write();
+        }
+    }
+
+    public void flush() {
+
+        if (this.buffer.position() > 0) {
+            write();
+        }
+    }
+
+    private void write() {
+
+        this.buffer.flip();
+        try {
+            while (this.buffer.hasRemaining() && this.error == null) {
+                this.channel.write(this.buffer);
+            }
+        }
+        catch (IOException e) {
+            // like System.out, keep running; the error is reported at exit
+            this.error = e;
+        }
+        this.buffer.clear();
+    }
+
+    public IOException getErrorOrNull() {
+
+        return this.error;
+    }
+}
@@ -17,21 +17,19 @@
 
 package mino.structure;
 
-import java.util.*;
-
 import mino.language_mino.*;
 
 public class StringClassInfo
         extends ClassInfo {
 
-    private final Map<String, Instance> valueMap
-            = new LinkedHashMap<>();
+    private final InternTable internTable = new InternTable();
 
     StringClassInfo(
             ClassTable classTable,
-            NClassdef definition) {
+            String name,
+            ClassInfo superClass) {
 
-        super(classTable, definition);
+        super(classTable, name, superClass);
     }
 
     @Override
@@ -43,13 +41,66 @@ public class StringClassInfo
     public Instance newString(
             String value) {
 
-        Instance instance = this.valueMap.get(value);
+        int hash = InternTable.hash(value.hashCode());
+        InternTable.Entry entry = this.internTable.getFirstEntry(hash);
+        while (entry != null) {
+            StringInstance instance = (StringInstance) entry.get();
+            if (instance != null && instance.getValue().equals(value)) {
+                return instance;
+            }
+            entry = entry.getNext();
+        }
+
+        StringInstance instance = new StringInstance(this, value);
+        instance.setCanonicalInstance(instance);
+        this.internTable.add(hash, instance);
+        return instance;
+    }
+
+    public Instance concat(
+            StringInstance left,
+            StringInstance right) {
+
+        if (left.getLength() == 0) {
+            return right;
+        }
+
+        if (right.getLength() == 0) {
+            return left;
+        }
 
-        if (instance == null) {
-            instance = new StringInstance(this, value);
-            this.valueMap.put(value, instance);
+        StringInstance instance = new StringInstance(this, left, right);
+        if (getFieldTable().getFieldCount() > 0) {
+            // fields belong to the interned instance, so the result must be
+            // that instance
+            return instance.getCanonicalInstance();
         }
 
+        // the result is only interned when its identity is observed by is
         return instance;
     }
+
+    StringInstance intern(
+            StringInstance instance) {
+
+        String value = instance.getValue();
+        int hash = InternTable.hash(value.hashCode());
+        InternTable.Entry entry = this.internTable.getFirstEntry(hash);
+        while (entry != null) {
+            StringInstance internedInstance = (StringInstance) entry.get();
+            if (internedInstance != null
+                    && internedInstance.getValue().equals(value)) {
+                return internedInstance;
+            }
+            entry = entry.getNext();
+        }
+
+        this.internTable.add(hash, instance);
+        return instance;
+    }
+
+    public InternTable getInternTable() {
+
+        return this.internTable;
+    }
 }
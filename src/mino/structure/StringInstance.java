@@ -17,21 +17,104 @@
 
 package mino.structure;
 
+import java.util.*;
+
 public class StringInstance
         extends Instance {
 
-    private final String value;
+    private final int length;
+
+    // null until a concatenation is flattened
+    private String value;
+
+    private StringInstance left;
+
+    private StringInstance right;
+
+    // the interned instance with the same value, once known
+    private StringInstance canonicalInstance;
 
     public StringInstance(
             ClassInfo classInfo,
             String value) {
 
         super(classInfo);
+        this.length = value.length();
         this.value = value;
     }
 
+    StringInstance(
+            ClassInfo classInfo,
+            StringInstance left,
+            StringInstance right) {
+
+        super(classInfo);
+        this.length = left.length + right.length;
+        this.left = left;
+        this.right = right;
+    }
+
+    @Override
+    public void setField(
+            FieldInfo fieldInfo,
+            Instance value) {
+
+        // interned instances are otherwise reclaimed when no longer used
+        ((StringClassInfo) getClassInfo()).getInternTable().retain(this);
+        super.setField(fieldInfo, value);
+    }
+
+    public int getLength() {
+
+        return this.length;
+    }
+
     public String getValue() {
 
+        if (this.value == null) {
+            flatten();
+        }
+
         return this.value;
     }
+
+    @Override
+    Instance getCanonicalInstance() {
+
+        if (this.canonicalInstance == null) {
+            this.canonicalInstance
+                    = ((StringClassInfo) getClassInfo()).intern(this);
+        }
+
+        return this.canonicalInstance;
+    }
+
+    void setCanonicalInstance(
+            StringInstance canonicalInstance) {
+
+        this.canonicalInstance = canonicalInstance;
+    }
+
+    private void flatten() {
+
+        // concatenations built in loops are deeply nested, so the tree is
+        // walked with an explicit stack
+        StringBuilder builder = new StringBuilder(this.length);
+        Deque<StringInstance> stack = new ArrayDeque<>();
+        stack.push(this);
+        while (!stack.isEmpty()) {
+            StringInstance instance = stack.pop();
+            if (instance.value != null) {
+                builder.append(instance.value);
+            }
+            else {
+                stack.push(instance.right);
+                stack.push(instance.left);
+            }
+        }
+
+        this.value = builder.toString();
+        this.left = null;
+        this.right = null;
+    }
 }
@@ -0,0 +1,55 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package mino.structure;
+
+import java.util.*;
+
+public class VariableTable {
+
+    private final Map<String, Integer> nameToSlotMap = new LinkedHashMap<>();
+
+    public void addParam(
+            String name) {
+
+        if (this.nameToSlotMap.containsKey(name)) {
+            // if this point is reached, there's a bug
+            throw new RuntimeException("duplicate parameter " + name);
+        }
+
+        this.nameToSlotMap.put(name, this.nameToSlotMap.size());
+    }
+
+    public int resolve(
+            String name) {
+
+        // every variable name gets a slot, even if it is never assigned; an
+        // unassigned variable is reported when it is read
+        Integer slot = this.nameToSlotMap.get(name);
+        if (slot == null) {
+            slot = this.nameToSlotMap.size();
+            this.nameToSlotMap.put(name, slot);
+        }
+
+        return slot;
+    }
+
+    public int getSlotCount() {
+
+        return this.nameToSlotMap.size();
+    }
+}
@@ -0,0 +1,126 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.tree;
+
+import mino.exception.*;
+import mino.language_mino.*;
+import mino.structure.*;
+
+/**
+ * Expression that invokes the + method. The first execution observes the
+ * classes of the operands: when both are Integer, or both String, and the
+ * method is the primitive one, the expression specializes into a guarded
+ * direct addition or concatenation, without a call or a frame. A later
+ * execution whose operands fail the guard makes the expression generic for
+ * good.
+ */
+class AddExpression
+        extends InvocationExpression {
+
+    private static enum Specialization {
+        UNINITIALIZED,
+        INTEGER,
+        STRING,
+        GENERIC;
+    }
+
+    private final Expression left;
+
+    private final Expression right;
+
+    private final Primitives primitives;
+
+    private Specialization specialization = Specialization.UNINITIALIZED;
+
+    AddExpression(
+            TreeEngine treeEngine,
+            InlineCache inlineCache,
+            Token location,
+            Expression left,
+            Expression right,
+            Primitives primitives) {
+
+        super(treeEngine, inlineCache, location);
+        this.left = left;
+        this.right = right;
+        this.primitives = primitives;
+    }
+
+    @Override
+    Instance execute(
+            Frame frame) {
+
+        Instance left = this.left.execute(frame);
+        Instance right = this.right.execute(frame);
+
+        // Integer and String cannot be specialized, so the guards need not
+        // check the class of the instances
+        if (this.specialization == Specialization.INTEGER) {
+            if (left instanceof IntegerInstance
+                    && right instanceof IntegerInstance) {
+                return this.primitives.add((IntegerInstance) left,
+                        (IntegerInstance) right);
+            }
+        }
+        else if (this.specialization == Specialization.STRING) {
+            if (left instanceof StringInstance
+                    && right instanceof StringInstance) {
+                return this.primitives.concat((StringInstance) left,
+                        (StringInstance) right);
+            }
+        }
+
+        if (left == null) {
+            throw new InterpreterException("left argument of + method is null",
+                    this.location);
+        }
+        else if (right == null) {
+            throw new InterpreterException("right argument of + method is null",
+                    this.location);
+        }
+
+        if (this.specialization == Specialization.UNINITIALIZED) {
+            this.specialization = specialize(left, right);
+        }
+        else {
+            // the guard of the specialization failed
+            this.specialization = Specialization.GENERIC;
+        }
+
+        return invoke(frame, left, right);
+    }
+
+    private Specialization specialize(
+            Instance left,
+            Instance right) {
+
+        // a primitive + can only be the one of the class of the receiver
+        MethodInfo methodInfo = lookup(left.getClassInfo()).getMethodInfo();
+        if (methodInfo instanceof PrimitiveOperatorMethodInfo) {
+            if (left instanceof IntegerInstance
+                    && right instanceof IntegerInstance) {
+                return Specialization.INTEGER;
+            }
+            else if (left instanceof StringInstance
+                    && right instanceof StringInstance) {
+                return Specialization.STRING;
+            }
+        }
+
+        return Specialization.GENERIC;
+    }
+}
@@ -0,0 +1,55 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.tree;
+
+import mino.exception.*;
+import mino.language_mino.*;
+import mino.structure.*;
+
+class CallExpression
+        extends InvocationExpression {
+
+    private final Expression receiver;
+
+    private final Expression[] arguments;
+
+    CallExpression(
+            TreeEngine treeEngine,
+            InlineCache inlineCache,
+            Token location,
+            Expression receiver,
+            Expression[] arguments) {
+
+        super(treeEngine, inlineCache, location);
+        this.receiver = receiver;
+        this.arguments = arguments;
+    }
+
+    @Override
+    Instance execute(
+            Frame frame) {
+
+        Instance receiver = this.receiver.execute(frame);
+        if (receiver == null) {
+            throw new InterpreterException("receiver of "
+                    + this.location.getText() + " method is null",
+                    this.location);
+        }
+
+        return invoke(frame, receiver, this.arguments);
+    }
+}
@@ -0,0 +1,80 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.tree;
+
+import mino.structure.*;
+
+/**
+ * Method as executed by the tree engine. The body of a method is compiled
+ * when the method is first called; primitive methods have no body.
+ */
+class CompiledMethod {
+
+    private final MethodInfo methodInfo;
+
+    private Statement body;
+
+    // slots of the frames of the method, once compiled
+    private int slotCount = -1;
+
+    CompiledMethod(
+            MethodInfo methodInfo) {
+
+        this.methodInfo = methodInfo;
+    }
+
+    MethodInfo getMethodInfo() {
+
+        return this.methodInfo;
+    }
+
+    Statement getBody() {
+
+        return this.body;
+    }
+
+    boolean isCompiled() {
+
+        return this.slotCount >= 0;
+    }
+
+    int getSlotCount() {
+
+        return this.slotCount;
+    }
+
+    void setBody(
+            Statement body,
+            int slotCount) {
+
+        this.body = body;
+        this.slotCount = slotCount;
+    }
+
+    void execute(
+            Frame frame,
+            TreeEngine treeEngine) {
+
+        if (this.body != null) {
+            this.body.execute(frame);
+        }
+        else {
+            // primitive methods run here
+            this.methodInfo.execute(treeEngine);
+        }
+    }
+}
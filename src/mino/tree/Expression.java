@@ -0,0 +1,52 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.tree;
+
+import mino.exception.*;
+import mino.language_mino.*;
+import mino.structure.*;
+
+/**
+ * Executable expression of a compiled method body or main program.
+ */
+abstract class Expression {
+
+    abstract Instance execute(
+            Frame frame);
+
+    boolean executeCondition(
+            Frame frame,
+            BooleanClassInfo booleanClassInfo,
+            Token location) {
+
+        // Boolean cannot be specialized and has no other instances, so
+        // comparing identities is the whole check for boolean values
+        Instance value = execute(frame);
+        if (value == booleanClassInfo.getTrue()) {
+            return true;
+        }
+        else if (value == booleanClassInfo.getFalse()) {
+            return false;
+        }
+
+        if (value == null) {
+            throw new InterpreterException("expression is null", location);
+        }
+
+        throw new InterpreterException("expression is not boolean", location);
+    }
+}
@@ -0,0 +1,64 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.tree;
+
+import mino.language_mino.*;
+import mino.structure.*;
+
+class IfStatement
+        extends Statement {
+
+    private final Expression condition;
+
+    private final BooleanClassInfo booleanClassInfo;
+
+    private final Token location;
+
+    private final Statement thenStatement;
+
+    // null when there is no else part
+    private final Statement elseStatement;
+
+    IfStatement(
+            Expression condition,
+            BooleanClassInfo booleanClassInfo,
+            Token location,
+            Statement thenStatement,
+            Statement elseStatement) {
+
+        this.condition = condition;
+        this.booleanClassInfo = booleanClassInfo;
+        this.location = location;
+        this.thenStatement = thenStatement;
+        this.elseStatement = elseStatement;
+    }
+
+    @Override
+    boolean execute(
+            Frame frame) {
+
+        if (this.condition.executeCondition(frame, this.booleanClassInfo,
+                this.location)) {
+            return this.thenStatement.execute(frame);
+        }
+        else if (this.elseStatement != null) {
+            return this.elseStatement.execute(frame);
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,95 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.tree;
+
+import mino.structure.*;
+
+/**
+ * Body of a method inlined at a call site for one receiver class. It runs
+ * without a frame, since it cannot fail.
+ */
+final class InlinedMethod {
+
+    private final InlinedNode[] statements;
+
+    // returned value, or null if the body returns null
+    private final InlinedNode result;
+
+    InlinedMethod(
+            InlinedNode[] statements,
+            InlinedNode result) {
+
+        this.statements = statements;
+        this.result = result;
+    }
+
+    Instance execute(
+            Instance self,
+            Instance[] arguments) {
+
+        for (InlinedNode statement : this.statements) {
+            statement.evaluate(self, arguments);
+        }
+
+        if (this.result == null) {
+            return null;
+        }
+
+        return this.result.evaluate(self, arguments);
+    }
+
+    /**
+     * Executes the body for a receiver whose fields are kept in the slots of
+     * a frame, from a given slot on. The body must not let self escape.
+     */
+    Instance executeInSlots(
+            Frame frame,
+            int fieldSlot,
+            Instance[] arguments) {
+
+        for (InlinedNode statement : this.statements) {
+            statement.evaluateInSlots(frame, fieldSlot, arguments);
+        }
+
+        if (this.result == null) {
+            return null;
+        }
+
+        return this.result.evaluateInSlots(frame, fieldSlot, arguments);
+    }
+
+    /** Returns whether the body always returns self. */
+    boolean returnsSelf() {
+
+        return this.result != null && this.result.yieldsSelf();
+    }
+
+    /**
+     * Returns whether the body stores self in a field or passes it to another
+     * method, either directly or through the methods it calls.
+     */
+    boolean letsSelfEscape() {
+
+        for (InlinedNode statement : this.statements) {
+            if (statement.letsSelfEscape()) {
+                return true;
+            }
+        }
+
+        return this.result != null && this.result.letsSelfEscape();
+    }
+}
@@ -0,0 +1,204 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.tree;
+
+import mino.structure.*;
+
+/**
+ * Statement or expression of an inlined method body, evaluated for the
+ * receiver and the arguments of the call. No node can fail.
+ */
+final class InlinedNode {
+
+    private static enum Kind {
+        CONSTANT,
+        SELF,
+        PARAM,
+        FIELD,
+        FIELD_ASSIGN,
+        CALL;
+    }
+
+    private final Kind kind;
+
+    private final Instance constant;
+
+    private final int paramIndex;
+
+    private final FieldInfo fieldInfo;
+
+    // value of a field assignment, or arguments of a call
+    private final InlinedNode[] operands;
+
+    private final InlinedMethod method;
+
+    // argument values of a call; a node is never evaluated again before
+    // the call completes, as inlined methods are not recursive
+    private final Instance[] values;
+
+    private InlinedNode(
+            Kind kind,
+            Instance constant,
+            int paramIndex,
+            FieldInfo fieldInfo,
+            InlinedNode[] operands,
+            InlinedMethod method) {
+
+        this.kind = kind;
+        this.constant = constant;
+        this.paramIndex = paramIndex;
+        this.fieldInfo = fieldInfo;
+        this.operands = operands;
+        this.method = method;
+        if (kind == Kind.CALL) {
+            this.values = new Instance[operands.length];
+        }
+        else {
+            this.values = null;
+        }
+    }
+
+    static InlinedNode newConstant(
+            Instance constant) {
+
+        return new InlinedNode(Kind.CONSTANT, constant, -1, null, null, null);
+    }
+
+    static InlinedNode newSelf() {
+
+        return new InlinedNode(Kind.SELF, null, -1, null, null, null);
+    }
+
+    static InlinedNode newParam(
+            int paramIndex) {
+
+        return new InlinedNode(Kind.PARAM, null, paramIndex, null, null, null);
+    }
+
+    static InlinedNode newField(
+            FieldInfo fieldInfo) {
+
+        return new InlinedNode(Kind.FIELD, null, -1, fieldInfo, null, null);
+    }
+
+    static InlinedNode newFieldAssign(
+            FieldInfo fieldInfo,
+            InlinedNode value) {
+
+        return new InlinedNode(Kind.FIELD_ASSIGN, null, -1, fieldInfo,
+                new InlinedNode[] { value }, null);
+    }
+
+    static InlinedNode newCall(
+            InlinedMethod method,
+            InlinedNode[] arguments) {
+
+        return new InlinedNode(Kind.CALL, null, -1, null, arguments, method);
+    }
+
+    Instance evaluate(
+            Instance self,
+            Instance[] arguments) {
+
+        switch (this.kind) {
+        case CONSTANT:
+            return this.constant;
+        case SELF:
+            return self;
+        case PARAM:
+            return arguments[this.paramIndex];
+        case FIELD:
+            return self.getField(this.fieldInfo);
+        case FIELD_ASSIGN:
+            self.setField(this.fieldInfo,
+                    this.operands[0].evaluate(self, arguments));
+            return null;
+        case CALL: {
+            Instance[] values = this.values;
+            for (int i = 0; i < values.length; i++) {
+                values[i] = this.operands[i].evaluate(self, arguments);
+            }
+            return this.method.execute(self, values);
+        }
+        default:
+            // if this point is reached, there's a bug
+            throw new RuntimeException("unhandled case");
+        }
+    }
+
+    // evaluates the node for a receiver whose fields are kept in the slots
+    // of a frame; the value of self is then never used, as it cannot escape
+    Instance evaluateInSlots(
+            Frame frame,
+            int fieldSlot,
+            Instance[] arguments) {
+
+        switch (this.kind) {
+        case CONSTANT:
+            return this.constant;
+        case SELF:
+            return null;
+        case PARAM:
+            return arguments[this.paramIndex];
+        case FIELD:
+            return frame.getValue(fieldSlot + this.fieldInfo.getOffset());
+        case FIELD_ASSIGN:
+            frame.setVar(fieldSlot + this.fieldInfo.getOffset(),
+                    this.operands[0].evaluateInSlots(frame, fieldSlot,
+                            arguments));
+            return null;
+        case CALL: {
+            Instance[] values = this.values;
+            for (int i = 0; i < values.length; i++) {
+                values[i] = this.operands[i].evaluateInSlots(frame, fieldSlot,
+                        arguments);
+            }
+            return this.method.executeInSlots(frame, fieldSlot, values);
+        }
+        default:
+            // if this point is reached, there's a bug
+            throw new RuntimeException("unhandled case");
+        }
+    }
+
+    // returns whether the value of the node is self
+    boolean yieldsSelf() {
+
+        if (this.kind == Kind.SELF) {
+            return true;
+        }
+
+        return this.kind == Kind.CALL && this.method.returnsSelf();
+    }
+
+    // returns whether the node stores self in a field or passes it to a
+    // method
+    boolean letsSelfEscape() {
+
+        if (this.operands == null) {
+            return false;
+        }
+
+        for (InlinedNode operand : this.operands) {
+            if (operand.yieldsSelf() || operand.letsSelfEscape()) {
+                return true;
+            }
+        }
+
+        return this.kind == Kind.CALL && this.method.letsSelfEscape();
+    }
+}
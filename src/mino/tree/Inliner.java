@@ -0,0 +1,360 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.tree;
+
+import java.util.*;
+
+import mino.language_mino.*;
+import mino.structure.*;
+import mino.walker.*;
+
+/**
+ * Decides whether the method invoked at a call site for a receiver class is
+ * inlined, and builds its inlined body. A body is inlined when it is small,
+ * is not recursive, and only assigns fields of self, calls methods on self
+ * that are inlined in turn, and returns a value read from a literal, self,
+ * a parameter or a field. Such a body cannot fail, so it needs no frame and
+ * never appears in a stack trace. Every decision is recorded for the
+ * statistics.
+ */
+class Inliner {
+
+    // statements and expressions of an inlined body, nested calls included
+    private static final int MAX_INLINED_SIZE = 16;
+
+    private static final int MAX_INLINING_DEPTH = 3;
+
+    private final Program program;
+
+    private final Resolver resolver;
+
+    private final List<String> decisions = new ArrayList<>();
+
+    // methods being inlined, outermost first
+    private final List<MethodInfo> methodInfos = new ArrayList<>();
+
+    private ClassInfo receiverClassInfo;
+
+    private int size;
+
+    // reason why the method being inlined is not
+    private String failure;
+
+    Inliner(
+            Program program) {
+
+        this.program = program;
+        this.resolver = program.getResolver();
+    }
+
+    /**
+     * Returns the inlined body of a method invoked at a call site on
+     * instances of a class, or null if the method is not inlined.
+     */
+    InlinedMethod inlineOrNull(
+            Token location,
+            MethodInfo methodInfo,
+            ClassInfo receiverClassInfo) {
+
+        InlinedMethod inlinedMethod
+                = inlineForClassOrNull(methodInfo, receiverClassInfo);
+
+        String method = methodInfo.getClassInfo().getName() + "."
+                + methodInfo.getName() + "()";
+        if (inlinedMethod != null) {
+            record(location, method + " inlined for class "
+                    + receiverClassInfo.getName());
+        }
+        else {
+            record(location, method + " not inlined, " + this.failure);
+        }
+
+        return inlinedMethod;
+    }
+
+    /**
+     * Returns the inlined body of a method invoked on instances of a class,
+     * or null if it cannot be inlined, without recording the decision.
+     */
+    InlinedMethod inlineForClassOrNull(
+            MethodInfo methodInfo,
+            ClassInfo receiverClassInfo) {
+
+        this.receiverClassInfo = receiverClassInfo;
+        this.size = 0;
+        this.failure = null;
+        InlinedMethod inlinedMethod = inlineMethodOrNull(methodInfo);
+        this.receiverClassInfo = null;
+        return inlinedMethod;
+    }
+
+    /** Records that a call site stopped inlining, as it is polymorphic. */
+    void recordPolymorphic(
+            Token location,
+            ClassInfo receiverClassInfo) {
+
+        record(location, "no longer inlined, receiver of class "
+                + receiverClassInfo.getName());
+    }
+
+    List<String> getDecisions() {
+
+        return Collections.unmodifiableList(this.decisions);
+    }
+
+    private void record(
+            Token location,
+            String decision) {
+
+        this.decisions.add("line " + location.getLine() + " position "
+                + location.getPos() + ": " + decision);
+    }
+
+    private InlinedMethod inlineMethodOrNull(
+            MethodInfo methodInfo) {
+
+        NStms body = this.program.getBodyOrNull(methodInfo);
+        if (body == null) {
+            this.failure = "method is primitive";
+            return null;
+        }
+        if (this.methodInfos.contains(methodInfo)) {
+            this.failure = "method is recursive";
+            return null;
+        }
+        if (this.methodInfos.size() == MAX_INLINING_DEPTH) {
+            this.failure = "calls are nested too deeply";
+            return null;
+        }
+
+        this.methodInfos.add(methodInfo);
+        InlinedMethod inlinedMethod = inlineBodyOrNull(methodInfo, body);
+        this.methodInfos.remove(this.methodInfos.size() - 1);
+        return inlinedMethod;
+    }
+
+    private InlinedMethod inlineBodyOrNull(
+            MethodInfo methodInfo,
+            NStms body) {
+
+        List<NStm> stms = new ArrayList<>();
+        while (body instanceof NStms_More) {
+            stms.add(0, ((NStms_More) body).get_Stm());
+            body = ((NStms_More) body).get_Stms();
+        }
+
+        List<InlinedNode> statements = new ArrayList<>();
+        InlinedNode result = null;
+        for (int i = 0; i < stms.size(); i++) {
+            NStm stm = stms.get(i);
+            if (!grow()) {
+                return null;
+            }
+
+            if (stm instanceof NStm_FieldAssign) {
+                NStm_FieldAssign fieldAssign = (NStm_FieldAssign) stm;
+                FieldInfo fieldInfo
+                        = getFieldInfoOrNull(fieldAssign.get_FieldName());
+                InlinedNode value
+                        = inlineExpOrNull(methodInfo, fieldAssign.get_Exp());
+                if (fieldInfo == null || value == null) {
+                    return null;
+                }
+                statements.add(InlinedNode.newFieldAssign(fieldInfo, value));
+            }
+            else if (stm instanceof NStm_SelfCall) {
+                InlinedNode call = inlineCallOrNull(methodInfo,
+                        ((NStm_SelfCall) stm).get_SelfCall());
+                if (call == null) {
+                    return null;
+                }
+                statements.add(call);
+            }
+            else if (stm instanceof NStm_Return && i == stms.size() - 1) {
+                NExpOpt expOpt = ((NStm_Return) stm).get_ExpOpt();
+                if (expOpt instanceof NExpOpt_One) {
+                    result = inlineExpOrNull(methodInfo,
+                            ((NExpOpt_One) expOpt).get_Exp());
+                    if (result == null) {
+                        return null;
+                    }
+                }
+            }
+            else {
+                this.failure = "body has a statement that may fail";
+                return null;
+            }
+        }
+
+        return new InlinedMethod(
+                statements.toArray(new InlinedNode[statements.size()]),
+                result);
+    }
+
+    private InlinedNode inlineExpOrNull(
+            MethodInfo methodInfo,
+            NExp exp) {
+
+        if (!grow()) {
+            return null;
+        }
+
+        NTerm term = getTermOrNull(exp);
+        if (term instanceof NTerm_Par) {
+            return inlineExpOrNull(methodInfo, ((NTerm_Par) term).get_Exp());
+        }
+        else if (term instanceof NTerm_Num || term instanceof NTerm_String) {
+            return InlinedNode
+                    .newConstant(this.resolver.getLiteralInstance(term));
+        }
+        else if (term instanceof NTerm_True) {
+            return InlinedNode
+                    .newConstant(this.program.getBooleanClassInfo().getTrue());
+        }
+        else if (term instanceof NTerm_False) {
+            return InlinedNode.newConstant(
+                    this.program.getBooleanClassInfo().getFalse());
+        }
+        else if (term instanceof NTerm_Null) {
+            return InlinedNode.newConstant(null);
+        }
+        else if (term instanceof NTerm_Self) {
+            return InlinedNode.newSelf();
+        }
+        else if (term instanceof NTerm_Field) {
+            FieldInfo fieldInfo
+                    = getFieldInfoOrNull(((NTerm_Field) term).get_FieldName());
+            if (fieldInfo == null) {
+                return null;
+            }
+            return InlinedNode.newField(fieldInfo);
+        }
+        else if (term instanceof NTerm_Var) {
+            // parameters are never assigned in an inlined body
+            int slot = this.resolver.getSlot(((NTerm_Var) term).get_Id());
+            if (slot >= methodInfo.getParamCount()) {
+                this.failure = "body reads a local variable";
+                return null;
+            }
+            return InlinedNode.newParam(slot);
+        }
+        else if (term instanceof NTerm_SelfCall) {
+            return inlineCallOrNull(methodInfo,
+                    ((NTerm_SelfCall) term).get_SelfCall());
+        }
+
+        this.failure = "body has an expression that may fail";
+        return null;
+    }
+
+    private InlinedNode inlineCallOrNull(
+            MethodInfo methodInfo,
+            NSelfCall selfCall) {
+
+        List<NExp> exps = new ArrayList<>();
+        if (selfCall.get_ExpListOpt() instanceof NExpListOpt_One) {
+            NExpList expList = ((NExpListOpt_One) selfCall.get_ExpListOpt())
+                    .get_ExpList();
+            NAdditionalExps additionalExps = expList.get_AdditionalExps();
+            while (additionalExps instanceof NAdditionalExps_More) {
+                NAdditionalExps_More more
+                        = (NAdditionalExps_More) additionalExps;
+                exps.add(0, more.get_AdditionalExp().get_Exp());
+                additionalExps = more.get_AdditionalExps();
+            }
+            exps.add(0, expList.get_Exp());
+        }
+
+        // the receiver class is known, so is the invoked method
+        String name = selfCall.get_Id().getText();
+        MethodInfo invokedMethod = this.receiverClassInfo.getMethodTable()
+                .getMethodInfoOrNull(
+                        this.program.getClassTable().getSelector(name));
+        if (invokedMethod == null
+                || invokedMethod.getParamCount() != exps.size()) {
+            this.failure = "call of " + name + " method fails";
+            return null;
+        }
+
+        InlinedNode[] arguments = new InlinedNode[exps.size()];
+        for (int i = 0; i < arguments.length; i++) {
+            arguments[i] = inlineExpOrNull(methodInfo, exps.get(i));
+            if (arguments[i] == null) {
+                return null;
+            }
+        }
+
+        InlinedMethod inlinedMethod = inlineMethodOrNull(invokedMethod);
+        if (inlinedMethod == null) {
+            return null;
+        }
+
+        return InlinedNode.newCall(inlinedMethod, arguments);
+    }
+
+    // fields are found in the receiver class, which may be a subclass of
+    // the class of the body
+    private FieldInfo getFieldInfoOrNull(
+            NFieldName fieldName) {
+
+        FieldInfo fieldInfo = this.receiverClassInfo.getFieldTable()
+                .getFieldInfoOrNull(fieldName.getText());
+        if (fieldInfo == null) {
+            this.failure = "class " + this.receiverClassInfo.getName()
+                    + " has no " + fieldName.getText() + " field";
+        }
+
+        return fieldInfo;
+    }
+
+    // counts a statement or an expression of the inlined body
+    private boolean grow() {
+
+        this.size++;
+        if (this.size > MAX_INLINED_SIZE) {
+            this.failure = "body is too large";
+            return false;
+        }
+
+        return true;
+    }
+
+    // returns the term of an expression without operator, or null
+    private static NTerm getTermOrNull(
+            NExp exp) {
+
+        if (!(exp instanceof NExp_Simple)) {
+            return null;
+        }
+        NAddExp addExp = ((NExp_Simple) exp).get_AddExp();
+        if (!(addExp instanceof NAddExp_Simple)) {
+            return null;
+        }
+        NLeftUnaryExp leftUnaryExp
+                = ((NAddExp_Simple) addExp).get_LeftUnaryExp();
+        if (!(leftUnaryExp instanceof NLeftUnaryExp_Simple)) {
+            return null;
+        }
+        NRightUnaryExp rightUnaryExp
+                = ((NLeftUnaryExp_Simple) leftUnaryExp).get_RightUnaryExp();
+        if (!(rightUnaryExp instanceof NRightUnaryExp_Simple)) {
+            return null;
+        }
+
+        return ((NRightUnaryExp_Simple) rightUnaryExp).get_Term();
+    }
+}
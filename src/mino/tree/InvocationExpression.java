@@ -0,0 +1,191 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.tree;
+
+import mino.language_mino.*;
+import mino.structure.*;
+
+/**
+ * Expression that invokes a method on a receiver. The method found for the
+ * last receiver class is remembered in front of the shared inline cache.
+ * The intrinsic of the method, if any, runs instead of its body when it
+ * applies. A call with an argument list inlines the method invoked by the
+ * first receiver, as long as the receivers all have the same class; the
+ * arguments of an inlined call are evaluated into an array of the
+ * expression.
+ */
+abstract class InvocationExpression
+        extends Expression {
+
+    final TreeEngine treeEngine;
+
+    private final InlineCache inlineCache;
+
+    final Token location;
+
+    private ClassInfo cachedClassInfo;
+
+    private CompiledMethod cachedMethod;
+
+    private boolean inliningDecided;
+
+    // class of all receivers so far, if the method is inlined for it
+    private ClassInfo inlinedClassInfo;
+
+    private InlinedMethod inlinedMethod;
+
+    private Instance[] argumentValues;
+
+    // set while the arguments are evaluated into argumentValues
+    private boolean evaluatingArguments;
+
+    InvocationExpression(
+            TreeEngine treeEngine,
+            InlineCache inlineCache,
+            Token location) {
+
+        this.treeEngine = treeEngine;
+        this.inlineCache = inlineCache;
+        this.location = location;
+    }
+
+    CompiledMethod lookup(
+            ClassInfo classInfo) {
+
+        if (classInfo != this.cachedClassInfo) {
+            this.cachedMethod = this.treeEngine.getCompiledMethod(
+                    this.inlineCache.getMethodInfo(classInfo));
+            this.cachedClassInfo = classInfo;
+        }
+
+        return this.cachedMethod;
+    }
+
+    Instance invoke(
+            Frame frame,
+            Instance receiver,
+            Instance argument) {
+
+        CompiledMethod method = lookup(receiver.getClassInfo());
+        Intrinsic intrinsic = method.getMethodInfo().getIntrinsicOrNull();
+        if (intrinsic != null) {
+            Instance value = intrinsic.execute(receiver, argument);
+            if (value != Intrinsic.NOT_HANDLED) {
+                return value;
+            }
+        }
+
+        Frame calleeFrame = this.treeEngine.push(frame, receiver, method);
+        calleeFrame.setParam(argument);
+        return this.treeEngine.invoke(frame, calleeFrame, method,
+                this.location);
+    }
+
+    Instance invoke(
+            Frame frame,
+            Instance receiver,
+            Expression[] arguments) {
+
+        return invoke(frame, receiver, lookup(receiver.getClassInfo()),
+                arguments);
+    }
+
+    Instance invoke(
+            Frame frame,
+            Instance receiver,
+            CompiledMethod method,
+            Expression[] arguments) {
+
+        ClassInfo classInfo = receiver.getClassInfo();
+        if (classInfo == this.inlinedClassInfo) {
+            return this.inlinedMethod.execute(receiver,
+                    evaluateArguments(frame, arguments));
+        }
+
+        Inliner inliner = this.treeEngine.getInliner();
+        if (!this.inliningDecided) {
+            this.inliningDecided = true;
+            this.inlinedMethod = inliner.inlineOrNull(this.location,
+                    method.getMethodInfo(), classInfo);
+            if (this.inlinedMethod != null) {
+                this.inlinedClassInfo = classInfo;
+                return this.inlinedMethod.execute(receiver,
+                        evaluateArguments(frame, arguments));
+            }
+        }
+        else if (this.inlinedClassInfo != null) {
+            inliner.recordPolymorphic(this.location, classInfo);
+            this.inlinedClassInfo = null;
+            this.inlinedMethod = null;
+        }
+
+        Frame calleeFrame = this.treeEngine.push(frame, receiver, method);
+        for (Expression argument : arguments) {
+            calleeFrame.setParam(argument.execute(frame));
+        }
+
+        Intrinsic intrinsic = method.getMethodInfo().getIntrinsicOrNull();
+        if (intrinsic != null) {
+            Instance value = intrinsic.execute(calleeFrame);
+            if (value != Intrinsic.NOT_HANDLED) {
+                this.treeEngine.getCallStack().pop(calleeFrame);
+                return value;
+            }
+        }
+
+        return this.treeEngine.invoke(frame, calleeFrame, method,
+                this.location);
+    }
+
+    private Instance[] evaluateArguments(
+            Frame frame,
+            Expression[] arguments) {
+
+        if (this.evaluatingArguments) {
+            // an argument calls back into this expression
+            return evaluate(frame, arguments);
+        }
+
+        Instance[] values = this.argumentValues;
+        if (values == null) {
+            values = new Instance[arguments.length];
+            this.argumentValues = values;
+        }
+
+        // the inlined method does not call back into this expression, so
+        // the values are only overwritten once it has completed
+        this.evaluatingArguments = true;
+        for (int i = 0; i < values.length; i++) {
+            values[i] = arguments[i].execute(frame);
+        }
+        this.evaluatingArguments = false;
+
+        return values;
+    }
+
+    static Instance[] evaluate(
+            Frame frame,
+            Expression[] arguments) {
+
+        Instance[] values = new Instance[arguments.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = arguments[i].execute(frame);
+        }
+
+        return values;
+    }
+}
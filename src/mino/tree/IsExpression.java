@@ -0,0 +1,69 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.tree;
+
+import mino.language_mino.*;
+import mino.structure.*;
+
+class IsExpression
+        extends Expression {
+
+    private final Expression left;
+
+    private final Expression right;
+
+    private final BooleanClassInfo booleanClassInfo;
+
+    IsExpression(
+            Expression left,
+            Expression right,
+            BooleanClassInfo booleanClassInfo) {
+
+        this.left = left;
+        this.right = right;
+        this.booleanClassInfo = booleanClassInfo;
+    }
+
+    @Override
+    Instance execute(
+            Frame frame) {
+
+        if (isSame(frame)) {
+            return this.booleanClassInfo.getTrue();
+        }
+
+        return this.booleanClassInfo.getFalse();
+    }
+
+    // conditions use the comparison without a boolean instance
+    @Override
+    boolean executeCondition(
+            Frame frame,
+            BooleanClassInfo booleanClassInfo,
+            Token location) {
+
+        return isSame(frame);
+    }
+
+    private boolean isSame(
+            Frame frame) {
+
+        Instance left = this.left.execute(frame);
+        Instance right = this.right.execute(frame);
+        return Instance.isSame(left, right);
+    }
+}
@@ -0,0 +1,66 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.tree;
+
+import mino.language_mino.*;
+import mino.structure.*;
+
+class IsaExpression
+        extends Expression {
+
+    private final Expression left;
+
+    private final ClassInfo classInfo;
+
+    private final ClassTable classTable;
+
+    private final NClassName className;
+
+    private final BooleanClassInfo booleanClassInfo;
+
+    IsaExpression(
+            Expression left,
+            ClassInfo classInfo,
+            ClassTable classTable,
+            NClassName className,
+            BooleanClassInfo booleanClassInfo) {
+
+        this.left = left;
+        this.classInfo = classInfo;
+        this.classTable = classTable;
+        this.className = className;
+        this.booleanClassInfo = booleanClassInfo;
+    }
+
+    @Override
+    Instance execute(
+            Frame frame) {
+
+        Instance left = this.left.execute(frame);
+        ClassInfo right = this.classInfo;
+        if (right == null) {
+            // reports the unknown class
+            right = this.classTable.get(this.className);
+        }
+
+        if (left == null || left.isa(right)) {
+            return this.booleanClassInfo.getTrue();
+        }
+
+        return this.booleanClassInfo.getFalse();
+    }
+}
@@ -0,0 +1,56 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.tree;
+
+import mino.exception.*;
+import mino.language_mino.*;
+import mino.structure.*;
+
+class NewExpression
+        extends Expression {
+
+    private final ClassInfo classInfo;
+
+    private final ClassTable classTable;
+
+    private final NTerm_New term;
+
+    NewExpression(
+            ClassInfo classInfo,
+            ClassTable classTable,
+            NTerm_New term) {
+
+        this.classInfo = classInfo;
+        this.classTable = classTable;
+        this.term = term;
+    }
+
+    @Override
+    Instance execute(
+            Frame frame) {
+
+        if (this.classInfo == null) {
+            // the class is either unknown, which is reported here, or one
+            // that cannot be instantiated
+            this.classTable.get(this.term.get_ClassName());
+            throw new InterpreterException("invalid use of new operator",
+                    this.term.get_NewKwd());
+        }
+
+        return this.classInfo.newInstance();
+    }
+}
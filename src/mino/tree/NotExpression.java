@@ -0,0 +1,63 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.tree;
+
+import mino.language_mino.*;
+import mino.structure.*;
+
+class NotExpression
+        extends Expression {
+
+    private final Expression operand;
+
+    private final BooleanClassInfo booleanClassInfo;
+
+    private final Token location;
+
+    NotExpression(
+            Expression operand,
+            BooleanClassInfo booleanClassInfo,
+            Token location) {
+
+        this.operand = operand;
+        this.booleanClassInfo = booleanClassInfo;
+        this.location = location;
+    }
+
+    @Override
+    Instance execute(
+            Frame frame) {
+
+        if (this.operand.executeCondition(frame, this.booleanClassInfo,
+                this.location)) {
+            return this.booleanClassInfo.getFalse();
+        }
+
+        return this.booleanClassInfo.getTrue();
+    }
+
+    @Override
+    boolean executeCondition(
+            Frame frame,
+            BooleanClassInfo booleanClassInfo,
+            Token location) {
+
+        // the operand is checked at the location of the operator
+        return !this.operand.executeCondition(frame, this.booleanClassInfo,
+                this.location);
+    }
+}
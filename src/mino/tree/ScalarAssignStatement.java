@@ -0,0 +1,72 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.tree;
+
+import mino.structure.*;
+
+/**
+ * Assignment of a new instance to a variable whose instances are kept in
+ * slots. The fields of the instance are cleared, then set by the inlined
+ * body of the call that initializes it, if any.
+ */
+class ScalarAssignStatement
+        extends Statement {
+
+    private final int slot;
+
+    private final int fieldSlot;
+
+    private final int fieldCount;
+
+    // inlined body of the initializing call, or null
+    private final InlinedMethod initializer;
+
+    private final Expression[] arguments;
+
+    ScalarAssignStatement(
+            int slot,
+            int fieldSlot,
+            int fieldCount,
+            InlinedMethod initializer,
+            Expression[] arguments) {
+
+        this.slot = slot;
+        this.fieldSlot = fieldSlot;
+        this.fieldCount = fieldCount;
+        this.initializer = initializer;
+        this.arguments = arguments;
+    }
+
+    @Override
+    boolean execute(
+            Frame frame) {
+
+        // the arguments may be computed from the previous instance
+        Instance[] values
+                = InvocationExpression.evaluate(frame, this.arguments);
+        for (int i = 0; i < this.fieldCount; i++) {
+            frame.setVar(this.fieldSlot + i, null);
+        }
+        if (this.initializer != null) {
+            this.initializer.executeInSlots(frame, this.fieldSlot, values);
+        }
+
+        // the variable is never read, but must be known as assigned
+        frame.setVar(this.slot, null);
+        return false;
+    }
+}
@@ -0,0 +1,63 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.tree;
+
+import mino.language_mino.*;
+import mino.structure.*;
+
+/**
+ * Call on a variable whose instances are kept in slots, which runs the body
+ * of the method inlined for their class on these slots.
+ */
+class ScalarCallExpression
+        extends Expression {
+
+    private final int slot;
+
+    private final NId id;
+
+    private final int fieldSlot;
+
+    private final InlinedMethod method;
+
+    private final Expression[] arguments;
+
+    ScalarCallExpression(
+            int slot,
+            NId id,
+            int fieldSlot,
+            InlinedMethod method,
+            Expression[] arguments) {
+
+        this.slot = slot;
+        this.id = id;
+        this.fieldSlot = fieldSlot;
+        this.method = method;
+        this.arguments = arguments;
+    }
+
+    @Override
+    Instance execute(
+            Frame frame) {
+
+        // reports the variable if it is not yet assigned
+        frame.getVar(this.slot, this.id);
+
+        return this.method.executeInSlots(frame, this.fieldSlot,
+                InvocationExpression.evaluate(frame, this.arguments));
+    }
+}
@@ -0,0 +1,323 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.tree;
+
+import java.util.*;
+
+import mino.language_mino.*;
+import mino.structure.*;
+import mino.walker.*;
+
+/**
+ * Escape analysis of a method body, which finds the variables whose
+ * instances are kept in frame slots instead of being created. Such a variable
+ * is only assigned new instances of one class, each possibly initialized by a
+ * call that returns the new instance, and is only read as the receiver of
+ * calls. All these calls must be inlined for the class, and none of the
+ * inlined bodies may store self or pass it to another method, so an instance
+ * is never visible outside of the variable. Its fields are then kept in
+ * slots that follow the variables of the frame. Every replaced variable is
+ * recorded for the statistics.
+ */
+class ScalarReplacer
+        extends Walker {
+
+    /**
+     * Assignment or call that is compiled to use the slots of the fields of
+     * a replaced variable.
+     */
+    static final class Site {
+
+        final int slot;
+
+        final int fieldSlot;
+
+        final int fieldCount;
+
+        // call that initializes a new instance or is made on an instance, or
+        // null for an instance that is not initialized
+        final NCall call;
+
+        // inlined body of the call, or null
+        final InlinedMethod method;
+
+        private Site(
+                int slot,
+                int fieldSlot,
+                int fieldCount,
+                NCall call,
+                InlinedMethod method) {
+
+            this.slot = slot;
+            this.fieldSlot = fieldSlot;
+            this.fieldCount = fieldCount;
+            this.call = call;
+            this.method = method;
+        }
+    }
+
+    private final Resolver resolver;
+
+    private final ClassTable classTable;
+
+    private final Inliner inliner;
+
+    private final List<String> replacements = new ArrayList<>();
+
+    private final Map<Node, Site> nodeToSiteMap = new IdentityHashMap<>();
+
+    // assignments of new instances and calls on each variable
+    private List<List<NStm_VarAssign>> assignments;
+
+    private List<List<NCall>> calls;
+
+    // variables that are parameters, or read or assigned otherwise
+    private boolean[] excluded;
+
+    ScalarReplacer(
+            Program program,
+            Inliner inliner) {
+
+        this.resolver = program.getResolver();
+        this.classTable = program.getClassTable();
+        this.inliner = inliner;
+    }
+
+    /**
+     * Analyzes a body, given the number of parameters and variables of its
+     * frames, and returns the number of slots that its frames need.
+     */
+    int analyze(
+            NStms stms,
+            int paramCount,
+            int variableCount) {
+
+        this.nodeToSiteMap.clear();
+        this.assignments = new ArrayList<>();
+        this.calls = new ArrayList<>();
+        for (int i = 0; i < variableCount; i++) {
+            this.assignments.add(new ArrayList<>());
+            this.calls.add(new ArrayList<>());
+        }
+        this.excluded = new boolean[variableCount];
+        Arrays.fill(this.excluded, 0, paramCount, true);
+
+        stms.apply(this);
+
+        int slotCount = variableCount;
+        for (int slot = 0; slot < variableCount; slot++) {
+            if (!this.excluded[slot]) {
+                slotCount += replace(slot, slotCount);
+            }
+        }
+
+        this.assignments = null;
+        this.calls = null;
+        this.excluded = null;
+        return slotCount;
+    }
+
+    /**
+     * Returns the site of an assignment or a call of the last analyzed body,
+     * or null if it is compiled as usual.
+     */
+    Site getSiteOrNull(
+            Node node) {
+
+        return this.nodeToSiteMap.get(node);
+    }
+
+    List<String> getReplacements() {
+
+        return Collections.unmodifiableList(this.replacements);
+    }
+
+    // replaces a variable if all its assignments and calls allow it, and
+    // returns the number of slots of its fields
+    private int replace(
+            int slot,
+            int fieldSlot) {
+
+        List<NStm_VarAssign> assignments = this.assignments.get(slot);
+        if (assignments.isEmpty()) {
+            return 0;
+        }
+
+        ClassInfo classInfo = getClassInfoOrNull(assignments.get(0).get_Exp());
+        int fieldCount = classInfo.getFieldTable().getFieldCount();
+
+        Map<Node, Site> nodeToSiteMap = new IdentityHashMap<>();
+        for (NStm_VarAssign assignment : assignments) {
+            if (getClassInfoOrNull(assignment.get_Exp()) != classInfo) {
+                return 0;
+            }
+
+            NCall call = getInitializerOrNull(assignment.get_Exp());
+            InlinedMethod method = null;
+            if (call != null) {
+                method = inlineOrNull(call, classInfo);
+                if (method == null || !method.returnsSelf()) {
+                    return 0;
+                }
+            }
+            nodeToSiteMap.put(assignment,
+                    new Site(slot, fieldSlot, fieldCount, call, method));
+        }
+
+        for (NCall call : this.calls.get(slot)) {
+            InlinedMethod method = inlineOrNull(call, classInfo);
+            if (method == null || method.returnsSelf()) {
+                return 0;
+            }
+            nodeToSiteMap.put(call,
+                    new Site(slot, fieldSlot, fieldCount, call, method));
+        }
+
+        this.nodeToSiteMap.putAll(nodeToSiteMap);
+        NId id = assignments.get(0).get_Id();
+        String slots = " slots";
+        if (fieldCount == 1) {
+            slots = " slot";
+        }
+        this.replacements.add("line " + id.getLine() + " position "
+                + id.getPos() + ": fields of the " + classInfo.getName()
+                + " instances of variable " + id.getText() + " kept in "
+                + fieldCount + slots);
+        return fieldCount;
+    }
+
+    // returns the inlined body of a call on instances of a class, if it lets
+    // no self escape, or null
+    private InlinedMethod inlineOrNull(
+            NCall call,
+            ClassInfo classInfo) {
+
+        MethodInfo methodInfo = classInfo.getMethodTable().getMethodInfoOrNull(
+                this.classTable.getSelector(call.get_Id().getText()));
+        if (methodInfo == null || methodInfo.getParamCount() != this.resolver
+                .getInlineCache(call).getArgCount()) {
+            return null;
+        }
+
+        InlinedMethod method
+                = this.inliner.inlineForClassOrNull(methodInfo, classInfo);
+        if (method == null || method.letsSelfEscape()) {
+            return null;
+        }
+
+        return method;
+    }
+
+    // returns the class of an expression that creates an instance and may
+    // initialize it, or null
+    private ClassInfo getClassInfoOrNull(
+            NExp exp) {
+
+        NRightUnaryExp rightUnaryExp = getRightUnaryExpOrNull(exp);
+        if (rightUnaryExp instanceof NRightUnaryExp_Call) {
+            rightUnaryExp = ((NRightUnaryExp_Call) rightUnaryExp).get_Call()
+                    .get_RightUnaryExp();
+        }
+        if (!(rightUnaryExp instanceof NRightUnaryExp_Simple)) {
+            return null;
+        }
+        NTerm term = ((NRightUnaryExp_Simple) rightUnaryExp).get_Term();
+        if (!(term instanceof NTerm_New)) {
+            return null;
+        }
+
+        return this.resolver.getClassInfoOrNull(term);
+    }
+
+    // returns the call that initializes the instance created by an
+    // expression, or null
+    private static NCall getInitializerOrNull(
+            NExp exp) {
+
+        NRightUnaryExp rightUnaryExp = getRightUnaryExpOrNull(exp);
+        if (rightUnaryExp instanceof NRightUnaryExp_Call) {
+            return ((NRightUnaryExp_Call) rightUnaryExp).get_Call();
+        }
+
+        return null;
+    }
+
+    // returns the operand of an expression without operator, or null
+    private static NRightUnaryExp getRightUnaryExpOrNull(
+            NExp exp) {
+
+        if (!(exp instanceof NExp_Simple)) {
+            return null;
+        }
+        NAddExp addExp = ((NExp_Simple) exp).get_AddExp();
+        if (!(addExp instanceof NAddExp_Simple)) {
+            return null;
+        }
+        NLeftUnaryExp leftUnaryExp
+                = ((NAddExp_Simple) addExp).get_LeftUnaryExp();
+        if (!(leftUnaryExp instanceof NLeftUnaryExp_Simple)) {
+            return null;
+        }
+
+        return ((NLeftUnaryExp_Simple) leftUnaryExp).get_RightUnaryExp();
+    }
+
+    @Override
+    public void caseStm_VarAssign(
+            NStm_VarAssign node) {
+
+        int slot = this.resolver.getSlot(node.get_Id());
+        if (getClassInfoOrNull(node.get_Exp()) == null) {
+            this.excluded[slot] = true;
+            node.get_Exp().apply(this);
+            return;
+        }
+
+        this.assignments.get(slot).add(node);
+        NCall call = getInitializerOrNull(node.get_Exp());
+        if (call != null) {
+            call.get_ExpListOpt().apply(this);
+        }
+    }
+
+    @Override
+    public void caseCall(
+            NCall node) {
+
+        NRightUnaryExp receiver = node.get_RightUnaryExp();
+        NTerm term = null;
+        if (receiver instanceof NRightUnaryExp_Simple) {
+            term = ((NRightUnaryExp_Simple) receiver).get_Term();
+        }
+
+        if (term instanceof NTerm_Var) {
+            int slot = this.resolver.getSlot(((NTerm_Var) term).get_Id());
+            this.calls.get(slot).add(node);
+        }
+        else {
+            receiver.apply(this);
+        }
+        node.get_ExpListOpt().apply(this);
+    }
+
+    @Override
+    public void caseTerm_Var(
+            NTerm_Var node) {
+
+        this.excluded[this.resolver.getSlot(node.get_Id())] = true;
+    }
+}
@@ -0,0 +1,60 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.tree;
+
+import mino.language_mino.*;
+import mino.structure.*;
+
+class SelfCallExpression
+        extends InvocationExpression {
+
+    private final Expression[] arguments;
+
+    // method bound to the call, or null if it is looked up
+    private final CompiledMethod staticMethod;
+
+    SelfCallExpression(
+            TreeEngine treeEngine,
+            InlineCache inlineCache,
+            Token location,
+            Expression[] arguments) {
+
+        super(treeEngine, inlineCache, location);
+        this.arguments = arguments;
+
+        MethodInfo staticMethodInfo = inlineCache.getStaticMethodInfoOrNull();
+        if (staticMethodInfo != null) {
+            this.staticMethod = treeEngine.getCompiledMethod(staticMethodInfo);
+        }
+        else {
+            this.staticMethod = null;
+        }
+    }
+
+    @Override
+    Instance execute(
+            Frame frame) {
+
+        if (this.staticMethod != null) {
+            // no subclass of the class of self redefines the method
+            return invoke(frame, frame.getReceiver(), this.staticMethod,
+                    this.arguments);
+        }
+
+        return invoke(frame, frame.getReceiver(), this.arguments);
+    }
+}
@@ -14,10 +14,17 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
+package mino.tree;
 
-package mino.exception;
+import mino.structure.*;
 
-public class ReturnException
-        extends RuntimeException {
+class SelfExpression
+        extends Expression {
 
+    @Override
+    Instance execute(
+            Frame frame) {
+
+        return frame.getReceiver();
+    }
 }
@@ -0,0 +1,402 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.tree;
+
+import java.util.*;
+
+import mino.language_mino.*;
+import mino.structure.*;
+import mino.walker.*;
+
+/**
+ * Pass that compiles a method body or the main program into a tree of
+ * executable statements and expressions. Variables whose instances do not
+ * escape the body are compiled to keep the fields of these instances in
+ * frame slots.
+ */
+class TreeCompiler
+        extends Walker {
+
+    private final TreeEngine treeEngine;
+
+    private final Resolver resolver;
+
+    private final ClassTable classTable;
+
+    private final BooleanClassInfo booleanClassInfo;
+
+    private final Primitives primitives;
+
+    private final ScalarReplacer scalarReplacer;
+
+    private boolean main;
+
+    private int slotCount;
+
+    private List<Statement> statements;
+
+    private List<Expression> arguments;
+
+    private Expression expression;
+
+    TreeCompiler(
+            TreeEngine treeEngine,
+            Program program) {
+
+        this.treeEngine = treeEngine;
+        this.resolver = program.getResolver();
+        this.classTable = program.getClassTable();
+        this.booleanClassInfo = program.getBooleanClassInfo();
+        this.primitives = program.getPrimitives();
+        this.scalarReplacer
+                = new ScalarReplacer(program, treeEngine.getInliner());
+    }
+
+    /**
+     * Compiles the body of a method, or the main program when the method is
+     * null.
+     */
+    Statement compile(
+            NStms stms,
+            MethodInfo methodInfo,
+            VariableTable variableTable) {
+
+        int paramCount = 0;
+        if (methodInfo != null) {
+            paramCount = methodInfo.getParamCount();
+        }
+
+        this.main = methodInfo == null;
+        this.slotCount = this.scalarReplacer.analyze(stms, paramCount,
+                variableTable.getSlotCount());
+        return compileStms(stms);
+    }
+
+    /**
+     * Returns the number of slots of the frames of the last compiled body:
+     * its variables, then the fields of the instances kept in slots.
+     */
+    int getSlotCount() {
+
+        return this.slotCount;
+    }
+
+    ScalarReplacer getScalarReplacer() {
+
+        return this.scalarReplacer;
+    }
+
+    private void visit(
+            Node node) {
+
+        node.apply(this);
+    }
+
+    private Statement compileStms(
+            NStms node) {
+
+        List<Statement> statements = this.statements;
+        this.statements = new ArrayList<>();
+        visit(node);
+        Statement statement;
+        if (this.statements.size() == 1) {
+            statement = this.statements.get(0);
+        }
+        else {
+            statement = new Block(this.statements
+                    .toArray(new Statement[this.statements.size()]));
+        }
+        this.statements = statements;
+        return statement;
+    }
+
+    private Expression compileExp(
+            Node node) {
+
+        visit(node);
+        Expression expression = this.expression;
+        this.expression = null;
+        return expression;
+    }
+
+    private Expression[] compileArguments(
+            NExpListOpt node) {
+
+        List<Expression> arguments = this.arguments;
+        this.arguments = new ArrayList<>();
+        visit(node);
+        Expression[] result
+                = this.arguments.toArray(new Expression[this.arguments.size()]);
+        this.arguments = arguments;
+        return result;
+    }
+
+    @Override
+    public void caseStm_VarAssign(
+            NStm_VarAssign node) {
+
+        ScalarReplacer.Site site = this.scalarReplacer.getSiteOrNull(node);
+        if (site != null) {
+            Expression[] arguments = new Expression[0];
+            if (site.call != null) {
+                arguments = compileArguments(site.call.get_ExpListOpt());
+            }
+            this.statements.add(new ScalarAssignStatement(site.slot,
+                    site.fieldSlot, site.fieldCount, site.method, arguments));
+            return;
+        }
+
+        this.statements.add(new VarAssignStatement(
+                this.resolver.getSlot(node.get_Id()),
+                compileExp(node.get_Exp())));
+    }
+
+    @Override
+    public void caseStm_FieldAssign(
+            NStm_FieldAssign node) {
+
+        this.statements.add(new FieldAssignStatement(
+                this.resolver.getFieldInfoOrNull(node.get_FieldName()),
+                node.get_FieldName(), compileExp(node.get_Exp())));
+    }
+
+    @Override
+    public void caseStm_While(
+            NStm_While node) {
+
+        Expression condition = compileExp(node.get_Exp());
+        Statement body = compileStms(node.get_Stms());
+        this.statements.add(new WhileStatement(condition,
+                this.booleanClassInfo, node.get_LPar(), body));
+    }
+
+    @Override
+    public void caseStm_If(
+            NStm_If node) {
+
+        Expression condition = compileExp(node.get_Exp());
+        Statement thenStatement = compileStms(node.get_Stms());
+        Statement elseStatement = null;
+        if (node.get_ElseOpt() instanceof NElseOpt_One) {
+            elseStatement = compileStms(((NElseOpt_One) node.get_ElseOpt())
+                    .get_Else().get_Stms());
+        }
+        this.statements.add(new IfStatement(condition, this.booleanClassInfo,
+                node.get_LPar(), thenStatement, elseStatement));
+    }
+
+    @Override
+    public void caseStm_Return(
+            NStm_Return node) {
+
+        if (this.main) {
+            this.statements.add(new FailStatement(
+                    "return statement is not allowed in main program",
+                    node.get_ReturnKwd()));
+            return;
+        }
+
+        Expression value = null;
+        if (node.get_ExpOpt() instanceof NExpOpt_One) {
+            value = compileExp(((NExpOpt_One) node.get_ExpOpt()).get_Exp());
+        }
+        this.statements.add(new ReturnStatement(value));
+    }
+
+    @Override
+    public void caseStm_Call(
+            NStm_Call node) {
+
+        this.statements
+                .add(new ExpressionStatement(compileExp(node.get_Call())));
+    }
+
+    @Override
+    public void caseStm_SelfCall(
+            NStm_SelfCall node) {
+
+        this.statements
+                .add(new ExpressionStatement(compileExp(node.get_SelfCall())));
+    }
+
+    @Override
+    public void caseExp_Is(
+            NExp_Is node) {
+
+        Expression left = compileExp(node.get_Exp());
+        Expression right = compileExp(node.get_AddExp());
+        this.expression
+                = new IsExpression(left, right, this.booleanClassInfo);
+    }
+
+    @Override
+    public void caseExp_Eq(
+            NExp_Eq node) {
+
+        Expression left = compileExp(node.get_Exp());
+        Expression right = compileExp(node.get_AddExp());
+        this.expression = new EqExpression(this.treeEngine,
+                this.resolver.getInlineCache(node), node.get_Eq(), left, right,
+                this.booleanClassInfo);
+    }
+
+    @Override
+    public void caseExp_Isa(
+            NExp_Isa node) {
+
+        this.expression = new IsaExpression(compileExp(node.get_Exp()),
+                this.resolver.getClassInfoOrNull(node), this.classTable,
+                node.get_ClassName(), this.booleanClassInfo);
+    }
+
+    @Override
+    public void caseAddExp_Add(
+            NAddExp_Add node) {
+
+        Expression left = compileExp(node.get_AddExp());
+        Expression right = compileExp(node.get_LeftUnaryExp());
+        this.expression = new AddExpression(this.treeEngine,
+                this.resolver.getInlineCache(node), node.get_Plus(), left,
+                right, this.primitives);
+    }
+
+    @Override
+    public void caseLeftUnaryExp_Not(
+            NLeftUnaryExp_Not node) {
+
+        this.expression = new NotExpression(
+                compileExp(node.get_LeftUnaryExp()), this.booleanClassInfo,
+                node.get_Not());
+    }
+
+    @Override
+    public void caseTerm_New(
+            NTerm_New node) {
+
+        this.expression = new NewExpression(
+                this.resolver.getClassInfoOrNull(node), this.classTable, node);
+    }
+
+    @Override
+    public void caseTerm_Field(
+            NTerm_Field node) {
+
+        this.expression = new FieldExpression(
+                this.resolver.getFieldInfoOrNull(node.get_FieldName()),
+                node.get_FieldName());
+    }
+
+    @Override
+    public void caseTerm_Var(
+            NTerm_Var node) {
+
+        this.expression = new VarExpression(
+                this.resolver.getSlot(node.get_Id()), node.get_Id());
+    }
+
+    @Override
+    public void caseTerm_Num(
+            NTerm_Num node) {
+
+        this.expression = new ConstantExpression(
+                this.resolver.getLiteralInstance(node));
+    }
+
+    @Override
+    public void caseTerm_Null(
+            NTerm_Null node) {
+
+        this.expression = new ConstantExpression(null);
+    }
+
+    @Override
+    public void caseTerm_Self(
+            NTerm_Self node) {
+
+        this.expression = new SelfExpression();
+    }
+
+    @Override
+    public void caseTerm_True(
+            NTerm_True node) {
+
+        this.expression
+                = new ConstantExpression(this.booleanClassInfo.getTrue());
+    }
+
+    @Override
+    public void caseTerm_False(
+            NTerm_False node) {
+
+        this.expression
+                = new ConstantExpression(this.booleanClassInfo.getFalse());
+    }
+
+    @Override
+    public void caseTerm_String(
+            NTerm_String node) {
+
+        this.expression = new ConstantExpression(
+                this.resolver.getLiteralInstance(node));
+    }
+
+    @Override
+    public void caseCall(
+            NCall node) {
+
+        ScalarReplacer.Site site = this.scalarReplacer.getSiteOrNull(node);
+        if (site != null) {
+            // the receiver is the variable
+            NTerm_Var term = (NTerm_Var) ((NRightUnaryExp_Simple) node
+                    .get_RightUnaryExp()).get_Term();
+            this.expression = new ScalarCallExpression(site.slot,
+                    term.get_Id(), site.fieldSlot, site.method,
+                    compileArguments(node.get_ExpListOpt()));
+            return;
+        }
+
+        Expression receiver = compileExp(node.get_RightUnaryExp());
+        Expression[] arguments = compileArguments(node.get_ExpListOpt());
+        this.expression = new CallExpression(this.treeEngine,
+                this.resolver.getInlineCache(node), node.get_Id(), receiver,
+                arguments);
+    }
+
+    @Override
+    public void caseSelfCall(
+            NSelfCall node) {
+
+        Expression[] arguments = compileArguments(node.get_ExpListOpt());
+        this.expression = new SelfCallExpression(this.treeEngine,
+                this.resolver.getInlineCache(node), node.get_Id(), arguments);
+    }
+
+    @Override
+    public void caseExpList(
+            NExpList node) {
+
+        this.arguments.add(compileExp(node.get_Exp()));
+        visit(node.get_AdditionalExps());
+    }
+
+    @Override
+    public void caseAdditionalExp(
+            NAdditionalExp node) {
+
+        this.arguments.add(compileExp(node.get_Exp()));
+    }
+}
@@ -0,0 +1,192 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.tree;
+
+import java.util.*;
+
+import mino.language_mino.*;
+import mino.structure.*;
+
+/**
+ * Execution engine that compiles method bodies and the main program into
+ * trees of executable statements and expressions, and executes these trees.
+ * Intermediate results are passed as return values; the syntax tree is only
+ * kept for error locations.
+ */
+public class TreeEngine
+        implements ExecutionEngine {
+
+    private final StandardOutput standardOutput;
+
+    private Program program;
+
+    private TreeCompiler treeCompiler;
+
+    private Inliner inliner;
+
+    private final Map<MethodInfo, CompiledMethod> methodInfoToCompiledMethodMap
+            = new IdentityHashMap<>();
+
+    private final CallStack callStack = new CallStack();
+
+    // innermost frame, for primitive methods and stack traces
+    private Frame currentFrame;
+
+    public TreeEngine(
+            StandardOutput standardOutput) {
+
+        this.standardOutput = standardOutput;
+    }
+
+    @Override
+    public void load(
+            Node syntaxTree) {
+
+        this.program = new Program((NFile) syntaxTree, this.standardOutput);
+        this.inliner = new Inliner(this.program);
+        this.treeCompiler = new TreeCompiler(this, this.program);
+    }
+
+    @Override
+    public void run() {
+
+        // create initial Object instance
+        Instance instance = this.program.getObjectClassInfo().newInstance();
+
+        // the frame may need slots beyond the variables
+        Statement main = this.treeCompiler.compile(this.program.getMainStms(),
+                null, this.program.getMainVariableTable());
+
+        // create initial frame
+        this.currentFrame = this.callStack.push(null, instance, null,
+                this.treeCompiler.getSlotCount());
+
+        // execute statements
+        main.execute(this.currentFrame);
+    }
+
+    @Override
+    public void printStackTrace() {
+
+        if (this.currentFrame != null) {
+            this.currentFrame.printStackTrace();
+        }
+    }
+
+    @Override
+    public void printStatistics() {
+
+        Program.printStatistics(this.program);
+        if (this.inliner != null) {
+            for (String decision : this.inliner.getDecisions()) {
+                System.err.println(" Inlining at " + decision);
+            }
+            for (String replacement : this.treeCompiler.getScalarReplacer()
+                    .getReplacements()) {
+                System.err.println(" Scalar replacement at " + replacement);
+            }
+        }
+    }
+
+    @Override
+    public Frame getCurrentFrame() {
+
+        return this.currentFrame;
+    }
+
+    @Override
+    public Primitives getPrimitives() {
+
+        return this.program.getPrimitives();
+    }
+
+    @Override
+    public void executeBody(
+            MethodInfo methodInfo) {
+
+        // the body was compiled when the frame was pushed
+        getCompiledMethod(methodInfo).getBody().execute(this.currentFrame);
+    }
+
+    Inliner getInliner() {
+
+        return this.inliner;
+    }
+
+    CallStack getCallStack() {
+
+        return this.callStack;
+    }
+
+    CompiledMethod getCompiledMethod(
+            MethodInfo methodInfo) {
+
+        CompiledMethod method
+                = this.methodInfoToCompiledMethodMap.get(methodInfo);
+        if (method == null) {
+            method = new CompiledMethod(methodInfo);
+            this.methodInfoToCompiledMethodMap.put(methodInfo, method);
+        }
+
+        return method;
+    }
+
+    /**
+     * Pushes the frame of a call to a method. The body of the method is
+     * compiled first, as its frames may need slots beyond its variables.
+     */
+    Frame push(
+            Frame frame,
+            Instance receiver,
+            CompiledMethod method) {
+
+        if (!method.isCompiled()) {
+            MethodInfo methodInfo = method.getMethodInfo();
+            NStms body = this.program.getBodyOrNull(methodInfo);
+            if (body != null) {
+                method.setBody(this.treeCompiler.compile(body, methodInfo,
+                        methodInfo.getVariableTable()),
+                        this.treeCompiler.getSlotCount());
+            }
+            else {
+                method.setBody(null,
+                        methodInfo.getVariableTable().getSlotCount());
+            }
+        }
+
+        return this.callStack.push(frame, receiver, method.getMethodInfo(),
+                method.getSlotCount());
+    }
+
+    Instance invoke(
+            Frame frame,
+            Frame calleeFrame,
+            CompiledMethod method,
+            Token location) {
+
+        // on error, the current frame is left at the failing method
+        frame.setCurrentLocation(location);
+        this.currentFrame = calleeFrame;
+        method.execute(calleeFrame, this);
+        this.currentFrame = frame;
+        frame.setCurrentLocation(null);
+
+        Instance returnValue = calleeFrame.getReturnValue();
+        this.callStack.pop(calleeFrame);
+        return returnValue;
+    }
+}
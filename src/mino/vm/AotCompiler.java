@@ -0,0 +1,377 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.vm;
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.jar.*;
+
+import mino.language_mino.*;
+import mino.structure.*;
+
+/**
+ * Compiler of a whole program, ahead of time, into a runnable JAR file.
+ * Each method with a body, and the main program, is translated into a JVM
+ * class as by the compiler of hot methods. The JAR file also holds the
+ * declarations of the classes of the program and the register machine code
+ * of its methods, from which AotLoader rebuilds the program without parsing
+ * or checking it, and a runtime library made of the packages of the
+ * interpreter that the virtual machine uses.
+ */
+public class AotCompiler {
+
+    static final String PROGRAM_RESOURCE = "AotProgram.dat";
+
+    private static final String[] RUNTIME_PACKAGES = { "mino/exception/",
+            "mino/language_mino/", "mino/structure/", "mino/vm/",
+            "mino/walker/" };
+
+    // tags of the constants of register machine code
+    static final int NULL = 0;
+
+    static final int INTEGER = 1;
+
+    static final int STRING = 2;
+
+    static final int TRUE = 3;
+
+    static final int FALSE = 4;
+
+    static final int CLASS = 5;
+
+    static final int SITE = 6;
+
+    static final int CALL_SITE = 7;
+
+    static final int FIELD_SITE = 8;
+
+    static final int MESSAGE = 9;
+
+    // tags of the constants of compiled classes
+    static final int POOL_CONSTANT = 0;
+
+    static final int RUNTIME_CONSTANT = 1;
+
+    static final int UNDEFINED_CONSTANT = 2;
+
+    static final int LINKAGE_CONSTANT = 3;
+
+    private final JitCompiler translator = new JitCompiler(null);
+
+    private final Map<String, byte[]> classNameToBytesMap
+            = new LinkedHashMap<>();
+
+    private BooleanClassInfo booleanClassInfo;
+
+    /** Compiles a program into a JAR file that runs it. */
+    public void compile(
+            Node syntaxTree,
+            String jarFileName)
+            throws IOException {
+
+        // the program is checked and compiled as when it is run
+        VirtualMachine virtualMachine = new VirtualMachine(
+                new StandardOutput(StandardOutput.DEFAULT_BUFFER_SIZE),
+                false);
+        virtualMachine.load(syntaxTree);
+        ClassTable classTable = virtualMachine.getClassTable();
+        this.booleanClassInfo
+                = (BooleanClassInfo) classTable.getBooleanClassInfoOrNull();
+        this.classNameToBytesMap.clear();
+
+        ByteArrayOutputStream program = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(program);
+
+        // declarations, in the order of definition
+        out.writeInt(classTable.getClassInfos().size());
+        for (ClassInfo classInfo : classTable.getClassInfos()) {
+            out.writeUTF(classInfo.getName());
+            ClassInfo superClassInfo = classInfo.getSuperClassInfoOrNull();
+            int inheritedFieldCount = 0;
+            if (superClassInfo != null) {
+                out.writeUTF(superClassInfo.getName());
+                inheritedFieldCount
+                        = superClassInfo.getFieldTable().getFieldCount();
+            }
+            else {
+                out.writeUTF("");
+            }
+
+            Set<FieldInfo> fields = classInfo.getFieldTable().getFields();
+            out.writeInt(fields.size() - inheritedFieldCount);
+            for (FieldInfo fieldInfo : fields) {
+                if (fieldInfo.getOffset() >= inheritedFieldCount) {
+                    out.writeUTF(fieldInfo.getName());
+                }
+            }
+
+            Collection<MethodInfo> methodInfos
+                    = classInfo.getMethodTable().getMethodInfos();
+            out.writeInt(methodInfos.size());
+            for (MethodInfo methodInfo : methodInfos) {
+                out.writeUTF(methodInfo.getName());
+                out.writeInt(methodInfo.getParamCount());
+                for (int i = 0; i < methodInfo.getParamCount(); i++) {
+                    out.writeUTF(methodInfo.getParamName(i));
+                }
+                out.writeBoolean(
+                        virtualMachine.getMethod(methodInfo).isPrimitive());
+            }
+        }
+
+        // code of the methods with a body, then of the main program
+        for (ClassInfo classInfo : classTable.getClassInfos()) {
+            for (MethodInfo methodInfo : classInfo.getMethodTable()
+                    .getMethodInfos()) {
+                BytecodeMethod method = virtualMachine.getMethod(methodInfo);
+                if (!method.isPrimitive()) {
+                    writeMethod(out, method);
+                }
+            }
+        }
+        writeMethod(out, virtualMachine.getMainMethod());
+        out.flush();
+
+        Manifest manifest = new Manifest();
+        Attributes attributes = manifest.getMainAttributes();
+        attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        attributes.put(Attributes.Name.MAIN_CLASS, "mino.vm.AotLoader");
+
+        JarOutputStream jar = new JarOutputStream(
+                new FileOutputStream(jarFileName), manifest);
+        try {
+            copyRuntimeLibrary(jar);
+            for (Map.Entry<String, byte[]> entry : this.classNameToBytesMap
+                    .entrySet()) {
+                writeEntry(jar, entry.getKey() + ".class", entry.getValue());
+            }
+            writeEntry(jar, "mino/vm/" + PROGRAM_RESOURCE,
+                    program.toByteArray());
+        }
+        finally {
+            jar.close();
+            this.classNameToBytesMap.clear();
+        }
+    }
+
+    private void writeMethod(
+            DataOutputStream out,
+            BytecodeMethod method)
+            throws IOException {
+
+        out.writeInt(method.getRegisterCount());
+        int[] code = method.getCode();
+        out.writeInt(code.length);
+        for (int word : code) {
+            out.writeInt(word);
+        }
+
+        Object[] pool = method.getConstants();
+        Map<Object, Integer> constantToIndexMap = new IdentityHashMap<>();
+        out.writeInt(pool.length);
+        for (int i = 0; i < pool.length; i++) {
+            writeConstant(out, pool[i]);
+            constantToIndexMap.put(pool[i], i);
+        }
+
+        // a method that exceeds the limits of JVM methods is interpreted
+        String className
+                = "mino/vm/CompiledMethod" + this.classNameToBytesMap.size();
+        byte[] classBytes = this.translator.translate(method, className);
+        if (classBytes == null) {
+            out.writeBoolean(false);
+            return;
+        }
+        this.classNameToBytesMap.put(className, classBytes);
+
+        List<Object> constants = this.translator.getConstants();
+        out.writeBoolean(true);
+        out.writeUTF(className);
+        out.writeInt(constants.size());
+        for (Object constant : constants) {
+            if (constant == JitCompiler.RuntimeConstant.RUNTIME) {
+                out.writeByte(RUNTIME_CONSTANT);
+            }
+            else if (constant == JitCompiler.RuntimeConstant.UNDEFINED) {
+                out.writeByte(UNDEFINED_CONSTANT);
+            }
+            else if (constant instanceof JitCompiler.Linkage) {
+                out.writeByte(LINKAGE_CONSTANT);
+                out.writeInt(constantToIndexMap
+                        .get(((JitCompiler.Linkage) constant).getCallSite()));
+            }
+            else {
+                out.writeByte(POOL_CONSTANT);
+                out.writeInt(constantToIndexMap.get(constant));
+            }
+        }
+    }
+
+    private void writeConstant(
+            DataOutputStream out,
+            Object constant)
+            throws IOException {
+
+        if (constant == null) {
+            out.writeByte(NULL);
+        }
+        else if (constant instanceof IntegerInstance) {
+            out.writeByte(INTEGER);
+            out.writeUTF(((IntegerInstance) constant).getDecimalValue());
+        }
+        else if (constant instanceof StringInstance) {
+            out.writeByte(STRING);
+            out.writeUTF(((StringInstance) constant).getValue());
+        }
+        else if (constant == this.booleanClassInfo.getTrue()) {
+            out.writeByte(TRUE);
+        }
+        else if (constant == this.booleanClassInfo.getFalse()) {
+            out.writeByte(FALSE);
+        }
+        else if (constant instanceof ClassInfo) {
+            out.writeByte(CLASS);
+            out.writeUTF(((ClassInfo) constant).getName());
+        }
+        else if (constant instanceof CallSite) {
+            CallSite callSite = (CallSite) constant;
+            out.writeByte(CALL_SITE);
+            writeSite(out, callSite);
+            out.writeInt(callSite.getInlineCache().getArgCount());
+            MethodInfo staticMethodInfo
+                    = callSite.getInlineCache().getStaticMethodInfoOrNull();
+            out.writeBoolean(staticMethodInfo != null);
+            if (staticMethodInfo != null) {
+                out.writeUTF(staticMethodInfo.getClassInfo().getName());
+            }
+        }
+        else if (constant instanceof FieldSite) {
+            FieldSite fieldSite = (FieldSite) constant;
+            out.writeByte(FIELD_SITE);
+            writeSite(out, fieldSite);
+            out.writeBoolean(fieldSite.getFieldInfoOrNull() != null);
+        }
+        else if (constant instanceof Site) {
+            out.writeByte(SITE);
+            writeSite(out, (Site) constant);
+        }
+        else if (constant instanceof String) {
+            out.writeByte(MESSAGE);
+            out.writeUTF((String) constant);
+        }
+        else {
+            // if this point is reached, there's a bug
+            throw new RuntimeException("unhandled case");
+        }
+    }
+
+    private static void writeSite(
+            DataOutputStream out,
+            Site site)
+            throws IOException {
+
+        out.writeUTF(site.getText());
+        out.writeInt(site.getLine());
+        out.writeInt(site.getPos());
+    }
+
+    // copies the classes of the runtime library from the directory or the
+    // JAR file of the interpreter
+    private static void copyRuntimeLibrary(
+            JarOutputStream jar)
+            throws IOException {
+
+        File source;
+        try {
+            source = new File(AotCompiler.class.getProtectionDomain()
+                    .getCodeSource().getLocation().toURI());
+        }
+        catch (URISyntaxException e) {
+            // if this point is reached, there's a bug
+            throw new RuntimeException(e);
+        }
+
+        if (source.isDirectory()) {
+            for (String packageName : RUNTIME_PACKAGES) {
+                File[] files = new File(source, packageName).listFiles();
+                if (files == null) {
+                    continue;
+                }
+                Arrays.sort(files);
+                for (File file : files) {
+                    if (file.isFile()) {
+                        InputStream in = new FileInputStream(file);
+                        try {
+                            writeEntry(jar, packageName + file.getName(),
+                                    in.readAllBytes());
+                        }
+                        finally {
+                            in.close();
+                        }
+                    }
+                }
+            }
+            return;
+        }
+
+        JarFile jarFile = new JarFile(source);
+        try {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                if (isRuntimeEntry(entry.getName())) {
+                    InputStream in = jarFile.getInputStream(entry);
+                    try {
+                        writeEntry(jar, entry.getName(), in.readAllBytes());
+                    }
+                    finally {
+                        in.close();
+                    }
+                }
+            }
+        }
+        finally {
+            jarFile.close();
+        }
+    }
+
+    private static boolean isRuntimeEntry(
+            String name) {
+
+        for (String packageName : RUNTIME_PACKAGES) {
+            if (name.startsWith(packageName)
+                    && name.indexOf('/', packageName.length()) < 0
+                    && name.length() > packageName.length()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static void writeEntry(
+            JarOutputStream jar,
+            String name,
+            byte[] bytes)
+            throws IOException {
+
+        jar.putNextEntry(new JarEntry(name));
+        jar.write(bytes);
+        jar.closeEntry();
+    }
+}
@@ -0,0 +1,350 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.vm;
+
+import java.io.*;
+import java.lang.invoke.*;
+import java.math.*;
+import java.util.*;
+
+import mino.exception.*;
+import mino.structure.*;
+
+/**
+ * Main class of a program compiled ahead of time. It declares the classes,
+ * fields and methods of the program, which was checked when it was
+ * compiled, loads the register machine code of the methods and their JVM
+ * classes, and runs the main program in the virtual machine.
+ */
+public final class AotLoader {
+
+    // constants of the compiled classes, until their initialization
+    private static final Map<String, Object[]> CLASS_NAME_TO_CONSTANTS_MAP
+            = new HashMap<>();
+
+    private final ClassTable classTable = new ClassTable();
+
+    private final List<BytecodeMethod> compiledMethods = new ArrayList<>();
+
+    private final List<String> compiledClassNames = new ArrayList<>();
+
+    private final List<Object[]> compiledConstants = new ArrayList<>();
+
+    private AotLoader() {
+    }
+
+    public static void main(
+            String[] args) {
+
+        boolean printStatistics = false;
+        int outputBufferSize = StandardOutput.DEFAULT_BUFFER_SIZE;
+
+        for (String arg : args) {
+            if (arg.equals("--stats")) {
+                printStatistics = true;
+            }
+            else if (arg.startsWith("--output-buffer=")) {
+                String size = arg.substring("--output-buffer=".length());
+                try {
+                    outputBufferSize = Integer.parseInt(size);
+                }
+                catch (NumberFormatException e) {
+                    outputBufferSize = 0;
+                }
+                if (outputBufferSize < 1) {
+                    System.err.println("COMMAND-LINE ERROR: invalid output "
+                            + "buffer size '" + size + "'.");
+                    System.exit(1);
+                }
+            }
+            else if (arg.startsWith("-")) {
+                System.err.println(
+                        "COMMAND-LINE ERROR: unknown option '" + arg + "'.");
+                System.exit(1);
+            }
+            else {
+                // the program is part of the JAR file
+                System.err.println("COMMAND-LINE ERROR: unexpected argument '"
+                        + arg + "'.");
+                System.exit(1);
+            }
+        }
+
+        StandardOutput standardOutput = new StandardOutput(outputBufferSize);
+        VirtualMachine virtualMachine
+                = new VirtualMachine(standardOutput, false);
+
+        try {
+            new AotLoader().load(virtualMachine, standardOutput);
+        }
+        catch (IOException e) {
+            System.err.println("INPUT ERROR: " + e.getMessage()
+                    + " while reading compiled program.");
+            System.exit(1);
+        }
+
+        int status = 0;
+        try {
+            virtualMachine.run();
+        }
+        catch (InterpreterException e) {
+            standardOutput.flush();
+            System.err.println("INTERPRETER ERROR: " + e.getMessage() + ".");
+            virtualMachine.printStackTrace();
+            status = 1;
+        }
+        finally {
+            standardOutput.flush();
+        }
+
+        if (standardOutput.getErrorOrNull() != null) {
+            System.err.println("OUTPUT ERROR: "
+                    + standardOutput.getErrorOrNull().getMessage()
+                    + " while writing standard output.");
+            status = 1;
+        }
+
+        if (printStatistics) {
+            virtualMachine.printStatistics();
+        }
+
+        System.exit(status);
+    }
+
+    /** Returns the constants of a class compiled ahead of time. */
+    static Object[] getConstants(
+            Class<?> compiledClass) {
+
+        synchronized (CLASS_NAME_TO_CONSTANTS_MAP) {
+            return CLASS_NAME_TO_CONSTANTS_MAP.remove(compiledClass.getName());
+        }
+    }
+
+    private void load(
+            VirtualMachine virtualMachine,
+            StandardOutput standardOutput)
+            throws IOException {
+
+        InputStream resource = AotLoader.class
+                .getResourceAsStream(AotCompiler.PROGRAM_RESOURCE);
+        if (resource == null) {
+            throw new FileNotFoundException(AotCompiler.PROGRAM_RESOURCE);
+        }
+        DataInputStream in
+                = new DataInputStream(new BufferedInputStream(resource));
+
+        try {
+            // declarations
+            List<MethodInfo> methodInfos = new ArrayList<>();
+            int classCount = in.readInt();
+            for (int i = 0; i < classCount; i++) {
+                String name = in.readUTF();
+                String superClassName = in.readUTF();
+                ClassInfo classInfo = this.classTable.add(name,
+                        this.classTable.getClassInfoOrNull(superClassName));
+
+                int fieldCount = in.readInt();
+                for (int j = 0; j < fieldCount; j++) {
+                    classInfo.getFieldTable().add(in.readUTF());
+                }
+
+                int methodCount = in.readInt();
+                for (int j = 0; j < methodCount; j++) {
+                    String methodName = in.readUTF();
+                    String[] paramNames = new String[in.readInt()];
+                    for (int k = 0; k < paramNames.length; k++) {
+                        paramNames[k] = in.readUTF();
+                    }
+                    methodInfos.add(classInfo.getMethodTable()
+                            .add(methodName, paramNames, in.readBoolean()));
+                }
+            }
+            this.classTable.buildVirtualTables();
+
+            // code
+            List<BytecodeMethod> methods = new ArrayList<>();
+            for (MethodInfo methodInfo : methodInfos) {
+                if (methodInfo instanceof NormalMethodInfo) {
+                    methods.add(readMethod(in, methodInfo,
+                            methodInfo.getClassInfo()));
+                }
+                else {
+                    methods.add(new BytecodeMethod(methodInfo,
+                            methodInfo.getVariableTable().getSlotCount(), null,
+                            null));
+                }
+            }
+            BytecodeMethod mainMethod = readMethod(in, null,
+                    this.classTable.getObjectClassInfoOrNull());
+
+            Primitives primitives = new Primitives(
+                    (IntegerClassInfo) this.classTable
+                            .getIntegerClassInfoOrNull(),
+                    (StringClassInfo) this.classTable
+                            .getStringClassInfoOrNull(),
+                    standardOutput);
+            virtualMachine.load(this.classTable, primitives, methods,
+                    mainMethod);
+        }
+        finally {
+            in.close();
+        }
+
+        linkCompiledMethods(virtualMachine.getJitRuntime());
+    }
+
+    private BytecodeMethod readMethod(
+            DataInputStream in,
+            MethodInfo methodInfo,
+            ClassInfo classInfo)
+            throws IOException {
+
+        int registerCount = in.readInt();
+        int[] code = new int[in.readInt()];
+        for (int i = 0; i < code.length; i++) {
+            code[i] = in.readInt();
+        }
+
+        Object[] pool = new Object[in.readInt()];
+        for (int i = 0; i < pool.length; i++) {
+            pool[i] = readConstant(in, classInfo);
+        }
+
+        BytecodeMethod method
+                = new BytecodeMethod(methodInfo, registerCount, code, pool);
+
+        if (in.readBoolean()) {
+            String className = in.readUTF();
+            Object[] constants = new Object[in.readInt()];
+            for (int i = 0; i < constants.length; i++) {
+                int tag = in.readByte();
+                if (tag == AotCompiler.RUNTIME_CONSTANT) {
+                    constants[i] = JitCompiler.RuntimeConstant.RUNTIME;
+                }
+                else if (tag == AotCompiler.UNDEFINED_CONSTANT) {
+                    constants[i] = JitCompiler.RuntimeConstant.UNDEFINED;
+                }
+                else if (tag == AotCompiler.LINKAGE_CONSTANT) {
+                    constants[i] = new JitCompiler.Linkage(
+                            (CallSite) pool[in.readInt()]);
+                }
+                else {
+                    constants[i] = pool[in.readInt()];
+                }
+            }
+
+            this.compiledMethods.add(method);
+            this.compiledClassNames.add(className);
+            this.compiledConstants.add(constants);
+        }
+
+        return method;
+    }
+
+    // reads a constant of the code of a method of the given class
+    private Object readConstant(
+            DataInputStream in,
+            ClassInfo classInfo)
+            throws IOException {
+
+        int tag = in.readByte();
+        switch (tag) {
+        case AotCompiler.NULL:
+            return null;
+        case AotCompiler.INTEGER:
+            return ((IntegerClassInfo) this.classTable
+                    .getIntegerClassInfoOrNull())
+                            .newInteger(new BigInteger(in.readUTF()));
+        case AotCompiler.STRING:
+            return ((StringClassInfo) this.classTable
+                    .getStringClassInfoOrNull()).newString(in.readUTF());
+        case AotCompiler.TRUE:
+            return ((BooleanClassInfo) this.classTable
+                    .getBooleanClassInfoOrNull()).getTrue();
+        case AotCompiler.FALSE:
+            return ((BooleanClassInfo) this.classTable
+                    .getBooleanClassInfoOrNull()).getFalse();
+        case AotCompiler.CLASS:
+            return this.classTable.getClassInfoOrNull(in.readUTF());
+        case AotCompiler.SITE:
+            return new Site(in.readUTF(), in.readInt(), in.readInt());
+        case AotCompiler.CALL_SITE: {
+            String name = in.readUTF();
+            int line = in.readInt();
+            int pos = in.readInt();
+            int selector = this.classTable.getSelector(name);
+            int argCount = in.readInt();
+            MethodInfo staticMethodInfo = null;
+            if (in.readBoolean()) {
+                // the call site was bound to the method of this class
+                staticMethodInfo = this.classTable
+                        .getClassInfoOrNull(in.readUTF()).getMethodTable()
+                        .getMethodInfoOrNull(selector);
+            }
+            InlineCache inlineCache = new InlineCache(name, line, pos,
+                    selector, argCount, staticMethodInfo);
+            return new CallSite(name, line, pos, inlineCache);
+        }
+        case AotCompiler.FIELD_SITE: {
+            String name = in.readUTF();
+            int line = in.readInt();
+            int pos = in.readInt();
+            FieldInfo fieldInfo = null;
+            if (in.readBoolean()) {
+                // the field was found in the class of the method
+                fieldInfo = classInfo.getFieldTable().getFieldInfoOrNull(name);
+            }
+            return new FieldSite(name, line, pos, fieldInfo);
+        }
+        case AotCompiler.MESSAGE:
+            return in.readUTF();
+        default:
+            throw new IOException("invalid constant");
+        }
+    }
+
+    // loads the classes of the compiled methods, which get their constants
+    // when they are initialized
+    private void linkCompiledMethods(
+            JitRuntime runtime) {
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        for (int i = 0; i < this.compiledMethods.size(); i++) {
+            String className = this.compiledClassNames.get(i).replace('/', '.');
+            Object[] constants = this.compiledConstants.get(i);
+            for (int j = 0; j < constants.length; j++) {
+                constants[j] = runtime.resolveConstant(constants[j]);
+            }
+
+            synchronized (CLASS_NAME_TO_CONSTANTS_MAP) {
+                CLASS_NAME_TO_CONSTANTS_MAP.put(className, constants);
+            }
+
+            try {
+                Class<?> compiledClass = Class.forName(className, true,
+                        AotLoader.class.getClassLoader());
+                runtime.setCompiledCode(this.compiledMethods.get(i),
+                        lookup.findStatic(compiledClass, "run",
+                                JitCompiler.CODE_TYPE));
+            }
+            catch (ReflectiveOperationException e) {
+                // if this point is reached, there's a bug
+                throw new RuntimeException(e);
+            }
+        }
+    }
+}
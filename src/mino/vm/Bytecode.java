@@ -0,0 +1,141 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.vm;
+
+/**
+ * Instruction set of the virtual machine. Code is an array of ints, each
+ * opcode being followed by its operands: destination registers (d), source
+ * registers (a, b), constant pool indexes (k) and code offsets (t). The
+ * registers of a method are the slots of its frame: its variables, the
+ * parameters first, then temporaries.
+ */
+final class Bytecode {
+
+    // d = k
+    static final int CONST = 0;
+
+    // d = self
+    static final int SELF = 1;
+
+    // d = a
+    static final int MOVE = 2;
+
+    // reports variable a as unknown, at site k, if it is unassigned
+    static final int CHECK_VAR = 3;
+
+    // d = self.field; k is a field site
+    static final int GET_FIELD = 4;
+
+    // self.field = a; k is a field site
+    static final int PUT_FIELD = 5;
+
+    // d = new k; k is a class
+    static final int NEW = 6;
+
+    // d = a is b
+    static final int IS = 7;
+
+    // d = a isa k; k is a class
+    static final int ISA = 8;
+
+    // d = !a; k is the site of the operator
+    static final int NOT = 9;
+
+    // goto t
+    static final int JUMP = 10;
+
+    // if a is false, goto t; k is the site of the condition
+    static final int JUMP_IF_FALSE = 11;
+
+    // d = a == b; k is a call site
+    static final int EQ = 12;
+
+    // d = a + b; k is a call site
+    static final int ADD = 13;
+
+    // pushes the frame of a call to a method of receiver a; k is a call site
+    static final int PREPARE = 14;
+
+    // pushes the frame of a call to a method of self; k is a call site
+    static final int PREPARE_SELF = 15;
+
+    // d = call of the prepared frame, with the arguments in registers a to
+    // a + n - 1; k is a call site
+    static final int CALL = 16;
+
+    // returns a
+    static final int RETURN = 17;
+
+    // returns null
+    static final int RETURN_NULL = 18;
+
+    // throws message k1 at site k2
+    static final int FAIL = 19;
+
+    // ends the main program
+    static final int HALT = 20;
+
+    // superinstructions, which fuse common sequences of instructions
+
+    // d = a + k1; k2 is a call site
+    static final int ADD_CONST = 21;
+
+    // d = self.field + k2; k1 is a field site, k3 a call site
+    static final int ADD_FIELD_CONST = 22;
+
+    // if a is true, goto t; k is the site of the ! operator
+    static final int JUMP_IF_TRUE = 23;
+
+    // d = call of a method of receiver a without arguments; k is a call site
+    static final int INVOKE = 24;
+
+    // guarded operators, which compute loop invariants before the loop
+
+    // d = a + b if the addition has no effect and cannot fail, otherwise
+    // d = null and register f = false
+    static final int TRY_ADD = 25;
+
+    // d = a == b if the comparison has no effect and cannot fail, otherwise
+    // d = null and register f = false
+    static final int TRY_EQ = 26;
+
+    // number of ints of each instruction, indexed by opcode
+    private static final int[] SIZES = { 3, 2, 3, 3, 3, 3, 3, 4, 4, 4, 2, 4, 5,
+            5, 3, 2, 5, 2, 1, 3, 1, 5, 5, 4, 4, 5, 5 };
+
+    // whether the first operand of each instruction is a destination
+    // register, indexed by opcode
+    private static final boolean[] DESTINATIONS = { true, true, true, false,
+            true, false, true, true, true, true, false, false, true, true,
+            false, false, true, false, false, false, false, true, true, false,
+            true, true, true };
+
+    private Bytecode() {
+    }
+
+    static int getSize(
+            int opcode) {
+
+        return SIZES[opcode];
+    }
+
+    static boolean hasDestination(
+            int opcode) {
+
+        return DESTINATIONS[opcode];
+    }
+}
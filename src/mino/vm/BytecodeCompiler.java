@@ -0,0 +1,900 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.vm;
+
+import java.util.*;
+
+import mino.language_mino.*;
+import mino.structure.*;
+import mino.walker.*;
+
+/**
+ * Compiler of method bodies into register machine code. Variables live in
+ * their own registers and are used in place once they are known to be
+ * assigned; intermediate values use temporary registers above them. Common
+ * shapes of expressions and conditions are compiled into superinstructions,
+ * and the number of each is counted for the statistics.
+ * <p>
+ * The compiler also optimizes the code, as the FlowAnalyzer allows.
+ * Expressions whose value is known are compiled into loads of this value,
+ * branches that cannot be taken are left out, as are assignments that have
+ * no effect, and the constants and self used in a loop are loaded into
+ * registers before it. The invariant expressions of a loop are also computed
+ * before it; guarded expressions are computed there with the TRY_ADD and
+ * TRY_EQ instructions, and the loop computes them as usual when the guard
+ * failed.
+ */
+class BytecodeCompiler
+        extends Walker {
+
+    private final Resolver resolver;
+
+    private final ClassTable classTable;
+
+    private final BooleanClassInfo booleanClassInfo;
+
+    private final FlowAnalyzer flowAnalyzer;
+
+    private int[] code;
+
+    private int codeSize;
+
+    private List<Object> constants;
+
+    private Map<Object, Integer> constantToIndexMap;
+
+    private boolean main;
+
+    private int variableCount;
+
+    private int nextRegister;
+
+    private int registerCount;
+
+    // registers that hold the constants and self during the current loops
+    private Map<Object, Integer> invariantToRegisterMap;
+
+    // registers that hold the expressions computed before the current
+    // loops, each with the register of its guard, or -1 if it has none
+    private Map<Node, int[]> hoistedToRegistersMap;
+
+    // register of the guard of the expression computed before a loop, or -1
+    private int guard;
+
+    // offset of the destination operand of the last instruction, if it
+    // writes a register
+    private int lastDestination;
+
+    private List<NExp> arguments;
+
+    private int register;
+
+    private final Map<String, Integer> superinstructionCounts
+            = new LinkedHashMap<>();
+
+    private final Map<String, Integer> optimizationCounts
+            = new LinkedHashMap<>();
+
+    BytecodeCompiler(
+            Program program) {
+
+        this.resolver = program.getResolver();
+        this.classTable = program.getClassTable();
+        this.booleanClassInfo = program.getBooleanClassInfo();
+        this.flowAnalyzer = new FlowAnalyzer(program,
+                new ConstantFolder(program,
+                        new PureOperators(program.getClassTable(),
+                                program.getPrimitives())));
+
+        for (String name : new String[] { "ADD_CONST", "ADD_FIELD_CONST",
+                "JUMP_IF_TRUE", "INVOKE" }) {
+            this.superinstructionCounts.put(name, 0);
+        }
+        for (String name : new String[] { "folded expressions",
+                "dead branches", "dead stores", "hoisted invariants" }) {
+            this.optimizationCounts.put(name, 0);
+        }
+    }
+
+    /** Returns the number of superinstructions of each kind. */
+    Map<String, Integer> getSuperinstructionCounts() {
+
+        return Collections.unmodifiableMap(this.superinstructionCounts);
+    }
+
+    /** Returns the number of optimizations of each kind. */
+    Map<String, Integer> getOptimizationCounts() {
+
+        return Collections.unmodifiableMap(this.optimizationCounts);
+    }
+
+    BytecodeMethod compile(
+            MethodInfo methodInfo,
+            NStms stms,
+            VariableTable variableTable) {
+
+        this.code = new int[64];
+        this.codeSize = 0;
+        this.constants = new ArrayList<>();
+        this.constantToIndexMap = new IdentityHashMap<>();
+        this.main = methodInfo == null;
+        this.variableCount = variableTable.getSlotCount();
+        this.nextRegister = this.variableCount;
+        this.registerCount = this.variableCount;
+        this.invariantToRegisterMap = new IdentityHashMap<>();
+        this.hoistedToRegistersMap = new IdentityHashMap<>();
+        this.guard = -1;
+        this.lastDestination = -1;
+
+        int paramCount = 0;
+        if (methodInfo != null) {
+            paramCount = methodInfo.getParamCount();
+        }
+        this.flowAnalyzer.analyze(stms, paramCount, this.variableCount);
+
+        visit(stms);
+        if (this.main) {
+            emit(Bytecode.HALT);
+        }
+        else {
+            emit(Bytecode.RETURN_NULL);
+        }
+
+        BytecodeMethod method = new BytecodeMethod(methodInfo,
+                this.registerCount, Arrays.copyOf(this.code, this.codeSize),
+                this.constants.toArray());
+        this.code = null;
+        this.constants = null;
+        this.constantToIndexMap = null;
+        this.invariantToRegisterMap = null;
+        this.hoistedToRegistersMap = null;
+        this.flowAnalyzer.clear();
+        return method;
+    }
+
+    private void visit(
+            Node node) {
+
+        node.apply(this);
+    }
+
+    private int compileExp(
+            Node node) {
+
+        visit(node);
+        return this.register;
+    }
+
+    private void compileInto(
+            Node node,
+            int destination) {
+
+        int register = compileExp(node);
+        if (register == destination) {
+            return;
+        }
+
+        if (register >= this.variableCount && this.lastDestination >= 0
+                && this.code[this.lastDestination] == register) {
+            // the value was just computed in a temporary register
+            this.code[this.lastDestination] = destination;
+        }
+        else {
+            emit(Bytecode.MOVE, destination, register);
+            this.lastDestination = -1;
+        }
+    }
+
+    private int allocate() {
+
+        int register = this.nextRegister++;
+        if (this.nextRegister > this.registerCount) {
+            this.registerCount = this.nextRegister;
+        }
+
+        return register;
+    }
+
+    private int getConstant(
+            Object value) {
+
+        Integer index = this.constantToIndexMap.get(value);
+        if (index == null) {
+            index = this.constants.size();
+            this.constants.add(value);
+            this.constantToIndexMap.put(value, index);
+        }
+
+        return index;
+    }
+
+    private void emit(
+            int... words) {
+
+        int size = this.codeSize + words.length;
+        if (size > this.code.length) {
+            this.code = Arrays.copyOf(this.code,
+                    Math.max(this.code.length * 2, size));
+        }
+
+        System.arraycopy(words, 0, this.code, this.codeSize, words.length);
+        this.codeSize += words.length;
+        this.lastDestination = -1;
+    }
+
+    // emits an instruction whose first operand is its destination register,
+    // and returns that register
+    private int emitValue(
+            int... words) {
+
+        emit(words);
+        this.lastDestination = this.codeSize - words.length + 1;
+        this.register = words[1];
+        return words[1];
+    }
+
+    private void emitFail(
+            String message,
+            Token location) {
+
+        emit(Bytecode.FAIL, getConstant(message),
+                getConstant(new Site(location)));
+    }
+
+    private void countSuperinstruction(
+            String name) {
+
+        this.superinstructionCounts.put(name,
+                this.superinstructionCounts.get(name) + 1);
+    }
+
+    private void countOptimization(
+            String name) {
+
+        this.optimizationCounts.put(name,
+                this.optimizationCounts.get(name) + 1);
+    }
+
+    private Object getValue(
+            Node node) {
+
+        return this.flowAnalyzer.getValue(node);
+    }
+
+    // compiles an expression whose value is known into a load of the value,
+    // and returns whether it did
+    private boolean compileFolded(
+            Node node) {
+
+        Object value = getValue(node);
+        if (value == ConstantFolder.NOT_CONSTANT) {
+            return false;
+        }
+
+        compileConstant(value);
+        countOptimization("folded expressions");
+        return true;
+    }
+
+    private void compileConstant(
+            Object value) {
+
+        Integer register = this.invariantToRegisterMap.get(value);
+        if (register != null) {
+            this.register = register;
+            this.lastDestination = -1;
+            return;
+        }
+
+        emitValue(Bytecode.CONST, allocate(), getConstant(value));
+    }
+
+    // loads the constants and self that a loop uses into registers that are
+    // reserved until its end, unless they already are in registers
+    private void hoistInvariants(
+            NStm_While node) {
+
+        for (Object invariant : this.flowAnalyzer.getInvariants(node)) {
+            if (this.invariantToRegisterMap.containsKey(invariant)) {
+                continue;
+            }
+
+            int register = allocate();
+            if (invariant == FlowAnalyzer.SELF) {
+                emit(Bytecode.SELF, register);
+            }
+            else {
+                emit(Bytecode.CONST, register, getConstant(invariant));
+            }
+            this.invariantToRegisterMap.put(invariant, register);
+        }
+    }
+
+    // computes the expressions of a loop that do not change in it into
+    // registers that are reserved until its end
+    private void hoistExpressions(
+            NStm_While node) {
+
+        for (Node expression
+                : this.flowAnalyzer.getInvariantExpressions(node)) {
+            int register = allocate();
+            int guard = -1;
+            if (this.flowAnalyzer.isGuarded(expression)) {
+                guard = allocate();
+                emit(Bytecode.CONST, guard,
+                        getConstant(this.booleanClassInfo.getTrue()));
+            }
+
+            int mark = this.nextRegister;
+            this.guard = guard;
+            compileInto(expression, register);
+            this.guard = -1;
+            this.nextRegister = mark;
+
+            this.hoistedToRegistersMap.put(expression,
+                    new int[] { register, guard });
+            countOptimization("hoisted invariants");
+        }
+    }
+
+    // compiles an expression computed before the loop into the register
+    // that holds it, and returns whether it was; the expression is computed
+    // here when its guard failed
+    private boolean compileHoisted(
+            Node node,
+            Token location) {
+
+        int[] registers = this.hoistedToRegistersMap.get(node);
+        if (registers == null) {
+            return false;
+        }
+
+        if (registers[1] >= 0) {
+            emit(Bytecode.JUMP_IF_TRUE, registers[1], -1,
+                    getConstant(new Site(location)));
+            int jump = this.codeSize - 2;
+            this.hoistedToRegistersMap.remove(node);
+            int mark = this.nextRegister;
+            compileInto(node, registers[0]);
+            this.nextRegister = mark;
+            this.hoistedToRegistersMap.put(node, registers);
+            this.code[jump] = this.codeSize;
+        }
+
+        this.register = registers[0];
+        this.lastDestination = -1;
+        return true;
+    }
+
+    // returns the operand of an expression without operator, or null
+    private static NLeftUnaryExp getLeftUnaryExpOrNull(
+            NExp exp) {
+
+        if (!(exp instanceof NExp_Simple)) {
+            return null;
+        }
+        NAddExp addExp = ((NExp_Simple) exp).get_AddExp();
+        if (!(addExp instanceof NAddExp_Simple)) {
+            return null;
+        }
+
+        return ((NAddExp_Simple) addExp).get_LeftUnaryExp();
+    }
+
+    // returns the term of an operand, without parentheses, or null if the
+    // operand has an operator or is a call
+    private static NTerm getTermOrNull(
+            NLeftUnaryExp leftUnaryExp) {
+
+        if (!(leftUnaryExp instanceof NLeftUnaryExp_Simple)) {
+            return null;
+        }
+        NRightUnaryExp rightUnaryExp
+                = ((NLeftUnaryExp_Simple) leftUnaryExp).get_RightUnaryExp();
+        if (!(rightUnaryExp instanceof NRightUnaryExp_Simple)) {
+            return null;
+        }
+        NTerm term = ((NRightUnaryExp_Simple) rightUnaryExp).get_Term();
+        if (term instanceof NTerm_Par) {
+            NLeftUnaryExp inner
+                    = getLeftUnaryExpOrNull(((NTerm_Par) term).get_Exp());
+            if (inner == null) {
+                return null;
+            }
+            return getTermOrNull(inner);
+        }
+
+        return term;
+    }
+
+    // returns the offset of the target of the jump taken when the condition
+    // is false
+    private int compileCondition(
+            NExp exp,
+            Token location) {
+
+        int mark = this.nextRegister;
+        NLeftUnaryExp leftUnaryExp = getLeftUnaryExpOrNull(exp);
+        if (leftUnaryExp instanceof NLeftUnaryExp_Not
+                && !this.hoistedToRegistersMap.containsKey(leftUnaryExp)) {
+            // the negation is a jump taken when the operand is true
+            NLeftUnaryExp_Not not = (NLeftUnaryExp_Not) leftUnaryExp;
+            int operand = compileExp(not.get_LeftUnaryExp());
+            this.nextRegister = mark;
+            emit(Bytecode.JUMP_IF_TRUE, operand, -1,
+                    getConstant(new Site(not.get_Not())));
+            countSuperinstruction("JUMP_IF_TRUE");
+            return this.codeSize - 2;
+        }
+
+        int condition = compileExp(exp);
+        this.nextRegister = mark;
+        emit(Bytecode.JUMP_IF_FALSE, condition, -1,
+                getConstant(new Site(location)));
+        return this.codeSize - 2;
+    }
+
+    // the receiver is self when it is negative; registers above mark are
+    // free once the call is prepared
+    private void compileInvocation(
+            int mark,
+            int receiver,
+            CallSite callSite,
+            NExpListOpt node) {
+
+        List<NExp> arguments = this.arguments;
+        this.arguments = new ArrayList<>();
+        visit(node);
+        List<NExp> argumentNodes = this.arguments;
+        this.arguments = arguments;
+
+        if (receiver >= 0 && argumentNodes.isEmpty()) {
+            this.nextRegister = mark;
+            emitValue(Bytecode.INVOKE, allocate(), receiver,
+                    getConstant(callSite));
+            countSuperinstruction("INVOKE");
+            return;
+        }
+
+        if (receiver < 0) {
+            emit(Bytecode.PREPARE_SELF, getConstant(callSite));
+        }
+        else {
+            emit(Bytecode.PREPARE, receiver, getConstant(callSite));
+        }
+
+        // arguments are passed in consecutive registers
+        int first = this.nextRegister;
+        for (int i = 0; i < argumentNodes.size(); i++) {
+            allocate();
+        }
+        for (int i = 0; i < argumentNodes.size(); i++) {
+            compileInto(argumentNodes.get(i), first + i);
+            this.nextRegister = first + argumentNodes.size();
+        }
+
+        this.nextRegister = mark;
+        emitValue(Bytecode.CALL, allocate(), first, argumentNodes.size(),
+                getConstant(callSite));
+    }
+
+    @Override
+    public void caseStm_VarAssign(
+            NStm_VarAssign node) {
+
+        if (this.flowAnalyzer.isDeadStore(node)) {
+            countOptimization("dead stores");
+            return;
+        }
+
+        int mark = this.nextRegister;
+        compileInto(node.get_Exp(), this.resolver.getSlot(node.get_Id()));
+        this.nextRegister = mark;
+    }
+
+    @Override
+    public void caseStm_FieldAssign(
+            NStm_FieldAssign node) {
+
+        int mark = this.nextRegister;
+        int value = compileExp(node.get_Exp());
+        this.nextRegister = mark;
+        FieldSite fieldSite = new FieldSite(node.get_FieldName(),
+                this.resolver.getFieldInfoOrNull(node.get_FieldName()));
+        emit(Bytecode.PUT_FIELD, value, getConstant(fieldSite));
+    }
+
+    @Override
+    public void caseStm_While(
+            NStm_While node) {
+
+        Object condition = getValue(node.get_Exp());
+        if (condition == this.booleanClassInfo.getFalse()) {
+            countOptimization("dead branches");
+            return;
+        }
+        boolean alwaysTrue = condition == this.booleanClassInfo.getTrue();
+
+        int mark = this.nextRegister;
+        Map<Object, Integer> invariantToRegisterMap
+                = new IdentityHashMap<>(this.invariantToRegisterMap);
+        Map<Node, int[]> hoistedToRegistersMap
+                = new IdentityHashMap<>(this.hoistedToRegistersMap);
+        hoistExpressions(node);
+        hoistInvariants(node);
+
+        int start = this.codeSize;
+        int exitJump = -1;
+        if (alwaysTrue) {
+            countOptimization("dead branches");
+        }
+        else {
+            exitJump = compileCondition(node.get_Exp(), node.get_LPar());
+        }
+
+        visit(node.get_Stms());
+        emit(Bytecode.JUMP, start);
+        if (exitJump >= 0) {
+            this.code[exitJump] = this.codeSize;
+        }
+
+        this.invariantToRegisterMap = invariantToRegisterMap;
+        this.hoistedToRegistersMap = hoistedToRegistersMap;
+        this.nextRegister = mark;
+    }
+
+    @Override
+    public void caseStm_If(
+            NStm_If node) {
+
+        Object condition = getValue(node.get_Exp());
+        if (condition == this.booleanClassInfo.getTrue()) {
+            countOptimization("dead branches");
+            visit(node.get_Stms());
+            return;
+        }
+        if (condition == this.booleanClassInfo.getFalse()) {
+            countOptimization("dead branches");
+            if (node.get_ElseOpt() instanceof NElseOpt_One) {
+                visit(((NElseOpt_One) node.get_ElseOpt()).get_Else()
+                        .get_Stms());
+            }
+            return;
+        }
+
+        int elseJump = compileCondition(node.get_Exp(), node.get_LPar());
+        visit(node.get_Stms());
+
+        if (node.get_ElseOpt() instanceof NElseOpt_One) {
+            emit(Bytecode.JUMP, -1);
+            int endJump = this.codeSize - 1;
+            this.code[elseJump] = this.codeSize;
+            visit(((NElseOpt_One) node.get_ElseOpt()).get_Else().get_Stms());
+            this.code[endJump] = this.codeSize;
+        }
+        else {
+            this.code[elseJump] = this.codeSize;
+        }
+    }
+
+    @Override
+    public void caseStm_Return(
+            NStm_Return node) {
+
+        if (this.main) {
+            emitFail("return statement is not allowed in main program",
+                    node.get_ReturnKwd());
+            return;
+        }
+
+        if (node.get_ExpOpt() instanceof NExpOpt_One) {
+            int mark = this.nextRegister;
+            int value
+                    = compileExp(((NExpOpt_One) node.get_ExpOpt()).get_Exp());
+            this.nextRegister = mark;
+            emit(Bytecode.RETURN, value);
+        }
+        else {
+            emit(Bytecode.RETURN_NULL);
+        }
+    }
+
+    @Override
+    public void caseStm_Call(
+            NStm_Call node) {
+
+        int mark = this.nextRegister;
+        compileExp(node.get_Call());
+        this.nextRegister = mark;
+    }
+
+    @Override
+    public void caseStm_SelfCall(
+            NStm_SelfCall node) {
+
+        int mark = this.nextRegister;
+        compileExp(node.get_SelfCall());
+        this.nextRegister = mark;
+    }
+
+    @Override
+    public void caseExp_Is(
+            NExp_Is node) {
+
+        if (compileFolded(node) || compileHoisted(node, node.get_IsKwd())) {
+            return;
+        }
+
+        int mark = this.nextRegister;
+        int left = compileExp(node.get_Exp());
+        int right = compileExp(node.get_AddExp());
+        this.nextRegister = mark;
+        emitValue(Bytecode.IS, allocate(), left, right);
+    }
+
+    @Override
+    public void caseExp_Eq(
+            NExp_Eq node) {
+
+        if (compileFolded(node) || compileHoisted(node, node.get_Eq())) {
+            return;
+        }
+
+        int mark = this.nextRegister;
+        int left = compileExp(node.get_Exp());
+        int right = compileExp(node.get_AddExp());
+        this.nextRegister = mark;
+        if (this.guard >= 0) {
+            emitValue(Bytecode.TRY_EQ, allocate(), this.guard, left, right);
+            return;
+        }
+
+        CallSite callSite = new CallSite(node.get_Eq(),
+                this.resolver.getInlineCache(node));
+        emitValue(Bytecode.EQ, allocate(), left, right,
+                getConstant(callSite));
+    }
+
+    @Override
+    public void caseExp_Isa(
+            NExp_Isa node) {
+
+        if (compileFolded(node) || compileHoisted(node, node.get_IsaKwd())) {
+            return;
+        }
+
+        int mark = this.nextRegister;
+        int left = compileExp(node.get_Exp());
+        this.nextRegister = mark;
+
+        ClassInfo classInfo = this.resolver.getClassInfoOrNull(node);
+        if (classInfo == null) {
+            NClassName className = node.get_ClassName();
+            emitFail("class " + className.getText()
+                    + " has not yet been defined", className);
+            this.register = left;
+            return;
+        }
+
+        emitValue(Bytecode.ISA, allocate(), left, getConstant(classInfo));
+    }
+
+    @Override
+    public void caseAddExp_Add(
+            NAddExp_Add node) {
+
+        if (compileFolded(node) || compileHoisted(node, node.get_Plus())) {
+            return;
+        }
+
+        if (this.guard >= 0) {
+            int mark = this.nextRegister;
+            int left = compileExp(node.get_AddExp());
+            int right = compileExp(node.get_LeftUnaryExp());
+            this.nextRegister = mark;
+            emitValue(Bytecode.TRY_ADD, allocate(), this.guard, left, right);
+            return;
+        }
+
+        // a right operand whose value is a known integer or string is a
+        // constant of the addition
+        Object constant = getValue(node.get_LeftUnaryExp());
+        if (constant instanceof IntegerInstance
+                || constant instanceof StringInstance) {
+            int literal = getConstant(constant);
+            CallSite callSite = new CallSite(node.get_Plus(),
+                    this.resolver.getInlineCache(node));
+
+            NTerm leftTerm = null;
+            if (node.get_AddExp() instanceof NAddExp_Simple) {
+                NAddExp_Simple addExp = (NAddExp_Simple) node.get_AddExp();
+                leftTerm = getTermOrNull(addExp.get_LeftUnaryExp());
+            }
+            if (leftTerm instanceof NTerm_Field) {
+                NFieldName fieldName = ((NTerm_Field) leftTerm).get_FieldName();
+                FieldSite fieldSite = new FieldSite(fieldName,
+                        this.resolver.getFieldInfoOrNull(fieldName));
+                emitValue(Bytecode.ADD_FIELD_CONST, allocate(),
+                        getConstant(fieldSite), literal, getConstant(callSite));
+                countSuperinstruction("ADD_FIELD_CONST");
+                return;
+            }
+
+            int mark = this.nextRegister;
+            int register = compileExp(node.get_AddExp());
+            this.nextRegister = mark;
+            emitValue(Bytecode.ADD_CONST, allocate(), register, literal,
+                    getConstant(callSite));
+            countSuperinstruction("ADD_CONST");
+            return;
+        }
+
+        int mark = this.nextRegister;
+        int left = compileExp(node.get_AddExp());
+        int right = compileExp(node.get_LeftUnaryExp());
+        this.nextRegister = mark;
+        CallSite callSite = new CallSite(node.get_Plus(),
+                this.resolver.getInlineCache(node));
+        emitValue(Bytecode.ADD, allocate(), left, right,
+                getConstant(callSite));
+    }
+
+    @Override
+    public void caseLeftUnaryExp_Not(
+            NLeftUnaryExp_Not node) {
+
+        if (compileFolded(node) || compileHoisted(node, node.get_Not())) {
+            return;
+        }
+
+        int mark = this.nextRegister;
+        int value = compileExp(node.get_LeftUnaryExp());
+        this.nextRegister = mark;
+        emitValue(Bytecode.NOT, allocate(), value,
+                getConstant(new Site(node.get_Not())));
+    }
+
+    @Override
+    public void caseTerm_New(
+            NTerm_New node) {
+
+        ClassInfo classInfo = this.resolver.getClassInfoOrNull(node);
+        if (classInfo == null) {
+            NClassName className = node.get_ClassName();
+            if (this.classTable
+                    .getClassInfoOrNull(className.getText()) == null) {
+                emitFail("class " + className.getText()
+                        + " has not yet been defined", className);
+            }
+            else {
+                emitFail("invalid use of new operator", node.get_NewKwd());
+            }
+            this.register = allocate();
+            return;
+        }
+
+        emitValue(Bytecode.NEW, allocate(), getConstant(classInfo));
+    }
+
+    @Override
+    public void caseTerm_Field(
+            NTerm_Field node) {
+
+        FieldSite fieldSite = new FieldSite(node.get_FieldName(),
+                this.resolver.getFieldInfoOrNull(node.get_FieldName()));
+        emitValue(Bytecode.GET_FIELD, allocate(), getConstant(fieldSite));
+    }
+
+    @Override
+    public void caseTerm_Var(
+            NTerm_Var node) {
+
+        int slot = this.resolver.getSlot(node.get_Id());
+        if (this.flowAnalyzer.isChecked(node)) {
+            emit(Bytecode.CHECK_VAR, slot,
+                    getConstant(new Site(node.get_Id())));
+        }
+
+        this.register = slot;
+    }
+
+    @Override
+    public void caseTerm_Num(
+            NTerm_Num node) {
+
+        compileConstant(this.resolver.getLiteralInstance(node));
+    }
+
+    @Override
+    public void caseTerm_Null(
+            NTerm_Null node) {
+
+        compileConstant(null);
+    }
+
+    @Override
+    public void caseTerm_Self(
+            NTerm_Self node) {
+
+        Integer register
+                = this.invariantToRegisterMap.get(FlowAnalyzer.SELF);
+        if (register != null) {
+            this.register = register;
+            this.lastDestination = -1;
+            return;
+        }
+
+        emitValue(Bytecode.SELF, allocate());
+    }
+
+    @Override
+    public void caseTerm_True(
+            NTerm_True node) {
+
+        compileConstant(this.booleanClassInfo.getTrue());
+    }
+
+    @Override
+    public void caseTerm_False(
+            NTerm_False node) {
+
+        compileConstant(this.booleanClassInfo.getFalse());
+    }
+
+    @Override
+    public void caseTerm_String(
+            NTerm_String node) {
+
+        compileConstant(this.resolver.getLiteralInstance(node));
+    }
+
+    @Override
+    public void caseCall(
+            NCall node) {
+
+        int mark = this.nextRegister;
+        int receiver = compileExp(node.get_RightUnaryExp());
+        CallSite callSite = new CallSite(node.get_Id(),
+                this.resolver.getInlineCache(node));
+        compileInvocation(mark, receiver, callSite, node.get_ExpListOpt());
+    }
+
+    @Override
+    public void caseSelfCall(
+            NSelfCall node) {
+
+        CallSite callSite = new CallSite(node.get_Id(),
+                this.resolver.getInlineCache(node));
+        compileInvocation(this.nextRegister, -1, callSite,
+                node.get_ExpListOpt());
+    }
+
+    @Override
+    public void caseExpList(
+            NExpList node) {
+
+        this.arguments.add(node.get_Exp());
+        visit(node.get_AdditionalExps());
+    }
+
+    @Override
+    public void caseAdditionalExp(
+            NAdditionalExp node) {
+
+        this.arguments.add(node.get_Exp());
+    }
+}
@@ -0,0 +1,112 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.vm;
+
+import java.lang.invoke.*;
+
+import mino.structure.*;
+
+/**
+ * Compiled form of a method or of the main program. It holds no syntax
+ * tree node: errors are reported from the sites of its constant pool.
+ * Primitive methods have no code.
+ */
+class BytecodeMethod {
+
+    private final MethodInfo methodInfo;
+
+    private final int registerCount;
+
+    private final int[] code;
+
+    private final Object[] constants;
+
+    // JVM code of the method once it is hot, as handles that run a call and
+    // that start at a given offset, and the call site through which compiled
+    // code invokes the method
+    private MethodHandle compiledCode;
+
+    private MethodHandle compiledCodeAt;
+
+    private MutableCallSite entryPoint;
+
+    BytecodeMethod(
+            MethodInfo methodInfo,
+            int registerCount,
+            int[] code,
+            Object[] constants) {
+
+        this.methodInfo = methodInfo;
+        this.registerCount = registerCount;
+        this.code = code;
+        this.constants = constants;
+    }
+
+    /** Returns the invoked method, or null for the main program. */
+    MethodInfo getMethodInfo() {
+
+        return this.methodInfo;
+    }
+
+    int getRegisterCount() {
+
+        return this.registerCount;
+    }
+
+    int[] getCode() {
+
+        return this.code;
+    }
+
+    Object[] getConstants() {
+
+        return this.constants;
+    }
+
+    boolean isPrimitive() {
+
+        return this.code == null;
+    }
+
+    MethodHandle getCompiledCode() {
+
+        return this.compiledCode;
+    }
+
+    MethodHandle getCompiledCodeAt() {
+
+        return this.compiledCodeAt;
+    }
+
+    void setCompiledCode(
+            MethodHandle compiledCodeAt) {
+
+        this.compiledCodeAt = compiledCodeAt;
+        this.compiledCode = MethodHandles.insertArguments(compiledCodeAt, 1, 0);
+    }
+
+    MutableCallSite getEntryPoint() {
+
+        return this.entryPoint;
+    }
+
+    void setEntryPoint(
+            MutableCallSite entryPoint) {
+
+        this.entryPoint = entryPoint;
+    }
+}
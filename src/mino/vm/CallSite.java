@@ -0,0 +1,84 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.vm;
+
+import mino.language_mino.*;
+import mino.structure.*;
+
+/**
+ * Call site of a method or an operator. The method invoked for the last
+ * receiver class is cached in front of the shared inline cache.
+ */
+class CallSite
+        extends Site {
+
+    private final InlineCache inlineCache;
+
+    private ClassInfo cachedClassInfo;
+
+    private BytecodeMethod cachedMethod;
+
+    // linkage of the site in compiled code
+    private JitCallSite linkage;
+
+    CallSite(
+            Token nameToken,
+            InlineCache inlineCache) {
+
+        super(nameToken);
+        this.inlineCache = inlineCache;
+    }
+
+    CallSite(
+            String name,
+            int line,
+            int pos,
+            InlineCache inlineCache) {
+
+        super(name, line, pos);
+        this.inlineCache = inlineCache;
+    }
+
+    InlineCache getInlineCache() {
+
+        return this.inlineCache;
+    }
+
+    BytecodeMethod getMethod(
+            ClassInfo classInfo,
+            VirtualMachine virtualMachine) {
+
+        if (classInfo != this.cachedClassInfo) {
+            this.cachedMethod = virtualMachine
+                    .getMethod(this.inlineCache.getMethodInfo(classInfo));
+            this.cachedClassInfo = classInfo;
+        }
+
+        return this.cachedMethod;
+    }
+
+    JitCallSite getLinkage() {
+
+        return this.linkage;
+    }
+
+    void setLinkage(
+            JitCallSite linkage) {
+
+        this.linkage = linkage;
+    }
+}
@@ -0,0 +1,241 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.vm;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Minimal writer of JVM class files, sufficient for the static methods
+ * generated by the JIT compiler: a constant pool of names, descriptors,
+ * strings and member references, static fields, and methods whose code
+ * comes from a method assembler.
+ */
+final class ClassFileWriter {
+
+    static final int ACC_STATIC = 0x0008;
+
+    static final int ACC_PRIVATE_STATIC_FINAL = 0x001A;
+
+    private static final int ACC_FINAL_SUPER = 0x0030;
+
+    // Java 17 class files, which are verified with stack map frames
+    private static final int MAJOR_VERSION = 61;
+
+    private static final int CONSTANT_UTF8 = 1;
+
+    private static final int CONSTANT_CLASS = 7;
+
+    private static final int CONSTANT_STRING = 8;
+
+    private static final int CONSTANT_FIELDREF = 9;
+
+    private static final int CONSTANT_METHODREF = 10;
+
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private final String className;
+
+    private final ByteArrayOutputStream constantPool
+            = new ByteArrayOutputStream();
+
+    private int constantCount = 1;
+
+    private final Map<String, Integer> entryToIndexMap = new HashMap<>();
+
+    private final ByteArrayOutputStream fields = new ByteArrayOutputStream();
+
+    private int fieldCount;
+
+    private final ByteArrayOutputStream methods = new ByteArrayOutputStream();
+
+    private int methodCount;
+
+    ClassFileWriter(
+            String className) {
+
+        this.className = className;
+    }
+
+    String getClassName() {
+
+        return this.className;
+    }
+
+    int utf8(
+            String text) {
+
+        Integer index = this.entryToIndexMap.get("U" + text);
+        if (index != null) {
+            return index;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (int i = 0; i < text.length(); i++) {
+            // modified UTF-8
+            char c = text.charAt(i);
+            if (c >= 0x01 && c <= 0x7F) {
+                bytes.write(c);
+            }
+            else if (c <= 0x7FF) {
+                bytes.write(0xC0 | (c >> 6));
+                bytes.write(0x80 | (c & 0x3F));
+            }
+            else {
+                bytes.write(0xE0 | (c >> 12));
+                bytes.write(0x80 | ((c >> 6) & 0x3F));
+                bytes.write(0x80 | (c & 0x3F));
+            }
+        }
+
+        this.constantPool.write(CONSTANT_UTF8);
+        writeU2(this.constantPool, bytes.size());
+        this.constantPool.write(bytes.toByteArray(), 0, bytes.size());
+        return addEntry("U" + text);
+    }
+
+    int classRef(
+            String internalName) {
+
+        return addEntry(CONSTANT_CLASS, utf8(internalName), 0);
+    }
+
+    int string(
+            String text) {
+
+        return addEntry(CONSTANT_STRING, utf8(text), 0);
+    }
+
+    int fieldRef(
+            String owner,
+            String name,
+            String descriptor) {
+
+        return addEntry(CONSTANT_FIELDREF, classRef(owner),
+                nameAndType(name, descriptor));
+    }
+
+    int methodRef(
+            String owner,
+            String name,
+            String descriptor) {
+
+        return addEntry(CONSTANT_METHODREF, classRef(owner),
+                nameAndType(name, descriptor));
+    }
+
+    private int nameAndType(
+            String name,
+            String descriptor) {
+
+        return addEntry(CONSTANT_NAME_AND_TYPE, utf8(name), utf8(descriptor));
+    }
+
+    private int addEntry(
+            int tag,
+            int first,
+            int second) {
+
+        String entry = tag + ":" + first + ":" + second;
+        Integer index = this.entryToIndexMap.get(entry);
+        if (index != null) {
+            return index;
+        }
+
+        this.constantPool.write(tag);
+        writeU2(this.constantPool, first);
+        if (tag == CONSTANT_FIELDREF || tag == CONSTANT_METHODREF
+                || tag == CONSTANT_NAME_AND_TYPE) {
+            writeU2(this.constantPool, second);
+        }
+        return addEntry(entry);
+    }
+
+    private int addEntry(
+            String entry) {
+
+        int index = this.constantCount++;
+        this.entryToIndexMap.put(entry, index);
+        return index;
+    }
+
+    void addField(
+            int access,
+            String name,
+            String descriptor) {
+
+        writeU2(this.fields, access);
+        writeU2(this.fields, utf8(name));
+        writeU2(this.fields, utf8(descriptor));
+        writeU2(this.fields, 0);
+        this.fieldCount++;
+    }
+
+    void addMethod(
+            int access,
+            String name,
+            String descriptor,
+            MethodAssembler code) {
+
+        writeU2(this.methods, access);
+        writeU2(this.methods, utf8(name));
+        writeU2(this.methods, utf8(descriptor));
+        writeU2(this.methods, 1);
+        code.writeCodeAttribute(this.methods, utf8("Code"));
+        this.methodCount++;
+    }
+
+    byte[] toByteArray() {
+
+        int thisClass = classRef(this.className);
+        int superClass = classRef("java/lang/Object");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeU4(out, 0xCAFEBABE);
+        writeU2(out, 0);
+        writeU2(out, MAJOR_VERSION);
+        writeU2(out, this.constantCount);
+        out.write(this.constantPool.toByteArray(), 0,
+                this.constantPool.size());
+        writeU2(out, ACC_FINAL_SUPER);
+        writeU2(out, thisClass);
+        writeU2(out, superClass);
+        writeU2(out, 0);
+        writeU2(out, this.fieldCount);
+        out.write(this.fields.toByteArray(), 0, this.fields.size());
+        writeU2(out, this.methodCount);
+        out.write(this.methods.toByteArray(), 0, this.methods.size());
+        writeU2(out, 0);
+        return out.toByteArray();
+    }
+
+    static void writeU2(
+            ByteArrayOutputStream out,
+            int value) {
+
+        out.write(value >> 8);
+        out.write(value);
+    }
+
+    static void writeU4(
+            ByteArrayOutputStream out,
+            int value) {
+
+        writeU2(out, value >> 16);
+        writeU2(out, value);
+    }
+}
@@ -0,0 +1,199 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.vm;
+
+import mino.language_mino.*;
+import mino.structure.*;
+import mino.walker.*;
+
+/**
+ * Evaluator of the expressions whose value is known when they are compiled.
+ * The + and == operators are methods that a program may redefine, so they are
+ * only evaluated when they have no effect and cannot fail, as decided by
+ * PureOperators. Evaluating an expression that may fail is left to run time.
+ */
+class ConstantFolder {
+
+    /** Value of the expressions that are not known before run time. */
+    static final Object NOT_CONSTANT = new Object();
+
+    private final Resolver resolver;
+
+    private final BooleanClassInfo booleanClassInfo;
+
+    private final PureOperators pureOperators;
+
+    ConstantFolder(
+            Program program,
+            PureOperators pureOperators) {
+
+        this.resolver = program.getResolver();
+        this.booleanClassInfo = program.getBooleanClassInfo();
+        this.pureOperators = pureOperators;
+    }
+
+    /**
+     * Returns the value of an expression, given the values of the variables
+     * indexed by slot, or NOT_CONSTANT.
+     */
+    Object fold(
+            Node node,
+            Object[] variableValues) {
+
+        if (node instanceof NExp_Simple) {
+            return fold(((NExp_Simple) node).get_AddExp(), variableValues);
+        }
+        if (node instanceof NExp_Eq) {
+            NExp_Eq eq = (NExp_Eq) node;
+            return foldEq(fold(eq.get_Exp(), variableValues),
+                    fold(eq.get_AddExp(), variableValues));
+        }
+        if (node instanceof NExp_Is) {
+            NExp_Is is = (NExp_Is) node;
+            return foldIs(fold(is.get_Exp(), variableValues),
+                    fold(is.get_AddExp(), variableValues));
+        }
+        if (node instanceof NExp_Isa) {
+            NExp_Isa isa = (NExp_Isa) node;
+            return foldIsa(fold(isa.get_Exp(), variableValues),
+                    this.resolver.getClassInfoOrNull(isa));
+        }
+        if (node instanceof NAddExp_Simple) {
+            return fold(((NAddExp_Simple) node).get_LeftUnaryExp(),
+                    variableValues);
+        }
+        if (node instanceof NAddExp_Add) {
+            NAddExp_Add add = (NAddExp_Add) node;
+            return foldAdd(fold(add.get_AddExp(), variableValues),
+                    fold(add.get_LeftUnaryExp(), variableValues));
+        }
+        if (node instanceof NLeftUnaryExp_Simple) {
+            return fold(((NLeftUnaryExp_Simple) node).get_RightUnaryExp(),
+                    variableValues);
+        }
+        if (node instanceof NLeftUnaryExp_Not) {
+            return foldNot(fold(((NLeftUnaryExp_Not) node).get_LeftUnaryExp(),
+                    variableValues));
+        }
+        if (node instanceof NRightUnaryExp_Simple) {
+            return fold(((NRightUnaryExp_Simple) node).get_Term(),
+                    variableValues);
+        }
+        if (node instanceof NTerm_Num || node instanceof NTerm_String) {
+            return this.resolver.getLiteralInstance((NTerm) node);
+        }
+        if (node instanceof NTerm_True) {
+            return this.booleanClassInfo.getTrue();
+        }
+        if (node instanceof NTerm_False) {
+            return this.booleanClassInfo.getFalse();
+        }
+        if (node instanceof NTerm_Null) {
+            return null;
+        }
+        if (node instanceof NTerm_Var) {
+            return variableValues[this.resolver
+                    .getSlot(((NTerm_Var) node).get_Id())];
+        }
+        if (node instanceof NTerm_Par) {
+            return fold(((NTerm_Par) node).get_Exp(), variableValues);
+        }
+
+        // calls, fields, self and new
+        return NOT_CONSTANT;
+    }
+
+    private Instance getBoolean(
+            boolean value) {
+
+        if (value) {
+            return this.booleanClassInfo.getTrue();
+        }
+
+        return this.booleanClassInfo.getFalse();
+    }
+
+    private Object foldEq(
+            Object left,
+            Object right) {
+
+        if (left == NOT_CONSTANT || right == NOT_CONSTANT) {
+            return NOT_CONSTANT;
+        }
+
+        Instance value
+                = this.pureOperators.eq((Instance) left, (Instance) right);
+        if (value == Intrinsic.NOT_HANDLED) {
+            return NOT_CONSTANT;
+        }
+
+        return value;
+    }
+
+    private Object foldIs(
+            Object left,
+            Object right) {
+
+        if (left == NOT_CONSTANT || right == NOT_CONSTANT) {
+            return NOT_CONSTANT;
+        }
+
+        return getBoolean(Instance.isSame((Instance) left, (Instance) right));
+    }
+
+    private Object foldIsa(
+            Object left,
+            ClassInfo classInfo) {
+
+        if (left == NOT_CONSTANT || classInfo == null) {
+            return NOT_CONSTANT;
+        }
+
+        return getBoolean(left == null || ((Instance) left).isa(classInfo));
+    }
+
+    private Object foldAdd(
+            Object left,
+            Object right) {
+
+        if (left == NOT_CONSTANT || right == NOT_CONSTANT) {
+            return NOT_CONSTANT;
+        }
+
+        Instance value
+                = this.pureOperators.add((Instance) left, (Instance) right);
+        if (value == Intrinsic.NOT_HANDLED) {
+            return NOT_CONSTANT;
+        }
+
+        return value;
+    }
+
+    private Object foldNot(
+            Object operand) {
+
+        if (operand == this.booleanClassInfo.getTrue()) {
+            return this.booleanClassInfo.getFalse();
+        }
+        if (operand == this.booleanClassInfo.getFalse()) {
+            return this.booleanClassInfo.getTrue();
+        }
+
+        // the negation of other values fails
+        return NOT_CONSTANT;
+    }
+}
@@ -0,0 +1,73 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.vm;
+
+import mino.language_mino.*;
+import mino.structure.*;
+
+/**
+ * Access to a field of self. Fields that are not declared in the class of
+ * the method, or in its super classes, are looked up in the class of the
+ * receiver.
+ */
+class FieldSite
+        extends Site {
+
+    private final FieldInfo fieldInfo;
+
+    FieldSite(
+            NFieldName fieldName,
+            FieldInfo fieldInfo) {
+
+        super(fieldName);
+        this.fieldInfo = fieldInfo;
+    }
+
+    FieldSite(
+            String fieldName,
+            int line,
+            int pos,
+            FieldInfo fieldInfo) {
+
+        super(fieldName, line, pos);
+        this.fieldInfo = fieldInfo;
+    }
+
+    /** Returns the field, or null if it is looked up in the receiver. */
+    FieldInfo getFieldInfoOrNull() {
+
+        return this.fieldInfo;
+    }
+
+    FieldInfo getFieldInfo(
+            Instance self) {
+
+        if (this.fieldInfo != null) {
+            return this.fieldInfo;
+        }
+
+        ClassInfo classInfo = self.getClassInfo();
+        FieldInfo fieldInfo
+                = classInfo.getFieldTable().getFieldInfoOrNull(getText());
+        if (fieldInfo == null) {
+            throw newException("class " + classInfo.getName() + " has no "
+                    + getText() + " field");
+        }
+
+        return fieldInfo;
+    }
+}
@@ -0,0 +1,898 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.vm;
+
+import java.util.*;
+
+import mino.language_mino.*;
+import mino.structure.*;
+import mino.walker.*;
+
+/**
+ * Analysis of a method body for the optimizations of the bytecode compiler.
+ * It follows the body in the order of its code, tracking the variables that
+ * are assigned and their values, and records the expressions whose value is
+ * known, the reads of variables that may not be assigned and the assignments
+ * of known values to variables that are never read. For each loop, it also
+ * finds the expressions that only use variables the loop does not assign and
+ * have no effect, which can be computed before it, and the constants and self
+ * that the loop uses. Whether + and == have an effect depends on their
+ * operands, so an expression that uses them is guarded.
+ */
+class FlowAnalyzer
+        extends Walker {
+
+    /** Invariant of the loops that use self. */
+    static final Object SELF = new Object();
+
+    // whether an expression changes in a loop, and how it is computed
+    // before the loop if it does not
+    private static enum Invariance {
+        PURE,
+        GUARDED,
+        VARIANT;
+    }
+
+    private final Resolver resolver;
+
+    private final BooleanClassInfo booleanClassInfo;
+
+    private final ConstantFolder constantFolder;
+
+    private final Map<Node, Object> nodeToValueMap = new IdentityHashMap<>();
+
+    private final Set<Node> checkedReads = newNodeSet();
+
+    private final Set<Node> deadStores = newNodeSet();
+
+    private final Map<Node, List<Node>> loopToExpressionsMap
+            = new IdentityHashMap<>();
+
+    private final Set<Node> guardedExpressions = newNodeSet();
+
+    private final Map<Node, List<Object>> loopToInvariantsMap
+            = new IdentityHashMap<>();
+
+    private int variableCount;
+
+    // variables that are assigned on every path to the current node
+    private boolean[] assigned;
+
+    // values of the variables on every path to the current node, or
+    // NOT_CONSTANT
+    private Object[] values;
+
+    // variables that are read somewhere in the body
+    private boolean[] read;
+
+    // expressions computed before the current loops
+    private Set<Node> hoistedExpressions;
+
+    FlowAnalyzer(
+            Program program,
+            ConstantFolder constantFolder) {
+
+        this.resolver = program.getResolver();
+        this.booleanClassInfo = program.getBooleanClassInfo();
+        this.constantFolder = constantFolder;
+    }
+
+    private static Set<Node> newNodeSet() {
+
+        return Collections.newSetFromMap(new IdentityHashMap<Node, Boolean>());
+    }
+
+    /**
+     * Analyzes a body, given the number of parameters and variables of its
+     * frames.
+     */
+    void analyze(
+            NStms stms,
+            int paramCount,
+            int variableCount) {
+
+        clear();
+        this.variableCount = variableCount;
+        this.assigned = new boolean[variableCount];
+        Arrays.fill(this.assigned, 0, paramCount, true);
+        this.values = new Object[variableCount];
+        Arrays.fill(this.values, ConstantFolder.NOT_CONSTANT);
+        this.hoistedExpressions = newNodeSet();
+
+        VariableScanner scanner = new VariableScanner();
+        visit(stms, scanner);
+        this.read = scanner.read;
+
+        visit(stms, this);
+
+        this.assigned = null;
+        this.values = null;
+        this.read = null;
+        this.hoistedExpressions = null;
+    }
+
+    /**
+     * Forgets the last analyzed body, so that its syntax tree can be
+     * released.
+     */
+    void clear() {
+
+        this.nodeToValueMap.clear();
+        this.checkedReads.clear();
+        this.deadStores.clear();
+        this.loopToExpressionsMap.clear();
+        this.guardedExpressions.clear();
+        this.loopToInvariantsMap.clear();
+    }
+
+    /**
+     * Returns the value of an expression where it is computed, or
+     * NOT_CONSTANT.
+     */
+    Object getValue(
+            Node node) {
+
+        if (!this.nodeToValueMap.containsKey(node)) {
+            return ConstantFolder.NOT_CONSTANT;
+        }
+
+        return this.nodeToValueMap.get(node);
+    }
+
+    /**
+     * Returns whether a read of a variable checks that it is assigned, as it
+     * may not be.
+     */
+    boolean isChecked(
+            NTerm_Var node) {
+
+        return this.checkedReads.contains(node);
+    }
+
+    /** Returns whether an assignment has no effect. */
+    boolean isDeadStore(
+            NStm_VarAssign node) {
+
+        return this.deadStores.contains(node);
+    }
+
+    /**
+     * Returns the expressions of a loop that can be computed before it, in
+     * the order of its code, except those computed before an enclosing loop.
+     */
+    List<Node> getInvariantExpressions(
+            NStm_While node) {
+
+        return this.loopToExpressionsMap.get(node);
+    }
+
+    /**
+     * Returns whether an expression computed before a loop is only computed
+     * there when its + and == operators have no effect and cannot fail.
+     */
+    boolean isGuarded(
+            Node node) {
+
+        return this.guardedExpressions.contains(node);
+    }
+
+    /**
+     * Returns the constants of a loop, and SELF if it uses self, except
+     * those of the expressions computed before it.
+     */
+    List<Object> getInvariants(
+            NStm_While node) {
+
+        return this.loopToInvariantsMap.get(node);
+    }
+
+    private static void visit(
+            Node node,
+            Walker walker) {
+
+        node.apply(walker);
+    }
+
+    private Object fold(
+            Node node) {
+
+        return this.constantFolder.fold(node, this.values);
+    }
+
+    // folds an expression where it is computed and records its value
+    private Object record(
+            Node node) {
+
+        Object value = fold(node);
+        if (value != ConstantFolder.NOT_CONSTANT) {
+            this.nodeToValueMap.put(node, value);
+        }
+
+        return value;
+    }
+
+    private boolean[] copyAssigned() {
+
+        return Arrays.copyOf(this.assigned, this.assigned.length);
+    }
+
+    private Object[] copyValues() {
+
+        return Arrays.copyOf(this.values, this.values.length);
+    }
+
+    // finds the expressions of a loop that do not change in it
+    private void findInvariantExpressions(
+            NStm_While node,
+            boolean constantCondition,
+            boolean[] written) {
+
+        ExpressionCollector collector = new ExpressionCollector(written);
+        if (!constantCondition) {
+            visit(node.get_Exp(), collector);
+        }
+        visit(node.get_Stms(), collector);
+
+        for (Node expression : collector.expressions) {
+            if (getInvariance(expression, written) == Invariance.GUARDED) {
+                this.guardedExpressions.add(expression);
+            }
+            this.hoistedExpressions.add(expression);
+        }
+        this.loopToExpressionsMap.put(node, collector.expressions);
+    }
+
+    // finds the constants and self that the code of a loop uses
+    private void findInvariants(
+            NStm_While node,
+            boolean constantCondition) {
+
+        InvariantCollector collector = new InvariantCollector();
+        if (!constantCondition) {
+            visit(node.get_Exp(), collector);
+        }
+        visit(node.get_Stms(), collector);
+        this.loopToInvariantsMap.put(node, collector.invariants);
+    }
+
+    // returns whether an expression is computed before the loop without a
+    // guard, so that the loop does not compute it
+    private boolean isPrecomputed(
+            Node node) {
+
+        return this.hoistedExpressions.contains(node)
+                && !this.guardedExpressions.contains(node);
+    }
+
+    private static Invariance combine(
+            Invariance left,
+            Invariance right) {
+
+        if (left.compareTo(right) >= 0) {
+            return left;
+        }
+
+        return right;
+    }
+
+    // returns whether an expression does not change in a loop that assigns
+    // the given variables, and how it can be computed before the loop
+    private Invariance getInvariance(
+            Node node,
+            boolean[] written) {
+
+        if (this.hoistedExpressions.contains(node)) {
+            // computed before an enclosing loop
+            if (isPrecomputed(node)) {
+                return Invariance.PURE;
+            }
+            return Invariance.VARIANT;
+        }
+
+        if (node instanceof NExp_Simple) {
+            return getInvariance(((NExp_Simple) node).get_AddExp(), written);
+        }
+        if (node instanceof NExp_Is) {
+            NExp_Is is = (NExp_Is) node;
+            return combine(getInvariance(is.get_Exp(), written),
+                    getInvariance(is.get_AddExp(), written));
+        }
+        if (node instanceof NExp_Eq) {
+            NExp_Eq eq = (NExp_Eq) node;
+            return combine(Invariance.GUARDED,
+                    combine(getInvariance(eq.get_Exp(), written),
+                            getInvariance(eq.get_AddExp(), written)));
+        }
+        if (node instanceof NExp_Isa) {
+            NExp_Isa isa = (NExp_Isa) node;
+            if (this.resolver.getClassInfoOrNull(isa) == null) {
+                return Invariance.VARIANT;
+            }
+            return getInvariance(isa.get_Exp(), written);
+        }
+        if (node instanceof NAddExp_Simple) {
+            return getInvariance(((NAddExp_Simple) node).get_LeftUnaryExp(),
+                    written);
+        }
+        if (node instanceof NAddExp_Add) {
+            NAddExp_Add add = (NAddExp_Add) node;
+            return combine(Invariance.GUARDED,
+                    combine(getInvariance(add.get_AddExp(), written),
+                            getInvariance(add.get_LeftUnaryExp(), written)));
+        }
+        if (node instanceof NLeftUnaryExp_Simple) {
+            return getInvariance(
+                    ((NLeftUnaryExp_Simple) node).get_RightUnaryExp(),
+                    written);
+        }
+        if (node instanceof NLeftUnaryExp_Not) {
+            // the negation of a value that may not be boolean may fail
+            NLeftUnaryExp operand
+                    = ((NLeftUnaryExp_Not) node).get_LeftUnaryExp();
+            if (!isBoolean(operand)) {
+                return Invariance.VARIANT;
+            }
+            return getInvariance(operand, written);
+        }
+        if (node instanceof NRightUnaryExp_Simple) {
+            return getInvariance(((NRightUnaryExp_Simple) node).get_Term(),
+                    written);
+        }
+        if (node instanceof NTerm_Par) {
+            return getInvariance(((NTerm_Par) node).get_Exp(), written);
+        }
+        if (node instanceof NTerm_Num || node instanceof NTerm_String
+                || node instanceof NTerm_True || node instanceof NTerm_False
+                || node instanceof NTerm_Null || node instanceof NTerm_Self) {
+            return Invariance.PURE;
+        }
+        if (node instanceof NTerm_Var) {
+            // reading a variable that is not assigned fails
+            int slot = this.resolver.getSlot(((NTerm_Var) node).get_Id());
+            if (written[slot] || !this.assigned[slot]) {
+                return Invariance.VARIANT;
+            }
+            return Invariance.PURE;
+        }
+
+        // calls, fields and new
+        return Invariance.VARIANT;
+    }
+
+    // returns whether an expression always has a boolean value
+    private static boolean isBoolean(
+            Node node) {
+
+        if (node instanceof NExp_Simple) {
+            return isBoolean(((NExp_Simple) node).get_AddExp());
+        }
+        if (node instanceof NAddExp_Simple) {
+            return isBoolean(((NAddExp_Simple) node).get_LeftUnaryExp());
+        }
+        if (node instanceof NLeftUnaryExp_Simple) {
+            return isBoolean(
+                    ((NLeftUnaryExp_Simple) node).get_RightUnaryExp());
+        }
+        if (node instanceof NLeftUnaryExp_Not) {
+            return isBoolean(((NLeftUnaryExp_Not) node).get_LeftUnaryExp());
+        }
+        if (node instanceof NRightUnaryExp_Simple) {
+            return isBoolean(((NRightUnaryExp_Simple) node).get_Term());
+        }
+        if (node instanceof NTerm_Par) {
+            return isBoolean(((NTerm_Par) node).get_Exp());
+        }
+
+        return node instanceof NExp_Is || node instanceof NExp_Isa
+                || node instanceof NTerm_True || node instanceof NTerm_False;
+    }
+
+    @Override
+    public void caseStm_VarAssign(
+            NStm_VarAssign node) {
+
+        int slot = this.resolver.getSlot(node.get_Id());
+        Object value = record(node.get_Exp());
+        if (!this.read[slot] && value != ConstantFolder.NOT_CONSTANT) {
+            // computing the value has no effect
+            this.deadStores.add(node);
+            return;
+        }
+
+        visit(node.get_Exp(), this);
+        this.assigned[slot] = true;
+        this.values[slot] = value;
+    }
+
+    @Override
+    public void caseStm_While(
+            NStm_While node) {
+
+        // the values of the variables assigned by the loop are unknown when
+        // evaluating its condition
+        VariableScanner scanner = new VariableScanner();
+        visit(node.get_Stms(), scanner);
+        for (int i = 0; i < this.values.length; i++) {
+            if (scanner.written[i]) {
+                this.values[i] = ConstantFolder.NOT_CONSTANT;
+            }
+        }
+
+        Object condition = record(node.get_Exp());
+        if (condition == this.booleanClassInfo.getFalse()) {
+            return;
+        }
+        boolean alwaysTrue = condition == this.booleanClassInfo.getTrue();
+
+        Set<Node> hoistedExpressions = newNodeSet();
+        hoistedExpressions.addAll(this.hoistedExpressions);
+        findInvariantExpressions(node, alwaysTrue, scanner.written);
+        findInvariants(node, alwaysTrue);
+
+        if (!alwaysTrue) {
+            visit(node.get_Exp(), this);
+        }
+
+        // the body may not run, so its assignments are forgotten after it
+        boolean[] assigned = copyAssigned();
+        Object[] values = copyValues();
+        visit(node.get_Stms(), this);
+        this.assigned = assigned;
+        this.values = values;
+
+        this.hoistedExpressions = hoistedExpressions;
+    }
+
+    @Override
+    public void caseStm_If(
+            NStm_If node) {
+
+        Object condition = record(node.get_Exp());
+        if (condition == this.booleanClassInfo.getTrue()) {
+            visit(node.get_Stms(), this);
+            return;
+        }
+        if (condition == this.booleanClassInfo.getFalse()) {
+            if (node.get_ElseOpt() instanceof NElseOpt_One) {
+                visit(((NElseOpt_One) node.get_ElseOpt()).get_Else()
+                        .get_Stms(), this);
+            }
+            return;
+        }
+
+        visit(node.get_Exp(), this);
+
+        boolean[] assigned = copyAssigned();
+        Object[] values = copyValues();
+        visit(node.get_Stms(), this);
+        boolean[] thenAssigned = this.assigned;
+        Object[] thenValues = this.values;
+        this.assigned = assigned;
+        this.values = values;
+
+        if (node.get_ElseOpt() instanceof NElseOpt_One) {
+            visit(((NElseOpt_One) node.get_ElseOpt()).get_Else().get_Stms(),
+                    this);
+        }
+
+        // only variables assigned in both branches are known to be assigned,
+        // and only values that are the same in both are known
+        for (int i = 0; i < this.assigned.length; i++) {
+            this.assigned[i] = this.assigned[i] && thenAssigned[i];
+            if (this.values[i] != thenValues[i]) {
+                this.values[i] = ConstantFolder.NOT_CONSTANT;
+            }
+        }
+    }
+
+    @Override
+    public void caseExp_Is(
+            NExp_Is node) {
+
+        if (record(node) == ConstantFolder.NOT_CONSTANT) {
+            defaultCase(node);
+        }
+    }
+
+    @Override
+    public void caseExp_Eq(
+            NExp_Eq node) {
+
+        if (record(node) == ConstantFolder.NOT_CONSTANT) {
+            defaultCase(node);
+        }
+    }
+
+    @Override
+    public void caseExp_Isa(
+            NExp_Isa node) {
+
+        if (record(node) == ConstantFolder.NOT_CONSTANT) {
+            defaultCase(node);
+        }
+    }
+
+    @Override
+    public void caseAddExp_Add(
+            NAddExp_Add node) {
+
+        if (record(node) == ConstantFolder.NOT_CONSTANT) {
+            // a known right operand is a constant of the addition
+            record(node.get_LeftUnaryExp());
+            defaultCase(node);
+        }
+    }
+
+    @Override
+    public void caseLeftUnaryExp_Not(
+            NLeftUnaryExp_Not node) {
+
+        if (record(node) == ConstantFolder.NOT_CONSTANT) {
+            defaultCase(node);
+        }
+    }
+
+    @Override
+    public void caseTerm_Var(
+            NTerm_Var node) {
+
+        int slot = this.resolver.getSlot(node.get_Id());
+        if (!this.assigned[slot]) {
+            // the read fails if the variable is not assigned, and it is
+            // assigned after the read otherwise
+            this.checkedReads.add(node);
+            this.assigned[slot] = true;
+        }
+    }
+
+    // finds the variables that are read and assigned
+    private class VariableScanner
+            extends Walker {
+
+        private final boolean[] read
+                = new boolean[FlowAnalyzer.this.variableCount];
+
+        private final boolean[] written
+                = new boolean[FlowAnalyzer.this.variableCount];
+
+        @Override
+        public void caseStm_VarAssign(
+                NStm_VarAssign node) {
+
+            this.written[FlowAnalyzer.this.resolver
+                    .getSlot(node.get_Id())] = true;
+            visit(node.get_Exp(), this);
+        }
+
+        @Override
+        public void caseTerm_Var(
+                NTerm_Var node) {
+
+            this.read[FlowAnalyzer.this.resolver
+                    .getSlot(node.get_Id())] = true;
+        }
+    }
+
+    // finds the constants and self that the code of a loop uses, except in
+    // the expressions computed before it
+    private class InvariantCollector
+            extends Walker {
+
+        private final List<Object> invariants = new ArrayList<>();
+
+        private void add(
+                Object invariant) {
+
+            if (!this.invariants.contains(invariant)) {
+                this.invariants.add(invariant);
+            }
+        }
+
+        // adds the value of an expression if it is known, and returns
+        // whether it is or the expression is computed before the loop
+        private boolean addFolded(
+                Node node) {
+
+            if (isPrecomputed(node)) {
+                return true;
+            }
+
+            Object value = fold(node);
+            if (value == ConstantFolder.NOT_CONSTANT) {
+                return false;
+            }
+
+            add(value);
+            return true;
+        }
+
+        // visits an expression whose value is computed in a given register,
+        // so that a known value is not loaded beforehand
+        private void visitComputed(
+                NExp exp) {
+
+            if (fold(exp) == ConstantFolder.NOT_CONSTANT) {
+                visit(exp, this);
+            }
+        }
+
+        @Override
+        public void caseStm_VarAssign(
+                NStm_VarAssign node) {
+
+            visitComputed(node.get_Exp());
+        }
+
+        @Override
+        public void caseStm_While(
+                NStm_While node) {
+
+            Object condition = fold(node.get_Exp());
+            if (condition == FlowAnalyzer.this.booleanClassInfo
+                    .getFalse()) {
+                return;
+            }
+            if (condition == ConstantFolder.NOT_CONSTANT) {
+                visit(node.get_Exp(), this);
+            }
+            visit(node.get_Stms(), this);
+        }
+
+        @Override
+        public void caseStm_If(
+                NStm_If node) {
+
+            Object condition = fold(node.get_Exp());
+            if (condition == ConstantFolder.NOT_CONSTANT) {
+                visit(node.get_Exp(), this);
+            }
+            if (condition != FlowAnalyzer.this.booleanClassInfo
+                    .getFalse()) {
+                visit(node.get_Stms(), this);
+            }
+            if (condition != FlowAnalyzer.this.booleanClassInfo.getTrue()
+                    && node.get_ElseOpt() instanceof NElseOpt_One) {
+                visit(((NElseOpt_One) node.get_ElseOpt()).get_Else()
+                        .get_Stms(), this);
+            }
+        }
+
+        @Override
+        public void caseExp_Is(
+                NExp_Is node) {
+
+            if (!addFolded(node)) {
+                defaultCase(node);
+            }
+        }
+
+        @Override
+        public void caseExp_Eq(
+                NExp_Eq node) {
+
+            if (!addFolded(node)) {
+                defaultCase(node);
+            }
+        }
+
+        @Override
+        public void caseExp_Isa(
+                NExp_Isa node) {
+
+            if (!addFolded(node)) {
+                visit(node.get_Exp(), this);
+            }
+        }
+
+        @Override
+        public void caseAddExp_Add(
+                NAddExp_Add node) {
+
+            if (addFolded(node)) {
+                return;
+            }
+
+            visit(node.get_AddExp(), this);
+
+            // a known integer or string is a constant of the addition
+            Object right = fold(node.get_LeftUnaryExp());
+            if (!(right instanceof IntegerInstance)
+                    && !(right instanceof StringInstance)) {
+                visit(node.get_LeftUnaryExp(), this);
+            }
+        }
+
+        @Override
+        public void caseLeftUnaryExp_Not(
+                NLeftUnaryExp_Not node) {
+
+            if (!addFolded(node)) {
+                defaultCase(node);
+            }
+        }
+
+        @Override
+        public void caseTerm_Num(
+                NTerm_Num node) {
+
+            add(FlowAnalyzer.this.resolver.getLiteralInstance(node));
+        }
+
+        @Override
+        public void caseTerm_String(
+                NTerm_String node) {
+
+            add(FlowAnalyzer.this.resolver.getLiteralInstance(node));
+        }
+
+        @Override
+        public void caseTerm_True(
+                NTerm_True node) {
+
+            add(FlowAnalyzer.this.booleanClassInfo.getTrue());
+        }
+
+        @Override
+        public void caseTerm_False(
+                NTerm_False node) {
+
+            add(FlowAnalyzer.this.booleanClassInfo.getFalse());
+        }
+
+        @Override
+        public void caseTerm_Null(
+                NTerm_Null node) {
+
+            add(null);
+        }
+
+        @Override
+        public void caseTerm_Self(
+                NTerm_Self node) {
+
+            add(SELF);
+        }
+
+        @Override
+        public void caseExpList(
+                NExpList node) {
+
+            visitComputed(node.get_Exp());
+            visit(node.get_AdditionalExps(), this);
+        }
+
+        @Override
+        public void caseAdditionalExp(
+                NAdditionalExp node) {
+
+            visitComputed(node.get_Exp());
+        }
+    }
+
+    // finds the outermost expressions of a loop that do not change in it
+    // and are not computed before it yet
+    private class ExpressionCollector
+            extends Walker {
+
+        private final boolean[] written;
+
+        private final List<Node> expressions = new ArrayList<>();
+
+        private ExpressionCollector(
+                boolean[] written) {
+
+            this.written = written;
+        }
+
+        // adds an expression that does not change in the loop, and returns
+        // whether its operands need not be visited
+        private boolean collect(
+                Node node) {
+
+            if (FlowAnalyzer.this.hoistedExpressions.contains(node)
+                    || fold(node) != ConstantFolder.NOT_CONSTANT) {
+                return true;
+            }
+
+            if (getInvariance(node, this.written) == Invariance.VARIANT) {
+                return false;
+            }
+
+            this.expressions.add(node);
+            return true;
+        }
+
+        @Override
+        public void caseStm_While(
+                NStm_While node) {
+
+            Object condition = fold(node.get_Exp());
+            if (condition == FlowAnalyzer.this.booleanClassInfo
+                    .getFalse()) {
+                return;
+            }
+            if (condition == ConstantFolder.NOT_CONSTANT) {
+                visit(node.get_Exp(), this);
+            }
+            visit(node.get_Stms(), this);
+        }
+
+        @Override
+        public void caseStm_If(
+                NStm_If node) {
+
+            Object condition = fold(node.get_Exp());
+            if (condition == ConstantFolder.NOT_CONSTANT) {
+                visit(node.get_Exp(), this);
+            }
+            if (condition != FlowAnalyzer.this.booleanClassInfo
+                    .getFalse()) {
+                visit(node.get_Stms(), this);
+            }
+            if (condition != FlowAnalyzer.this.booleanClassInfo.getTrue()
+                    && node.get_ElseOpt() instanceof NElseOpt_One) {
+                visit(((NElseOpt_One) node.get_ElseOpt()).get_Else()
+                        .get_Stms(), this);
+            }
+        }
+
+        @Override
+        public void caseExp_Is(
+                NExp_Is node) {
+
+            if (!collect(node)) {
+                defaultCase(node);
+            }
+        }
+
+        @Override
+        public void caseExp_Eq(
+                NExp_Eq node) {
+
+            if (!collect(node)) {
+                defaultCase(node);
+            }
+        }
+
+        @Override
+        public void caseExp_Isa(
+                NExp_Isa node) {
+
+            if (!collect(node)) {
+                defaultCase(node);
+            }
+        }
+
+        @Override
+        public void caseAddExp_Add(
+                NAddExp_Add node) {
+
+            if (!collect(node)) {
+                defaultCase(node);
+            }
+        }
+
+        @Override
+        public void caseLeftUnaryExp_Not(
+                NLeftUnaryExp_Not node) {
+
+            if (!collect(node)) {
+                defaultCase(node);
+            }
+        }
+    }
+}
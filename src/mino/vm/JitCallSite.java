@@ -0,0 +1,113 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.vm;
+
+import java.lang.invoke.*;
+
+import mino.structure.*;
+
+/**
+ * Linkage of a call site of compiled code. Its target compares the invoked
+ * method with the methods already seen at the site, most recent first, and
+ * relinks the site when none matches, typically because the receiver class
+ * changes. A site that sees too many methods stops growing its chain of
+ * tests and looks the entry point up on each call. A site bound to a method
+ * by class hierarchy analysis is linked to it without a test.
+ */
+final class JitCallSite
+        extends MutableCallSite {
+
+    private static final int MAX_LINKED_METHOD_COUNT = 4;
+
+    private static final MethodHandle RELINK;
+
+    private static final MethodHandle INVOKE_ANY;
+
+    private static final MethodHandle IS_INVOKING;
+
+    static {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            RELINK = lookup.findVirtual(JitCallSite.class, "relink",
+                    JitRuntime.ENTRY_TYPE);
+            INVOKE_ANY = lookup.findVirtual(JitCallSite.class, "invokeAny",
+                    JitRuntime.ENTRY_TYPE);
+            IS_INVOKING = lookup.findStatic(JitCallSite.class, "isInvoking",
+                    MethodType.methodType(boolean.class, MethodInfo.class,
+                            Frame.class));
+        }
+        catch (ReflectiveOperationException e) {
+            // if this point is reached, there's a bug
+            throw new RuntimeException(e);
+        }
+    }
+
+    private final JitRuntime runtime;
+
+    private final boolean bound;
+
+    private int linkedMethodCount;
+
+    JitCallSite(
+            JitRuntime runtime,
+            boolean bound) {
+
+        super(JitRuntime.ENTRY_TYPE);
+        this.runtime = runtime;
+        this.bound = bound;
+        setTarget(RELINK.bindTo(this));
+    }
+
+    private Instance relink(
+            Frame callee)
+            throws Throwable {
+
+        MethodInfo methodInfo = callee.getInvokedMethod();
+        MethodHandle entryPoint = this.runtime.getEntryPoint(methodInfo);
+
+        if (this.bound) {
+            // every call that passes the lookup invokes this method
+            setTarget(entryPoint);
+        }
+        else if (this.linkedMethodCount == MAX_LINKED_METHOD_COUNT) {
+            setTarget(INVOKE_ANY.bindTo(this));
+        }
+        else {
+            this.linkedMethodCount++;
+            setTarget(MethodHandles.guardWithTest(
+                    MethodHandles.insertArguments(IS_INVOKING, 0, methodInfo),
+                    entryPoint, getTarget()));
+        }
+
+        return (Instance) entryPoint.invokeExact(callee);
+    }
+
+    private Instance invokeAny(
+            Frame callee)
+            throws Throwable {
+
+        return (Instance) this.runtime
+                .getEntryPoint(callee.getInvokedMethod()).invokeExact(callee);
+    }
+
+    private static boolean isInvoking(
+            MethodInfo methodInfo,
+            Frame frame) {
+
+        return frame.getInvokedMethod() == methodInfo;
+    }
+}
@@ -0,0 +1,657 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.vm;
+
+import java.lang.invoke.*;
+import java.util.*;
+
+import mino.structure.*;
+import mino.vm.MethodAssembler.Label;
+
+/**
+ * Compiler of the register machine code of hot methods into JVM bytecode.
+ * Each method becomes a hidden class with a static run method that takes
+ * the frame of the invocation and the offset at which the method starts: 0
+ * for a call, or the start of a loop when a running method goes on in its
+ * compiled code, whose registers are then loaded from the frame. The
+ * registers of the method are JVM locals, and the objects of its constant
+ * pool, including the method handles that link its calls, are static final
+ * fields, which the JVM treats as constants. The same translation produces
+ * the classes of a program compiled ahead of time, whose constants are then
+ * described rather than passed to the class.
+ */
+final class JitCompiler {
+
+    private static final String FRAME = "mino/structure/Frame";
+
+    private static final String INSTANCE = "mino/structure/Instance";
+
+    private static final String CLASS_INFO = "mino/structure/ClassInfo";
+
+    private static final String FIELD_INFO = "mino/structure/FieldInfo";
+
+    private static final String RUNTIME = "mino/vm/JitRuntime";
+
+    private static final String SITE = "mino/vm/Site";
+
+    private static final String CALL_SITE = "mino/vm/CallSite";
+
+    private static final String FIELD_SITE = "mino/vm/FieldSite";
+
+    private static final String METHOD_HANDLE
+            = "java/lang/invoke/MethodHandle";
+
+    private static final String STRING = "java/lang/String";
+
+    private static final String EXCEPTION
+            = "mino/exception/InterpreterException";
+
+    private static final String OBJECT_ARRAY = "[Ljava/lang/Object;";
+
+    private static final String LOOKUP
+            = "java/lang/invoke/MethodHandles$Lookup";
+
+    static final MethodType CODE_TYPE
+            = MethodType.methodType(Instance.class, Frame.class, int.class);
+
+    // local 0 holds the frame, local 1 the start offset, local 2 self, and
+    // the registers follow
+    private static final int PC_LOCAL = 1;
+
+    private static final int SELF_LOCAL = 2;
+
+    private static final int FIRST_REGISTER_LOCAL = 3;
+
+    private static final int MAX_LOCAL_COUNT = 0xFFFF;
+
+    private static final int MAX_STACK = 8;
+
+    /** Constants that depend on the running virtual machine. */
+    static enum RuntimeConstant {
+        RUNTIME,
+        UNDEFINED;
+    }
+
+    /** Constant of the handle through which a call site is linked. */
+    static final class Linkage {
+
+        private final CallSite callSite;
+
+        Linkage(
+                CallSite callSite) {
+
+            this.callSite = callSite;
+        }
+
+        CallSite getCallSite() {
+
+            return this.callSite;
+        }
+    }
+
+    private final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+    private final JitRuntime runtime;
+
+    private int compiledCount;
+
+    // class of the method being compiled, with its constants
+    private ClassFileWriter classFile;
+
+    private final List<Object> constants = new ArrayList<>();
+
+    private final List<String> constantTypes = new ArrayList<>();
+
+    private final Map<Object, Integer> constantToIndexMap
+            = new IdentityHashMap<>();
+
+    /**
+     * Creates a compiler of the hot methods of a virtual machine, or, with a
+     * null runtime, a translator of methods compiled ahead of time.
+     */
+    JitCompiler(
+            JitRuntime runtime) {
+
+        this.runtime = runtime;
+    }
+
+    int getCompiledCount() {
+
+        return this.compiledCount;
+    }
+
+    /**
+     * Returns a handle on the compiled code of the method, or null if the
+     * method exceeds the limits of JVM methods.
+     */
+    MethodHandle compile(
+            BytecodeMethod method) {
+
+        byte[] classBytes = translate(method, "mino/vm/CompiledMethod");
+        if (classBytes == null) {
+            return null;
+        }
+
+        Object[] constants = new Object[this.constants.size()];
+        for (int i = 0; i < constants.length; i++) {
+            constants[i] = this.runtime.resolveConstant(this.constants.get(i));
+        }
+
+        try {
+            MethodHandles.Lookup compiled = this.lookup
+                    .defineHiddenClassWithClassData(classBytes, constants,
+                            true);
+            MethodHandle code = compiled
+                    .findStatic(compiled.lookupClass(), "run", CODE_TYPE);
+            this.compiledCount++;
+            return code;
+        }
+        catch (ReflectiveOperationException e) {
+            // if this point is reached, there's a bug
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Translates a method into a class with a static run method, and returns
+     * the class file, or null if the method exceeds the limits of JVM
+     * methods. The static initializer of the class obtains its constants
+     * from JitRuntime.getConstants, in the order of getConstants.
+     */
+    byte[] translate(
+            BytecodeMethod method,
+            String className) {
+
+        this.constants.clear();
+        this.constantTypes.clear();
+        this.constantToIndexMap.clear();
+
+        int localCount = FIRST_REGISTER_LOCAL + method.getRegisterCount();
+        if (localCount > MAX_LOCAL_COUNT) {
+            return null;
+        }
+
+        this.classFile = new ClassFileWriter(className);
+        try {
+            MethodAssembler run = assembleRun(method, localCount);
+            if (run.isTooLarge() || this.constants.size() > Short.MAX_VALUE) {
+                return null;
+            }
+
+            for (int i = 0; i < this.constants.size(); i++) {
+                this.classFile.addField(
+                        ClassFileWriter.ACC_PRIVATE_STATIC_FINAL, "k" + i,
+                        "L" + this.constantTypes.get(i) + ";");
+            }
+            this.classFile.addMethod(ClassFileWriter.ACC_STATIC, "run",
+                    "(L" + FRAME + ";I)L" + INSTANCE + ";", run);
+            this.classFile.addMethod(ClassFileWriter.ACC_STATIC, "<clinit>",
+                    "()V", assembleInitializer());
+            return this.classFile.toByteArray();
+        }
+        finally {
+            this.classFile = null;
+            this.constantToIndexMap.clear();
+        }
+    }
+
+    /**
+     * Returns the constants of the last translated method, where the objects
+     * of the running virtual machine are RuntimeConstant and Linkage values.
+     */
+    List<Object> getConstants() {
+
+        return Collections.unmodifiableList(this.constants);
+    }
+
+    // copies the constants into their static fields
+    private MethodAssembler assembleInitializer() {
+
+        MethodAssembler a = new MethodAssembler(this.classFile, 3,
+                new String[] { OBJECT_ARRAY });
+        a.invokeStatic("java/lang/invoke/MethodHandles", "lookup",
+                "()L" + LOOKUP + ";");
+        a.invokeStatic(RUNTIME, "getConstants",
+                "(L" + LOOKUP + ";)" + OBJECT_ARRAY);
+        a.astore(0);
+
+        for (int i = 0; i < this.constants.size(); i++) {
+            String type = this.constantTypes.get(i);
+            a.aload(0);
+            a.pushInt(i);
+            a.op(MethodAssembler.AALOAD);
+            a.checkcast(type);
+            a.putStatic(this.classFile.getClassName(), "k" + i,
+                    "L" + type + ";");
+        }
+
+        a.op(MethodAssembler.RETURN);
+        return a;
+    }
+
+    // returns, for each register, the offset of the only instruction that
+    // writes it if this instruction loads a constant or self and the
+    // register is not a parameter nor checked as a variable, or -1; such a
+    // register holds this value wherever it is read
+    private static int[] findInvariantDefinitions(
+            int[] code,
+            int paramCount,
+            int registerCount) {
+
+        int[] definitions = new int[registerCount];
+        Arrays.fill(definitions, -1);
+        boolean[] excluded = new boolean[registerCount];
+        Arrays.fill(excluded, 0, paramCount, true);
+
+        for (int pc = 0; pc < code.length; pc += Bytecode.getSize(code[pc])) {
+            int opcode = code[pc];
+            if (opcode == Bytecode.CHECK_VAR) {
+                excluded[code[pc + 1]] = true;
+            }
+            else if (opcode == Bytecode.TRY_ADD || opcode == Bytecode.TRY_EQ) {
+                // the guard is also written
+                excluded[code[pc + 1]] = true;
+                excluded[code[pc + 2]] = true;
+            }
+            else if (Bytecode.hasDestination(opcode)) {
+                int register = code[pc + 1];
+                if (definitions[register] >= 0
+                        || (opcode != Bytecode.CONST
+                                && opcode != Bytecode.SELF)) {
+                    excluded[register] = true;
+                }
+                definitions[register] = pc;
+            }
+        }
+
+        for (int i = 0; i < registerCount; i++) {
+            if (excluded[i]) {
+                definitions[i] = -1;
+            }
+        }
+
+        return definitions;
+    }
+
+    private MethodAssembler assembleRun(
+            BytecodeMethod method,
+            int localCount) {
+
+        String[] localTypes = new String[localCount];
+        Arrays.fill(localTypes, INSTANCE);
+        localTypes[0] = FRAME;
+        localTypes[PC_LOCAL] = "I";
+        MethodAssembler a
+                = new MethodAssembler(this.classFile, MAX_STACK, localTypes);
+
+        int[] code = method.getCode();
+        Object[] pool = method.getConstants();
+
+        Map<Integer, Label> pcToLabelMap = new HashMap<>();
+        SortedMap<Integer, Label> loopStartToLabelMap = new TreeMap<>();
+        for (int pc = 0; pc < code.length; pc += Bytecode.getSize(code[pc])) {
+            if (code[pc] == Bytecode.JUMP) {
+                Label label = getLabel(pcToLabelMap, code[pc + 1]);
+                if (code[pc + 1] < pc) {
+                    loopStartToLabelMap.put(code[pc + 1], label);
+                }
+            }
+            else if (code[pc] == Bytecode.JUMP_IF_FALSE
+                    || code[pc] == Bytecode.JUMP_IF_TRUE) {
+                getLabel(pcToLabelMap, code[pc + 2]);
+            }
+        }
+
+        // self, then the parameters; the other registers start unassigned
+        a.aload(0);
+        a.invokeVirtual(FRAME, "getReceiver", "()L" + INSTANCE + ";");
+        a.astore(SELF_LOCAL);
+        int paramCount = 0;
+        if (method.getMethodInfo() != null) {
+            paramCount = method.getMethodInfo().getParamCount();
+        }
+        for (int i = 0; i < method.getRegisterCount(); i++) {
+            if (i < paramCount) {
+                a.aload(0);
+                a.pushInt(i);
+                a.invokeVirtual(FRAME, "getValue",
+                        "(I)L" + INSTANCE + ";");
+            }
+            else {
+                loadConstant(a, RuntimeConstant.UNDEFINED, INSTANCE);
+            }
+            a.astore(local(i));
+        }
+
+        if (!loopStartToLabelMap.isEmpty()) {
+            // when starting in a loop, the registers come from the frame,
+            // except those that always hold the same value, so that the JVM
+            // still sees the constants that were loaded before the loop
+            int[] definitions = findInvariantDefinitions(code, paramCount,
+                    method.getRegisterCount());
+            Label body = new Label();
+            a.iload(PC_LOCAL);
+            a.jump(MethodAssembler.IFEQ, body);
+            for (int i = 0; i < method.getRegisterCount(); i++) {
+                int definition = definitions[i];
+                if (definition < 0) {
+                    loadConstant(a, RuntimeConstant.RUNTIME, RUNTIME);
+                    a.aload(0);
+                    a.pushInt(i);
+                    a.invokeVirtual(RUNTIME, "getRegister",
+                            "(L" + FRAME + ";I)L" + INSTANCE + ";");
+                }
+                else if (code[definition] == Bytecode.CONST) {
+                    loadConstant(a, pool[code[definition + 2]], INSTANCE);
+                }
+                else {
+                    a.aload(SELF_LOCAL);
+                }
+                a.astore(local(i));
+            }
+            a.iload(PC_LOCAL);
+            a.lookupSwitch(loopStartToLabelMap);
+            a.bind(body);
+        }
+
+        for (int pc = 0; pc < code.length; pc += Bytecode.getSize(code[pc])) {
+            Label label = pcToLabelMap.get(pc);
+            if (label != null) {
+                a.bind(label);
+            }
+
+            switch (code[pc]) {
+            case Bytecode.CONST:
+                loadConstant(a, pool[code[pc + 2]], INSTANCE);
+                a.astore(local(code[pc + 1]));
+                break;
+            case Bytecode.SELF:
+                a.aload(SELF_LOCAL);
+                a.astore(local(code[pc + 1]));
+                break;
+            case Bytecode.MOVE:
+                a.aload(local(code[pc + 2]));
+                a.astore(local(code[pc + 1]));
+                break;
+            case Bytecode.CHECK_VAR: {
+                Label assigned = new Label();
+                a.aload(local(code[pc + 1]));
+                loadConstant(a, RuntimeConstant.UNDEFINED, INSTANCE);
+                a.jump(MethodAssembler.IF_ACMPNE, assigned);
+                loadConstant(a, pool[code[pc + 2]], SITE);
+                a.invokeStatic(RUNTIME, "newUnknownVariableException",
+                        "(L" + SITE + ";)L" + EXCEPTION + ";");
+                a.op(MethodAssembler.ATHROW);
+                a.bind(assigned);
+                break;
+            }
+            case Bytecode.GET_FIELD:
+                assembleGetField(a, pool[code[pc + 2]]);
+                a.astore(local(code[pc + 1]));
+                break;
+            case Bytecode.PUT_FIELD:
+                a.aload(SELF_LOCAL);
+                loadConstant(a, pool[code[pc + 2]], FIELD_SITE);
+                a.aload(SELF_LOCAL);
+                a.invokeVirtual(FIELD_SITE, "getFieldInfo",
+                        "(L" + INSTANCE + ";)L" + FIELD_INFO + ";");
+                a.aload(local(code[pc + 1]));
+                a.invokeVirtual(INSTANCE, "setField",
+                        "(L" + FIELD_INFO + ";L" + INSTANCE + ";)V");
+                break;
+            case Bytecode.NEW:
+                loadConstant(a, pool[code[pc + 2]], CLASS_INFO);
+                a.invokeVirtual(CLASS_INFO, "newInstance",
+                        "()L" + INSTANCE + ";");
+                a.astore(local(code[pc + 1]));
+                break;
+            case Bytecode.IS:
+                loadConstant(a, RuntimeConstant.RUNTIME, RUNTIME);
+                a.aload(local(code[pc + 2]));
+                a.aload(local(code[pc + 3]));
+                a.invokeVirtual(RUNTIME, "is", "(L" + INSTANCE + ";L"
+                        + INSTANCE + ";)L" + INSTANCE + ";");
+                a.astore(local(code[pc + 1]));
+                break;
+            case Bytecode.ISA:
+                loadConstant(a, RuntimeConstant.RUNTIME, RUNTIME);
+                a.aload(local(code[pc + 2]));
+                loadConstant(a, pool[code[pc + 3]], CLASS_INFO);
+                a.invokeVirtual(RUNTIME, "isa", "(L" + INSTANCE + ";L"
+                        + CLASS_INFO + ";)L" + INSTANCE + ";");
+                a.astore(local(code[pc + 1]));
+                break;
+            case Bytecode.NOT:
+                loadConstant(a, RuntimeConstant.RUNTIME, RUNTIME);
+                a.aload(local(code[pc + 2]));
+                loadConstant(a, pool[code[pc + 3]], SITE);
+                a.invokeVirtual(RUNTIME, "not", "(L" + INSTANCE + ";L"
+                        + SITE + ";)L" + INSTANCE + ";");
+                a.astore(local(code[pc + 1]));
+                break;
+            case Bytecode.JUMP:
+                a.jump(MethodAssembler.GOTO, pcToLabelMap.get(code[pc + 1]));
+                break;
+            case Bytecode.JUMP_IF_FALSE:
+                loadConstant(a, RuntimeConstant.RUNTIME, RUNTIME);
+                a.aload(local(code[pc + 1]));
+                loadConstant(a, pool[code[pc + 3]], SITE);
+                a.invokeVirtual(RUNTIME, "getCondition",
+                        "(L" + INSTANCE + ";L" + SITE + ";)Z");
+                a.jump(MethodAssembler.IFEQ, pcToLabelMap.get(code[pc + 2]));
+                break;
+            case Bytecode.JUMP_IF_TRUE:
+                loadConstant(a, RuntimeConstant.RUNTIME, RUNTIME);
+                a.aload(local(code[pc + 1]));
+                loadConstant(a, pool[code[pc + 3]], SITE);
+                a.invokeVirtual(RUNTIME, "getCondition",
+                        "(L" + INSTANCE + ";L" + SITE + ";)Z");
+                a.jump(MethodAssembler.IFNE, pcToLabelMap.get(code[pc + 2]));
+                break;
+            case Bytecode.EQ:
+                assembleOperator(a, "eq", code, pc, pool);
+                break;
+            case Bytecode.ADD:
+            case Bytecode.ADD_CONST:
+            case Bytecode.ADD_FIELD_CONST:
+                assembleOperator(a, "add", code, pc, pool);
+                break;
+            case Bytecode.PREPARE:
+                loadConstant(a, RuntimeConstant.RUNTIME, RUNTIME);
+                a.aload(local(code[pc + 1]));
+                loadConstant(a, pool[code[pc + 2]], CALL_SITE);
+                a.invokeVirtual(RUNTIME, "prepare",
+                        "(L" + INSTANCE + ";L" + CALL_SITE + ";)V");
+                break;
+            case Bytecode.PREPARE_SELF:
+                loadConstant(a, RuntimeConstant.RUNTIME, RUNTIME);
+                a.aload(SELF_LOCAL);
+                loadConstant(a, pool[code[pc + 1]], CALL_SITE);
+                a.invokeVirtual(RUNTIME, "prepare",
+                        "(L" + INSTANCE + ";L" + CALL_SITE + ";)V");
+                break;
+            case Bytecode.CALL: {
+                for (int i = 0; i < code[pc + 3]; i++) {
+                    loadConstant(a, RuntimeConstant.RUNTIME, RUNTIME);
+                    a.aload(local(code[pc + 2] + i));
+                    a.invokeVirtual(RUNTIME, "setParam",
+                            "(L" + INSTANCE + ";)V");
+                }
+
+                assembleInvoke(a, (CallSite) pool[code[pc + 4]]);
+                a.astore(local(code[pc + 1]));
+                break;
+            }
+            case Bytecode.INVOKE: {
+                CallSite callSite = (CallSite) pool[code[pc + 3]];
+                loadConstant(a, RuntimeConstant.RUNTIME, RUNTIME);
+                a.aload(local(code[pc + 2]));
+                loadConstant(a, callSite, CALL_SITE);
+                a.invokeVirtual(RUNTIME, "prepare",
+                        "(L" + INSTANCE + ";L" + CALL_SITE + ";)V");
+                assembleInvoke(a, callSite);
+                a.astore(local(code[pc + 1]));
+                break;
+            }
+            case Bytecode.RETURN:
+                a.aload(local(code[pc + 1]));
+                a.op(MethodAssembler.ARETURN);
+                break;
+            case Bytecode.RETURN_NULL:
+            case Bytecode.HALT:
+                a.op(MethodAssembler.ACONST_NULL);
+                a.op(MethodAssembler.ARETURN);
+                break;
+            case Bytecode.TRY_ADD:
+            case Bytecode.TRY_EQ: {
+                String name = "tryEq";
+                if (code[pc] == Bytecode.TRY_ADD) {
+                    name = "tryAdd";
+                }
+                loadConstant(a, RuntimeConstant.RUNTIME, RUNTIME);
+                a.aload(local(code[pc + 3]));
+                a.aload(local(code[pc + 4]));
+                a.invokeVirtual(RUNTIME, name, "(L" + INSTANCE + ";L"
+                        + INSTANCE + ";)L" + INSTANCE + ";");
+                a.astore(local(code[pc + 1]));
+                loadConstant(a, RuntimeConstant.RUNTIME, RUNTIME);
+                a.aload(local(code[pc + 2]));
+                a.aload(local(code[pc + 1]));
+                a.invokeVirtual(RUNTIME, "getGuard", "(L" + INSTANCE + ";L"
+                        + INSTANCE + ";)L" + INSTANCE + ";");
+                a.astore(local(code[pc + 2]));
+                loadConstant(a, RuntimeConstant.RUNTIME, RUNTIME);
+                a.aload(local(code[pc + 1]));
+                a.invokeVirtual(RUNTIME, "getGuardedValue",
+                        "(L" + INSTANCE + ";)L" + INSTANCE + ";");
+                a.astore(local(code[pc + 1]));
+                break;
+            }
+            case Bytecode.FAIL:
+                loadConstant(a, pool[code[pc + 2]], SITE);
+                loadConstant(a, pool[code[pc + 1]], STRING);
+                a.invokeVirtual(SITE, "newException",
+                        "(L" + STRING + ";)L" + EXCEPTION + ";");
+                a.op(MethodAssembler.ATHROW);
+                break;
+            default:
+                // if this point is reached, there's a bug
+                throw new RuntimeException("unhandled case");
+            }
+        }
+
+        return a;
+    }
+
+    private void assembleOperator(
+            MethodAssembler a,
+            String name,
+            int[] code,
+            int pc,
+            Object[] pool) {
+
+        CallSite callSite = (CallSite) pool[code[pc + 4]];
+        loadConstant(a, RuntimeConstant.RUNTIME, RUNTIME);
+        a.aload(0);
+        if (code[pc] == Bytecode.ADD_CONST) {
+            a.aload(local(code[pc + 2]));
+            loadConstant(a, pool[code[pc + 3]], INSTANCE);
+        }
+        else if (code[pc] == Bytecode.ADD_FIELD_CONST) {
+            assembleGetField(a, pool[code[pc + 2]]);
+            loadConstant(a, pool[code[pc + 3]], INSTANCE);
+        }
+        else {
+            a.aload(local(code[pc + 2]));
+            a.aload(local(code[pc + 3]));
+        }
+        loadConstant(a, callSite, CALL_SITE);
+        loadConstant(a, new Linkage(callSite), METHOD_HANDLE);
+        a.invokeVirtual(RUNTIME, name, "(L" + FRAME + ";L" + INSTANCE + ";L"
+                + INSTANCE + ";L" + CALL_SITE + ";L" + METHOD_HANDLE + ";)L"
+                + INSTANCE + ";");
+        a.astore(local(code[pc + 1]));
+    }
+
+    // invokes the method of the top frame
+    private void assembleInvoke(
+            MethodAssembler a,
+            CallSite callSite) {
+
+        loadConstant(a, RuntimeConstant.RUNTIME, RUNTIME);
+        a.aload(0);
+        loadConstant(a, callSite, CALL_SITE);
+        loadConstant(a, new Linkage(callSite), METHOD_HANDLE);
+        a.invokeVirtual(RUNTIME, "invoke", "(L" + FRAME + ";L" + CALL_SITE
+                + ";L" + METHOD_HANDLE + ";)L" + INSTANCE + ";");
+    }
+
+    // pushes the value of a field of self
+    private void assembleGetField(
+            MethodAssembler a,
+            Object fieldSite) {
+
+        a.aload(SELF_LOCAL);
+        loadConstant(a, fieldSite, FIELD_SITE);
+        a.aload(SELF_LOCAL);
+        a.invokeVirtual(FIELD_SITE, "getFieldInfo",
+                "(L" + INSTANCE + ";)L" + FIELD_INFO + ";");
+        a.invokeVirtual(INSTANCE, "getField",
+                "(L" + FIELD_INFO + ";)L" + INSTANCE + ";");
+    }
+
+    private static Label getLabel(
+            Map<Integer, Label> pcToLabelMap,
+            int pc) {
+
+        Label label = pcToLabelMap.get(pc);
+        if (label == null) {
+            label = new Label();
+            pcToLabelMap.put(pc, label);
+        }
+
+        return label;
+    }
+
+    private static int local(
+            int register) {
+
+        return FIRST_REGISTER_LOCAL + register;
+    }
+
+    private void loadConstant(
+            MethodAssembler a,
+            Object value,
+            String type) {
+
+        if (value == null) {
+            a.op(MethodAssembler.ACONST_NULL);
+            return;
+        }
+
+        Integer index = this.constantToIndexMap.get(value);
+        if (index == null) {
+            index = this.constants.size();
+            this.constants.add(value);
+            this.constantTypes.add(type);
+            this.constantToIndexMap.put(value, index);
+        }
+
+        a.getStatic(this.classFile.getClassName(), "k" + index,
+                "L" + this.constantTypes.get(index) + ";");
+    }
+}
@@ -0,0 +1,381 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.vm;
+
+import java.lang.invoke.*;
+
+import mino.exception.*;
+import mino.structure.*;
+
+/**
+ * Operations of compiled code that are not expanded into JVM bytecode, and
+ * linkage of its calls. Compiled code invokes a method through the entry
+ * point of the method, a call site that targets the dispatch loop until
+ * the method is compiled, and its compiled code afterwards.
+ */
+final class JitRuntime {
+
+    static final MethodType ENTRY_TYPE
+            = MethodType.methodType(Instance.class, Frame.class);
+
+    private static final MethodHandle INTERPRET;
+
+    private static final MethodHandle INVOKE_PRIMITIVE;
+
+    static {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodType type = ENTRY_TYPE.insertParameterTypes(0,
+                BytecodeMethod.class);
+        try {
+            INTERPRET = lookup.findVirtual(VirtualMachine.class, "interpret",
+                    type);
+            INVOKE_PRIMITIVE = lookup.findVirtual(VirtualMachine.class,
+                    "invokePrimitive", type);
+        }
+        catch (ReflectiveOperationException e) {
+            // if this point is reached, there's a bug
+            throw new RuntimeException(e);
+        }
+    }
+
+    private final VirtualMachine virtualMachine;
+
+    private final CallStack callStack;
+
+    private final IntegerClassInfo integerClassInfo;
+
+    private final Primitives primitives;
+
+    private final PureOperators pureOperators;
+
+    // set if + is the primitive addition in class Integer, which compiled
+    // code then performs without a call
+    private final boolean primitiveIntegerPlus;
+
+    // value of the variables that are not yet assigned
+    private final Instance undefined;
+
+    JitRuntime(
+            VirtualMachine virtualMachine,
+            CallStack callStack,
+            ClassTable classTable,
+            Primitives primitives) {
+
+        this.virtualMachine = virtualMachine;
+        this.callStack = callStack;
+        this.integerClassInfo
+                = (IntegerClassInfo) classTable.getIntegerClassInfoOrNull();
+        this.primitives = primitives;
+        this.pureOperators = virtualMachine.getPureOperators();
+
+        MethodInfo plus = this.integerClassInfo.getMethodTable()
+                .getMethodInfoOrNull(classTable.getSelector("+"));
+        this.primitiveIntegerPlus = plus instanceof PrimitiveOperatorMethodInfo;
+
+        this.undefined = Instance.newMarker();
+    }
+
+    Instance getUndefined() {
+
+        return this.undefined;
+    }
+
+    /**
+     * Returns the object of a constant of compiled code, which is the
+     * constant itself unless it depends on the virtual machine.
+     */
+    Object resolveConstant(
+            Object constant) {
+
+        if (constant == JitCompiler.RuntimeConstant.RUNTIME) {
+            return this;
+        }
+        else if (constant == JitCompiler.RuntimeConstant.UNDEFINED) {
+            return this.undefined;
+        }
+        else if (constant instanceof JitCompiler.Linkage) {
+            return getLinkage(((JitCompiler.Linkage) constant).getCallSite());
+        }
+
+        return constant;
+    }
+
+    /**
+     * Returns the constants of a compiled class, which are the class data of
+     * a hidden class, or were registered when loading a program compiled
+     * ahead of time.
+     */
+    static Object[] getConstants(
+            MethodHandles.Lookup lookup)
+            throws IllegalAccessException {
+
+        Object[] constants
+                = MethodHandles.classData(lookup, "_", Object[].class);
+        if (constants == null) {
+            constants = AotLoader.getConstants(lookup.lookupClass());
+        }
+
+        return constants;
+    }
+
+    static InterpreterException newUnknownVariableException(
+            Site site) {
+
+        return site.newException("unknown variable " + site.getText());
+    }
+
+    Instance is(
+            Instance left,
+            Instance right) {
+
+        return this.virtualMachine.getBoolean(Instance.isSame(left, right));
+    }
+
+    Instance isa(
+            Instance value,
+            ClassInfo classInfo) {
+
+        return this.virtualMachine
+                .getBoolean(value == null || value.isa(classInfo));
+    }
+
+    Instance not(
+            Instance value,
+            Site site) {
+
+        return this.virtualMachine
+                .getBoolean(!this.virtualMachine.getCondition(value, site));
+    }
+
+    boolean getCondition(
+            Instance value,
+            Site site) {
+
+        return this.virtualMachine.getCondition(value, site);
+    }
+
+    void prepare(
+            Instance receiver,
+            CallSite callSite) {
+
+        if (receiver == null) {
+            throw callSite.newException(
+                    "receiver of " + callSite.getText() + " method is null");
+        }
+        this.virtualMachine.prepare(receiver, callSite);
+    }
+
+    void setParam(
+            Instance value) {
+
+        this.callStack.getTop().setParam(value);
+    }
+
+    Instance eq(
+            Frame caller,
+            Instance left,
+            Instance right,
+            CallSite callSite,
+            MethodHandle linkage)
+            throws Throwable {
+
+        if (left == null || right == null) {
+            return this.virtualMachine.getBoolean(left == right);
+        }
+
+        this.virtualMachine.prepare(left, callSite).setParam(right);
+        return invoke(caller, callSite, linkage);
+    }
+
+    Instance add(
+            Frame caller,
+            Instance left,
+            Instance right,
+            CallSite callSite,
+            MethodHandle linkage)
+            throws Throwable {
+
+        if (left == null) {
+            throw callSite.newException("left argument of + method is null");
+        }
+        if (right == null) {
+            throw callSite.newException("right argument of + method is null");
+        }
+
+        if (this.primitiveIntegerPlus
+                && left.getClassInfo() == this.integerClassInfo
+                && right.getClassInfo() == this.integerClassInfo) {
+            return this.primitives
+                    .add((IntegerInstance) left, (IntegerInstance) right);
+        }
+
+        this.virtualMachine.prepare(left, callSite).setParam(right);
+        return invoke(caller, callSite, linkage);
+    }
+
+    Instance tryAdd(
+            Instance left,
+            Instance right) {
+
+        return this.pureOperators.add(left, right);
+    }
+
+    Instance tryEq(
+            Instance left,
+            Instance right) {
+
+        return this.pureOperators.eq(left, right);
+    }
+
+    // returns the guard of a guarded operator, given its result
+    Instance getGuard(
+            Instance guard,
+            Instance value) {
+
+        if (value == Intrinsic.NOT_HANDLED) {
+            return this.virtualMachine.getBoolean(false);
+        }
+
+        return guard;
+    }
+
+    // returns the value of a guarded operator, given its result
+    Instance getGuardedValue(
+            Instance value) {
+
+        if (value == Intrinsic.NOT_HANDLED) {
+            return null;
+        }
+
+        return value;
+    }
+
+    // invokes the method of the top frame
+    Instance invoke(
+            Frame caller,
+            CallSite callSite,
+            MethodHandle linkage)
+            throws Throwable {
+
+        Frame callee = this.callStack.getTop();
+        Intrinsic intrinsic = callee.getInvokedMethod().getIntrinsicOrNull();
+        if (intrinsic != null) {
+            Instance value = intrinsic.execute(callee);
+            if (value != Intrinsic.NOT_HANDLED) {
+                this.callStack.pop(callee);
+                return value;
+            }
+        }
+
+        caller.setCurrentLocation(callSite.getLine(), callSite.getPos());
+        this.virtualMachine.setCurrentFrame(callee);
+        Instance value = (Instance) linkage.invokeExact(callee);
+        this.virtualMachine.setCurrentFrame(caller);
+        caller.setCurrentLocation(0, 0);
+        this.callStack.pop(callee);
+        return value;
+    }
+
+    /** Returns a handle that invokes the method of a frame. */
+    MethodHandle getEntryPoint(
+            MethodInfo methodInfo) {
+
+        BytecodeMethod method = this.virtualMachine.getMethod(methodInfo);
+        if (method.getEntryPoint() == null) {
+            MethodHandle target = method.getCompiledCode();
+            if (target == null) {
+                if (method.isPrimitive()) {
+                    target = INVOKE_PRIMITIVE;
+                }
+                else {
+                    target = INTERPRET;
+                }
+                target = target.bindTo(this.virtualMachine).bindTo(method);
+            }
+            method.setEntryPoint(new MutableCallSite(target));
+        }
+
+        return method.getEntryPoint().dynamicInvoker();
+    }
+
+    /** Returns the handle through which compiled code makes a call. */
+    MethodHandle getLinkage(
+            CallSite callSite) {
+
+        if (callSite.getLinkage() == null) {
+            boolean bound = callSite.getInlineCache()
+                    .getStaticMethodInfoOrNull() != null;
+            callSite.setLinkage(new JitCallSite(this, bound));
+        }
+
+        return callSite.getLinkage().dynamicInvoker();
+    }
+
+    void setCompiledCode(
+            BytecodeMethod method,
+            MethodHandle compiledCodeAt) {
+
+        method.setCompiledCode(compiledCodeAt);
+        if (method.getEntryPoint() != null) {
+            method.getEntryPoint().setTarget(method.getCompiledCode());
+        }
+    }
+
+    Instance getRegister(
+            Frame frame,
+            int register) {
+
+        if (frame.isDefined(register)) {
+            return frame.getValue(register);
+        }
+
+        return this.undefined;
+    }
+
+    static Instance invokeCompiledCode(
+            MethodHandle compiledCode,
+            Frame frame) {
+
+        try {
+            return (Instance) compiledCode.invokeExact(frame);
+        }
+        catch (RuntimeException | Error e) {
+            throw e;
+        }
+        catch (Throwable e) {
+            // if this point is reached, there's a bug
+            throw new RuntimeException(e);
+        }
+    }
+
+    static Instance invokeCompiledCode(
+            BytecodeMethod method,
+            Frame frame,
+            int pc) {
+
+        try {
+            return (Instance) method.getCompiledCodeAt().invokeExact(frame, pc);
+        }
+        catch (RuntimeException | Error e) {
+            throw e;
+        }
+        catch (Throwable e) {
+            // if this point is reached, there's a bug
+            throw new RuntimeException(e);
+        }
+    }
+}
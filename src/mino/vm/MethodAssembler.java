@@ -0,0 +1,377 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.vm;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Assembler of the code of a JVM method. Branches are only taken with an
+ * empty operand stack, and all the locals of a method are assigned before
+ * its first branch target, so a single full stack map frame, listing the
+ * types of the locals, is valid at every branch target. Locals hold
+ * references, of the given classes, or ints, whose type is "I".
+ */
+final class MethodAssembler {
+
+    static final int ACONST_NULL = 0x01;
+
+    static final int AALOAD = 0x32;
+
+    static final int IFEQ = 0x99;
+
+    static final int IFNE = 0x9A;
+
+    static final int IF_ACMPNE = 0xA6;
+
+    static final int GOTO = 0xA7;
+
+    static final int ARETURN = 0xB0;
+
+    static final int RETURN = 0xB1;
+
+    static final int ATHROW = 0xBF;
+
+    private static final int BIPUSH = 0x10;
+
+    private static final int SIPUSH = 0x11;
+
+    private static final int LDC_W = 0x13;
+
+    private static final int ILOAD = 0x15;
+
+    private static final int ALOAD = 0x19;
+
+    private static final int ASTORE = 0x3A;
+
+    private static final int LOOKUPSWITCH = 0xAB;
+
+    private static final int GETSTATIC = 0xB2;
+
+    private static final int PUTSTATIC = 0xB3;
+
+    private static final int INVOKEVIRTUAL = 0xB6;
+
+    private static final int INVOKESTATIC = 0xB8;
+
+    private static final int CHECKCAST = 0xC0;
+
+    private static final int WIDE = 0xC4;
+
+    private static final int FULL_FRAME = 255;
+
+    private static final int INTEGER_VARIABLE = 1;
+
+    private static final int OBJECT_VARIABLE = 7;
+
+    // the JVM limits code to 65535 bytes, and branch offsets to 16 bits
+    private static final int MAX_CODE_SIZE = Short.MAX_VALUE;
+
+    static final class Label {
+
+        private int offset = -1;
+
+        // offsets of the branch instructions, of their operand, and size of
+        // the operand
+        private final List<int[]> fixups = new ArrayList<>();
+    }
+
+    private final ClassFileWriter classFile;
+
+    private final int maxStack;
+
+    private final String[] localTypes;
+
+    private byte[] code = new byte[256];
+
+    private int size;
+
+    private final SortedSet<Integer> frameOffsets = new TreeSet<>();
+
+    MethodAssembler(
+            ClassFileWriter classFile,
+            int maxStack,
+            String[] localTypes) {
+
+        this.classFile = classFile;
+        this.maxStack = maxStack;
+        this.localTypes = localTypes;
+    }
+
+    boolean isTooLarge() {
+
+        return this.size > MAX_CODE_SIZE;
+    }
+
+    void op(
+            int opcode) {
+
+        u1(opcode);
+        if (opcode == ARETURN || opcode == ATHROW) {
+            // code that follows an unconditional transfer needs a frame
+            this.frameOffsets.add(this.size);
+        }
+    }
+
+    void iload(
+            int local) {
+
+        localOp(ILOAD, local);
+    }
+
+    void aload(
+            int local) {
+
+        localOp(ALOAD, local);
+    }
+
+    void astore(
+            int local) {
+
+        localOp(ASTORE, local);
+    }
+
+    private void localOp(
+            int opcode,
+            int local) {
+
+        if (local > 0xFF) {
+            u1(WIDE);
+            u1(opcode);
+            u2(local);
+        }
+        else {
+            u1(opcode);
+            u1(local);
+        }
+    }
+
+    void pushInt(
+            int value) {
+
+        if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            u1(BIPUSH);
+            u1(value);
+        }
+        else {
+            u1(SIPUSH);
+            u2(value);
+        }
+    }
+
+    void ldcString(
+            String text) {
+
+        u1(LDC_W);
+        u2(this.classFile.string(text));
+    }
+
+    void ldcClass(
+            String internalName) {
+
+        u1(LDC_W);
+        u2(this.classFile.classRef(internalName));
+    }
+
+    void checkcast(
+            String internalName) {
+
+        u1(CHECKCAST);
+        u2(this.classFile.classRef(internalName));
+    }
+
+    void getStatic(
+            String owner,
+            String name,
+            String descriptor) {
+
+        u1(GETSTATIC);
+        u2(this.classFile.fieldRef(owner, name, descriptor));
+    }
+
+    void putStatic(
+            String owner,
+            String name,
+            String descriptor) {
+
+        u1(PUTSTATIC);
+        u2(this.classFile.fieldRef(owner, name, descriptor));
+    }
+
+    void invokeVirtual(
+            String owner,
+            String name,
+            String descriptor) {
+
+        u1(INVOKEVIRTUAL);
+        u2(this.classFile.methodRef(owner, name, descriptor));
+    }
+
+    void invokeStatic(
+            String owner,
+            String name,
+            String descriptor) {
+
+        u1(INVOKESTATIC);
+        u2(this.classFile.methodRef(owner, name, descriptor));
+    }
+
+    void jump(
+            int opcode,
+            Label label) {
+
+        int start = this.size;
+        u1(opcode);
+        offset(start, label, 2);
+
+        if (opcode == GOTO) {
+            this.frameOffsets.add(this.size);
+        }
+    }
+
+    /** Jumps to the label of the key of an int, which must have one. */
+    void lookupSwitch(
+            SortedMap<Integer, Label> keyToLabelMap) {
+
+        int start = this.size;
+        u1(LOOKUPSWITCH);
+        while (this.size % 4 != 0) {
+            u1(0);
+        }
+
+        // the first key serves as default
+        offset(start, keyToLabelMap.get(keyToLabelMap.firstKey()), 4);
+        u4(keyToLabelMap.size());
+        for (Map.Entry<Integer, Label> entry : keyToLabelMap.entrySet()) {
+            u4(entry.getKey());
+            offset(start, entry.getValue(), 4);
+        }
+
+        this.frameOffsets.add(this.size);
+    }
+
+    private void offset(
+            int start,
+            Label label,
+            int width) {
+
+        if (label.offset < 0) {
+            label.fixups.add(new int[] { start, this.size, width });
+        }
+
+        int offset = label.offset - start;
+        if (width == 2) {
+            u2(offset);
+        }
+        else {
+            u4(offset);
+        }
+    }
+
+    void bind(
+            Label label) {
+
+        label.offset = this.size;
+        this.frameOffsets.add(this.size);
+        for (int[] fixup : label.fixups) {
+            int offset = this.size - fixup[0];
+            for (int i = fixup[2] - 1; i >= 0; i--) {
+                this.code[fixup[1] + i] = (byte) offset;
+                offset >>= 8;
+            }
+        }
+        label.fixups.clear();
+    }
+
+    private void u1(
+            int value) {
+
+        if (this.size == this.code.length) {
+            this.code = Arrays.copyOf(this.code, this.size * 2);
+        }
+        this.code[this.size++] = (byte) value;
+    }
+
+    private void u2(
+            int value) {
+
+        u1(value >> 8);
+        u1(value);
+    }
+
+    private void u4(
+            int value) {
+
+        u2(value >> 16);
+        u2(value);
+    }
+
+    void writeCodeAttribute(
+            ByteArrayOutputStream out,
+            int nameIndex) {
+
+        // frames are only needed where code follows
+        this.frameOffsets.remove(this.size);
+
+        ByteArrayOutputStream stackMap = new ByteArrayOutputStream();
+        if (!this.frameOffsets.isEmpty()) {
+            ClassFileWriter.writeU2(stackMap, this.frameOffsets.size());
+            int previous = -1;
+            for (int offset : this.frameOffsets) {
+                stackMap.write(FULL_FRAME);
+                ClassFileWriter.writeU2(stackMap, offset - previous - 1);
+                ClassFileWriter.writeU2(stackMap, this.localTypes.length);
+                for (String type : this.localTypes) {
+                    if (type.equals("I")) {
+                        stackMap.write(INTEGER_VARIABLE);
+                    }
+                    else {
+                        stackMap.write(OBJECT_VARIABLE);
+                        ClassFileWriter.writeU2(stackMap,
+                                this.classFile.classRef(type));
+                    }
+                }
+                ClassFileWriter.writeU2(stackMap, 0);
+                previous = offset;
+            }
+        }
+
+        int attributeLength = 12 + this.size;
+        int stackMapNameIndex = 0;
+        if (stackMap.size() > 0) {
+            stackMapNameIndex = this.classFile.utf8("StackMapTable");
+            attributeLength += 6 + stackMap.size();
+        }
+
+        ClassFileWriter.writeU2(out, nameIndex);
+        ClassFileWriter.writeU4(out, attributeLength);
+        ClassFileWriter.writeU2(out, this.maxStack);
+        ClassFileWriter.writeU2(out, this.localTypes.length);
+        ClassFileWriter.writeU4(out, this.size);
+        out.write(this.code, 0, this.size);
+        ClassFileWriter.writeU2(out, 0);
+        if (stackMap.size() > 0) {
+            ClassFileWriter.writeU2(out, 1);
+            ClassFileWriter.writeU2(out, stackMapNameIndex);
+            ClassFileWriter.writeU4(out, stackMap.size());
+            out.write(stackMap.toByteArray(), 0, stackMap.size());
+        }
+        else {
+            ClassFileWriter.writeU2(out, 0);
+        }
+    }
+}
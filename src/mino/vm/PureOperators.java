@@ -0,0 +1,109 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.vm;
+
+import mino.structure.*;
+
+/**
+ * Evaluator of the + and == operators when they have no effect and cannot
+ * fail. This is the case when + invokes the primitive + of Integer or String
+ * on two integers or two strings, and when == invokes a method whose body
+ * has no effect and cannot fail, such as the one of Object. Expressions are
+ * evaluated with it when they are compiled, and before a loop when they do
+ * not change in the loop.
+ */
+class PureOperators {
+
+    private final BooleanClassInfo booleanClassInfo;
+
+    private final Primitives primitives;
+
+    private final int plusSelector;
+
+    private final int eqSelector;
+
+    PureOperators(
+            ClassTable classTable,
+            Primitives primitives) {
+
+        this.booleanClassInfo
+                = (BooleanClassInfo) classTable.getBooleanClassInfoOrNull();
+        this.primitives = primitives;
+        this.plusSelector = classTable.getSelector("+");
+        this.eqSelector = classTable.getSelector("==");
+    }
+
+    /**
+     * Returns left + right, or Intrinsic.NOT_HANDLED if the addition may
+     * have an effect or fail.
+     */
+    Instance add(
+            Instance left,
+            Instance right) {
+
+        if (left == null) {
+            return Intrinsic.NOT_HANDLED;
+        }
+
+        MethodInfo methodInfo = left.getClassInfo().getMethodTable()
+                .getMethodInfoOrNull(this.plusSelector);
+        if (!(methodInfo instanceof PrimitiveOperatorMethodInfo)) {
+            return Intrinsic.NOT_HANDLED;
+        }
+
+        if (left instanceof IntegerInstance
+                && right instanceof IntegerInstance) {
+            return this.primitives.add((IntegerInstance) left,
+                    (IntegerInstance) right);
+        }
+        if (left instanceof StringInstance && right instanceof StringInstance) {
+            return this.primitives.concat((StringInstance) left,
+                    (StringInstance) right);
+        }
+
+        // the primitive fails on other arguments
+        return Intrinsic.NOT_HANDLED;
+    }
+
+    /**
+     * Returns left == right, or Intrinsic.NOT_HANDLED if the comparison may
+     * have an effect or fail.
+     */
+    Instance eq(
+            Instance left,
+            Instance right) {
+
+        if (left == null || right == null) {
+            if (left == right) {
+                return this.booleanClassInfo.getTrue();
+            }
+            return this.booleanClassInfo.getFalse();
+        }
+
+        MethodInfo methodInfo = left.getClassInfo().getMethodTable()
+                .getMethodInfoOrNull(this.eqSelector);
+        if (methodInfo == null || methodInfo.getParamCount() != 1) {
+            return Intrinsic.NOT_HANDLED;
+        }
+        Intrinsic intrinsic = methodInfo.getIntrinsicOrNull();
+        if (intrinsic == null || !intrinsic.isPure()) {
+            return Intrinsic.NOT_HANDLED;
+        }
+
+        return intrinsic.execute(left, right);
+    }
+}
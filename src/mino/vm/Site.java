@@ -0,0 +1,70 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.vm;
+
+import mino.exception.*;
+import mino.language_mino.*;
+
+/**
+ * Source location of an instruction that may fail, with the text of the
+ * token found there.
+ */
+class Site {
+
+    private final String text;
+
+    private final int line;
+
+    private final int pos;
+
+    Site(
+            Token token) {
+
+        this(token.getText(), token.getLine(), token.getPos());
+    }
+
+    Site(
+            String text,
+            int line,
+            int pos) {
+
+        this.text = text;
+        this.line = line;
+        this.pos = pos;
+    }
+
+    String getText() {
+
+        return this.text;
+    }
+
+    int getLine() {
+
+        return this.line;
+    }
+
+    int getPos() {
+
+        return this.pos;
+    }
+
+    InterpreterException newException(
+            String message) {
+
+        return new InterpreterException(message, this.line, this.pos);
+    }
+}
@@ -0,0 +1,831 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.vm;
+
+import java.lang.invoke.*;
+import java.util.*;
+
+import mino.exception.*;
+import mino.language_mino.*;
+import mino.structure.*;
+
+/**
+ * Execution engine that compiles the whole program into register machine
+ * code when it is loaded, then runs it in a single dispatch loop. The code
+ * refers to no syntax tree node, so the syntax tree and the tables of the
+ * resolver are released before the program runs. When compiling hot
+ * methods, the dispatch loop counts invocations and loop iterations, and
+ * methods that reach a threshold are compiled into JVM bytecode, which then
+ * runs instead of the register machine code. A program compiled ahead of
+ * time is loaded with the JVM bytecode of all its methods.
+ */
+public class VirtualMachine
+        implements ExecutionEngine {
+
+    private static final int INITIAL_ACTIVATION_CAPACITY = 64;
+
+    private static final int HOT_INVOCATION_COUNT = 1000;
+
+    private static final int HOT_BACK_EDGE_COUNT = 10000;
+
+    private final StandardOutput standardOutput;
+
+    private final boolean compileHotMethods;
+
+    private JitRuntime jitRuntime;
+
+    private JitCompiler jitCompiler;
+
+    private final Map<MethodInfo, BytecodeMethod> methodInfoToMethodMap
+            = new IdentityHashMap<>();
+
+    private final CallStack callStack = new CallStack();
+
+    private ClassTable classTable;
+
+    private BytecodeMethod mainMethod;
+
+    private ClassInfo objectClassInfo;
+
+    private BooleanClassInfo booleanClassInfo;
+
+    private IntegerClassInfo integerClassInfo;
+
+    private StringClassInfo stringClassInfo;
+
+    private Primitives primitives;
+
+    private PureOperators pureOperators;
+
+    // set if + is the primitive method in class Integer, and in class
+    // String, which superinstructions then perform without a call
+    private boolean primitiveIntegerPlus;
+
+    private boolean primitiveStringPlus;
+
+    // number of superinstructions and of optimizations of each kind, if the
+    // program was compiled here
+    private Map<String, Integer> superinstructionCounts;
+
+    private Map<String, Integer> optimizationCounts;
+
+    // call sites bound to a method, if the program was compiled here
+    private String staticCallSiteReport;
+
+    private Frame currentFrame;
+
+    // method being executed, and offset of its next instruction when the
+    // dispatch loop is left to call a method
+    private BytecodeMethod method;
+
+    private int pc;
+
+    // methods waiting for a call to return, with their return offset and
+    // the register that receives the returned value
+    private BytecodeMethod[] returnMethods
+            = new BytecodeMethod[INITIAL_ACTIVATION_CAPACITY];
+
+    private int[] returnPcs = new int[INITIAL_ACTIVATION_CAPACITY];
+
+    private int[] returnRegisters = new int[INITIAL_ACTIVATION_CAPACITY];
+
+    private int activationCount;
+
+    // loop iterations of the main program, which has no method information
+    private int mainBackEdgeCount;
+
+    public VirtualMachine(
+            StandardOutput standardOutput,
+            boolean compileHotMethods) {
+
+        this.standardOutput = standardOutput;
+        this.compileHotMethods = compileHotMethods;
+    }
+
+    @Override
+    public void load(
+            Node syntaxTree) {
+
+        Program program
+                = new Program((NFile) syntaxTree, this.standardOutput);
+        BytecodeCompiler compiler = new BytecodeCompiler(program);
+
+        // all methods are compiled now, since the syntax tree is not kept
+        List<BytecodeMethod> methods = new ArrayList<>();
+        for (ClassInfo classInfo : program.getClassTable().getClassInfos()) {
+            for (MethodInfo methodInfo : classInfo.getMethodTable()
+                    .getMethodInfos()) {
+                NStms body = program.getBodyOrNull(methodInfo);
+                BytecodeMethod method;
+                if (body != null) {
+                    method = compiler.compile(methodInfo, body,
+                            methodInfo.getVariableTable());
+                }
+                else {
+                    method = new BytecodeMethod(methodInfo,
+                            methodInfo.getVariableTable().getSlotCount(), null,
+                            null);
+                }
+                methods.add(method);
+            }
+        }
+        BytecodeMethod mainMethod = compiler.compile(null,
+                program.getMainStms(), program.getMainVariableTable());
+
+        load(program.getClassTable(), program.getPrimitives(), methods,
+                mainMethod);
+        this.superinstructionCounts = compiler.getSuperinstructionCounts();
+        this.optimizationCounts = compiler.getOptimizationCounts();
+        this.staticCallSiteReport
+                = program.getResolver().getStaticCallSiteReport();
+    }
+
+    /**
+     * Loads a program whose methods are compiled, and whose class table has
+     * its virtual tables.
+     */
+    void load(
+            ClassTable classTable,
+            Primitives primitives,
+            List<BytecodeMethod> methods,
+            BytecodeMethod mainMethod) {
+
+        this.classTable = classTable;
+        for (BytecodeMethod method : methods) {
+            this.methodInfoToMethodMap.put(method.getMethodInfo(), method);
+        }
+        this.mainMethod = mainMethod;
+
+        this.objectClassInfo = classTable.getObjectClassInfoOrNull();
+        this.booleanClassInfo
+                = (BooleanClassInfo) classTable.getBooleanClassInfoOrNull();
+        this.integerClassInfo
+                = (IntegerClassInfo) classTable.getIntegerClassInfoOrNull();
+        this.stringClassInfo
+                = (StringClassInfo) classTable.getStringClassInfoOrNull();
+        this.primitives = primitives;
+        this.pureOperators = new PureOperators(classTable, primitives);
+
+        int plus = classTable.getSelector("+");
+        this.primitiveIntegerPlus = isPrimitive(this.integerClassInfo, plus);
+        this.primitiveStringPlus = isPrimitive(this.stringClassInfo, plus);
+
+        if (this.compileHotMethods) {
+            this.jitCompiler = new JitCompiler(getJitRuntime());
+        }
+    }
+
+    private static boolean isPrimitive(
+            ClassInfo classInfo,
+            int selector) {
+
+        MethodInfo methodInfo
+                = classInfo.getMethodTable().getMethodInfoOrNull(selector);
+        return methodInfo instanceof PrimitiveOperatorMethodInfo;
+    }
+
+    @Override
+    public void run() {
+
+        // create initial Object instance
+        Instance instance = this.objectClassInfo.newInstance();
+
+        // create initial frame
+        this.currentFrame = this.callStack.push(null, instance, null,
+                this.mainMethod.getRegisterCount());
+
+        // execute statements
+        this.method = this.mainMethod;
+        this.pc = 0;
+        if (this.mainMethod.getCompiledCode() != null) {
+            // the program was compiled ahead of time
+            JitRuntime.invokeCompiledCode(this.mainMethod.getCompiledCode(),
+                    this.currentFrame);
+        }
+        else {
+            execute(0);
+        }
+    }
+
+    @Override
+    public void printStackTrace() {
+
+        if (this.currentFrame != null) {
+            this.currentFrame.printStackTrace();
+        }
+    }
+
+    private static String formatCounts(
+            Map<String, Integer> nameToCountMap) {
+
+        StringBuilder counts = new StringBuilder();
+        for (Map.Entry<String, Integer> entry : nameToCountMap.entrySet()) {
+            if (counts.length() > 0) {
+                counts.append(", ");
+            }
+            counts.append(entry.getValue() + " " + entry.getKey());
+        }
+
+        return counts.toString();
+    }
+
+    @Override
+    public void printStatistics() {
+
+        Program.printStatistics(this.integerClassInfo, this.stringClassInfo);
+        if (this.classTable != null) {
+            Program.printAllocations(this.classTable);
+        }
+        if (this.superinstructionCounts != null) {
+            System.err.println(" Superinstructions: "
+                    + formatCounts(this.superinstructionCounts));
+            System.err.println(" Optimizations: "
+                    + formatCounts(this.optimizationCounts));
+        }
+        if (this.staticCallSiteReport != null) {
+            System.err.println(" Calls: " + this.staticCallSiteReport);
+        }
+        if (this.jitCompiler != null) {
+            System.err.println(" JIT: " + this.jitCompiler.getCompiledCount()
+                    + " methods compiled");
+        }
+    }
+
+    @Override
+    public Frame getCurrentFrame() {
+
+        return this.currentFrame;
+    }
+
+    @Override
+    public Primitives getPrimitives() {
+
+        return this.primitives;
+    }
+
+    @Override
+    public void executeBody(
+            MethodInfo methodInfo) {
+
+        // if this point is reached, there's a bug
+        throw new RuntimeException(
+                "methods with a body are executed by the dispatch loop");
+    }
+
+    BytecodeMethod getMethod(
+            MethodInfo methodInfo) {
+
+        return this.methodInfoToMethodMap.get(methodInfo);
+    }
+
+    BytecodeMethod getMainMethod() {
+
+        return this.mainMethod;
+    }
+
+    ClassTable getClassTable() {
+
+        return this.classTable;
+    }
+
+    PureOperators getPureOperators() {
+
+        return this.pureOperators;
+    }
+
+    JitRuntime getJitRuntime() {
+
+        if (this.jitRuntime == null) {
+            this.jitRuntime = new JitRuntime(this, this.callStack,
+                    this.classTable, this.primitives);
+        }
+
+        return this.jitRuntime;
+    }
+
+    void setCurrentFrame(
+            Frame frame) {
+
+        this.currentFrame = frame;
+    }
+
+    Instance getBoolean(
+            boolean value) {
+
+        if (value) {
+            return this.booleanClassInfo.getTrue();
+        }
+
+        return this.booleanClassInfo.getFalse();
+    }
+
+    boolean getCondition(
+            Instance value,
+            Site site) {
+
+        if (value == null) {
+            throw site.newException("expression is null");
+        }
+
+        if (!value.isa(this.booleanClassInfo)) {
+            throw site.newException("expression is not boolean");
+        }
+
+        return value == this.booleanClassInfo.getTrue();
+    }
+
+    Frame prepare(
+            Instance receiver,
+            CallSite callSite) {
+
+        BytecodeMethod method
+                = callSite.getMethod(receiver.getClassInfo(), this);
+        return this.callStack.push(this.currentFrame, receiver,
+                method.getMethodInfo(), method.getRegisterCount());
+    }
+
+    // invokes the method of the top frame, and continues at the given
+    // offset of the current method once it returns
+    private void call(
+            CallSite callSite,
+            int destination,
+            int returnPc) {
+
+        Frame caller = this.currentFrame;
+        Frame frame = this.callStack.getTop();
+        BytecodeMethod method = callSite
+                .getMethod(frame.getReceiver().getClassInfo(), this);
+
+        Intrinsic intrinsic = method.getMethodInfo().getIntrinsicOrNull();
+        if (intrinsic != null) {
+            Instance value = intrinsic.execute(frame);
+            if (value != Intrinsic.NOT_HANDLED) {
+                caller.setVar(destination, value);
+                this.callStack.pop(frame);
+                this.pc = returnPc;
+                return;
+            }
+        }
+
+        caller.setCurrentLocation(callSite.getLine(), callSite.getPos());
+        this.currentFrame = frame;
+
+        if (this.jitCompiler != null && !method.isPrimitive()
+                && method.getCompiledCode() == null
+                && method.getMethodInfo()
+                        .countInvocation() == HOT_INVOCATION_COUNT) {
+            compile(method);
+        }
+
+        if (method.isPrimitive() || method.getCompiledCode() != null) {
+            Instance value;
+            if (method.isPrimitive()) {
+                method.getMethodInfo().execute(this);
+                value = frame.getReturnValue();
+            }
+            else {
+                value = JitRuntime
+                        .invokeCompiledCode(method.getCompiledCode(), frame);
+            }
+            this.currentFrame = caller;
+            caller.setCurrentLocation(0, 0);
+            caller.setVar(destination, value);
+            this.callStack.pop(frame);
+            this.pc = returnPc;
+            return;
+        }
+
+        if (this.activationCount == this.returnPcs.length) {
+            int capacity = this.returnPcs.length * 2;
+            this.returnMethods = Arrays.copyOf(this.returnMethods, capacity);
+            this.returnPcs = Arrays.copyOf(this.returnPcs, capacity);
+            this.returnRegisters
+                    = Arrays.copyOf(this.returnRegisters, capacity);
+        }
+        this.returnMethods[this.activationCount] = this.method;
+        this.returnPcs[this.activationCount] = returnPc;
+        this.returnRegisters[this.activationCount] = destination;
+        this.activationCount++;
+
+        this.method = method;
+        this.pc = 0;
+    }
+
+    private void compile(
+            BytecodeMethod method) {
+
+        MethodHandle compiledCode = this.jitCompiler.compile(method);
+        if (compiledCode != null) {
+            this.jitRuntime.setCompiledCode(method, compiledCode);
+        }
+    }
+
+    // runs a method for compiled code, in a new invocation of the dispatch
+    // loop, with the frame already current
+    Instance interpret(
+            BytecodeMethod method,
+            Frame frame) {
+
+        if (this.jitCompiler != null && method.getMethodInfo()
+                .countInvocation() == HOT_INVOCATION_COUNT) {
+            compile(method);
+            if (method.getCompiledCode() != null) {
+                return JitRuntime
+                        .invokeCompiledCode(method.getCompiledCode(), frame);
+            }
+        }
+
+        BytecodeMethod returnMethod = this.method;
+        int returnPc = this.pc;
+        this.method = method;
+        this.pc = 0;
+        Instance value = execute(this.activationCount);
+        this.method = returnMethod;
+        this.pc = returnPc;
+        return value;
+    }
+
+    Instance invokePrimitive(
+            BytecodeMethod method,
+            Frame frame) {
+
+        method.getMethodInfo().execute(this);
+        return frame.getReturnValue();
+    }
+
+    private void leave(
+            Instance value) {
+
+        Frame frame = this.currentFrame;
+        Frame caller = frame.getPreviousFrame();
+        this.callStack.pop(frame);
+        this.currentFrame = caller;
+        caller.setCurrentLocation(0, 0);
+
+        this.activationCount--;
+        this.method = this.returnMethods[this.activationCount];
+        this.pc = this.returnPcs[this.activationCount];
+        this.returnMethods[this.activationCount] = null;
+        caller.setVar(this.returnRegisters[this.activationCount], value);
+    }
+
+    // counts an iteration of a loop of the current method, and returns
+    // whether the method has compiled code to go on with
+    private boolean countBackEdge() {
+
+        BytecodeMethod method = this.method;
+        if (method.getCompiledCode() == null) {
+            MethodInfo methodInfo = method.getMethodInfo();
+            int count;
+            if (methodInfo != null) {
+                count = methodInfo.countBackEdge();
+            }
+            else {
+                count = ++this.mainBackEdgeCount;
+            }
+            if (count == HOT_BACK_EDGE_COUNT) {
+                compile(method);
+            }
+        }
+
+        return method.getCompiledCode() != null;
+    }
+
+    // runs until the method entered at the given activation count returns,
+    // and returns its value, or until the main program ends
+    private Instance execute(
+            int entryActivationCount) {
+
+        Frame frame = this.currentFrame;
+        Instance[] values = this.callStack.getValues();
+        int base = frame.getBase();
+        int[] code = this.method.getCode();
+        Object[] constants = this.method.getConstants();
+        int pc = this.pc;
+
+        while (true) {
+            switch (code[pc]) {
+            case Bytecode.CONST:
+                values[base + code[pc + 1]]
+                        = (Instance) constants[code[pc + 2]];
+                pc += 3;
+                break;
+            case Bytecode.SELF:
+                values[base + code[pc + 1]] = frame.getReceiver();
+                pc += 2;
+                break;
+            case Bytecode.MOVE:
+                values[base + code[pc + 1]] = values[base + code[pc + 2]];
+                pc += 3;
+                break;
+            case Bytecode.CHECK_VAR:
+                if (!frame.isDefined(code[pc + 1])) {
+                    Site site = (Site) constants[code[pc + 2]];
+                    throw site.newException("unknown variable "
+                            + site.getText());
+                }
+                pc += 3;
+                break;
+            case Bytecode.GET_FIELD: {
+                Instance self = frame.getReceiver();
+                FieldSite fieldSite = (FieldSite) constants[code[pc + 2]];
+                values[base + code[pc + 1]]
+                        = self.getField(fieldSite.getFieldInfo(self));
+                pc += 3;
+                break;
+            }
+            case Bytecode.PUT_FIELD: {
+                Instance self = frame.getReceiver();
+                FieldSite fieldSite = (FieldSite) constants[code[pc + 2]];
+                self.setField(fieldSite.getFieldInfo(self),
+                        values[base + code[pc + 1]]);
+                pc += 3;
+                break;
+            }
+            case Bytecode.NEW:
+                values[base + code[pc + 1]]
+                        = ((ClassInfo) constants[code[pc + 2]]).newInstance();
+                pc += 3;
+                break;
+            case Bytecode.IS: {
+                Instance left = values[base + code[pc + 2]];
+                Instance right = values[base + code[pc + 3]];
+                values[base + code[pc + 1]]
+                        = getBoolean(Instance.isSame(left, right));
+                pc += 4;
+                break;
+            }
+            case Bytecode.ISA: {
+                Instance left = values[base + code[pc + 2]];
+                ClassInfo right = (ClassInfo) constants[code[pc + 3]];
+                values[base + code[pc + 1]]
+                        = getBoolean(left == null || left.isa(right));
+                pc += 4;
+                break;
+            }
+            case Bytecode.NOT: {
+                Instance value = values[base + code[pc + 2]];
+                Site site = (Site) constants[code[pc + 3]];
+                values[base + code[pc + 1]]
+                        = getBoolean(!getCondition(value, site));
+                pc += 4;
+                break;
+            }
+            case Bytecode.JUMP: {
+                int target = code[pc + 1];
+                if (target < pc && this.jitCompiler != null
+                        && countBackEdge()) {
+                    // the method goes on in its compiled code
+                    Instance value = JitRuntime
+                            .invokeCompiledCode(this.method, frame, target);
+                    if (this.activationCount == entryActivationCount) {
+                        return value;
+                    }
+                    leave(value);
+                    frame = this.currentFrame;
+                    values = this.callStack.getValues();
+                    base = frame.getBase();
+                    code = this.method.getCode();
+                    constants = this.method.getConstants();
+                    pc = this.pc;
+                    break;
+                }
+                pc = target;
+                break;
+            }
+            case Bytecode.JUMP_IF_FALSE: {
+                Instance value = values[base + code[pc + 1]];
+                Site site = (Site) constants[code[pc + 3]];
+                if (getCondition(value, site)) {
+                    pc += 4;
+                }
+                else {
+                    pc = code[pc + 2];
+                }
+                break;
+            }
+            case Bytecode.EQ: {
+                Instance left = values[base + code[pc + 2]];
+                Instance right = values[base + code[pc + 3]];
+                if (left == null || right == null) {
+                    values[base + code[pc + 1]] = getBoolean(left == right);
+                    pc += 5;
+                    break;
+                }
+
+                CallSite callSite = (CallSite) constants[code[pc + 4]];
+                prepare(left, callSite).setParam(right);
+                call(callSite, code[pc + 1], pc + 5);
+                frame = this.currentFrame;
+                values = this.callStack.getValues();
+                base = frame.getBase();
+                code = this.method.getCode();
+                constants = this.method.getConstants();
+                pc = this.pc;
+                break;
+            }
+            case Bytecode.ADD: {
+                Instance left = values[base + code[pc + 2]];
+                Instance right = values[base + code[pc + 3]];
+                CallSite callSite = (CallSite) constants[code[pc + 4]];
+                if (left == null) {
+                    throw callSite
+                            .newException("left argument of + method is null");
+                }
+                if (right == null) {
+                    throw callSite.newException(
+                            "right argument of + method is null");
+                }
+
+                prepare(left, callSite).setParam(right);
+                call(callSite, code[pc + 1], pc + 5);
+                frame = this.currentFrame;
+                values = this.callStack.getValues();
+                base = frame.getBase();
+                code = this.method.getCode();
+                constants = this.method.getConstants();
+                pc = this.pc;
+                break;
+            }
+            case Bytecode.PREPARE: {
+                Instance receiver = values[base + code[pc + 1]];
+                CallSite callSite = (CallSite) constants[code[pc + 2]];
+                if (receiver == null) {
+                    throw callSite.newException("receiver of "
+                            + callSite.getText() + " method is null");
+                }
+                prepare(receiver, callSite);
+                values = this.callStack.getValues();
+                pc += 3;
+                break;
+            }
+            case Bytecode.PREPARE_SELF:
+                prepare(frame.getReceiver(),
+                        (CallSite) constants[code[pc + 1]]);
+                values = this.callStack.getValues();
+                pc += 2;
+                break;
+            case Bytecode.CALL: {
+                Frame callee = this.callStack.getTop();
+                int first = base + code[pc + 2];
+                int count = code[pc + 3];
+                for (int i = 0; i < count; i++) {
+                    callee.setParam(values[first + i]);
+                }
+
+                call((CallSite) constants[code[pc + 4]], code[pc + 1],
+                        pc + 5);
+                frame = this.currentFrame;
+                values = this.callStack.getValues();
+                base = frame.getBase();
+                code = this.method.getCode();
+                constants = this.method.getConstants();
+                pc = this.pc;
+                break;
+            }
+            case Bytecode.RETURN:
+                if (this.activationCount == entryActivationCount) {
+                    return values[base + code[pc + 1]];
+                }
+                leave(values[base + code[pc + 1]]);
+                frame = this.currentFrame;
+                values = this.callStack.getValues();
+                base = frame.getBase();
+                code = this.method.getCode();
+                constants = this.method.getConstants();
+                pc = this.pc;
+                break;
+            case Bytecode.RETURN_NULL:
+                if (this.activationCount == entryActivationCount) {
+                    return null;
+                }
+                leave(null);
+                frame = this.currentFrame;
+                values = this.callStack.getValues();
+                base = frame.getBase();
+                code = this.method.getCode();
+                constants = this.method.getConstants();
+                pc = this.pc;
+                break;
+            case Bytecode.ADD_CONST:
+            case Bytecode.ADD_FIELD_CONST: {
+                Instance left;
+                Instance right;
+                if (code[pc] == Bytecode.ADD_CONST) {
+                    left = values[base + code[pc + 2]];
+                    right = (Instance) constants[code[pc + 3]];
+                }
+                else {
+                    Instance self = frame.getReceiver();
+                    FieldSite fieldSite = (FieldSite) constants[code[pc + 2]];
+                    left = self.getField(fieldSite.getFieldInfo(self));
+                    right = (Instance) constants[code[pc + 3]];
+                }
+                CallSite callSite = (CallSite) constants[code[pc + 4]];
+                if (left == null) {
+                    throw callSite
+                            .newException("left argument of + method is null");
+                }
+
+                // the constant is a literal, so only the other operand is
+                // guarded
+                if (this.primitiveIntegerPlus
+                        && left instanceof IntegerInstance
+                        && right instanceof IntegerInstance) {
+                    values[base + code[pc + 1]] = this.primitives.add(
+                            (IntegerInstance) left, (IntegerInstance) right);
+                    pc += 5;
+                    break;
+                }
+                if (this.primitiveStringPlus && left instanceof StringInstance
+                        && right instanceof StringInstance) {
+                    values[base + code[pc + 1]] = this.primitives.concat(
+                            (StringInstance) left, (StringInstance) right);
+                    pc += 5;
+                    break;
+                }
+
+                prepare(left, callSite).setParam(right);
+                call(callSite, code[pc + 1], pc + 5);
+                frame = this.currentFrame;
+                values = this.callStack.getValues();
+                base = frame.getBase();
+                code = this.method.getCode();
+                constants = this.method.getConstants();
+                pc = this.pc;
+                break;
+            }
+            case Bytecode.JUMP_IF_TRUE: {
+                Instance value = values[base + code[pc + 1]];
+                Site site = (Site) constants[code[pc + 3]];
+                if (getCondition(value, site)) {
+                    pc = code[pc + 2];
+                }
+                else {
+                    pc += 4;
+                }
+                break;
+            }
+            case Bytecode.INVOKE: {
+                Instance receiver = values[base + code[pc + 2]];
+                CallSite callSite = (CallSite) constants[code[pc + 3]];
+                if (receiver == null) {
+                    throw callSite.newException("receiver of "
+                            + callSite.getText() + " method is null");
+                }
+                prepare(receiver, callSite);
+                call(callSite, code[pc + 1], pc + 4);
+                frame = this.currentFrame;
+                values = this.callStack.getValues();
+                base = frame.getBase();
+                code = this.method.getCode();
+                constants = this.method.getConstants();
+                pc = this.pc;
+                break;
+            }
+            case Bytecode.TRY_ADD:
+            case Bytecode.TRY_EQ: {
+                Instance left = values[base + code[pc + 3]];
+                Instance right = values[base + code[pc + 4]];
+                Instance value;
+                if (code[pc] == Bytecode.TRY_ADD) {
+                    value = this.pureOperators.add(left, right);
+                }
+                else {
+                    value = this.pureOperators.eq(left, right);
+                }
+                if (value == Intrinsic.NOT_HANDLED) {
+                    value = null;
+                    values[base + code[pc + 2]] = getBoolean(false);
+                }
+                values[base + code[pc + 1]] = value;
+                pc += 5;
+                break;
+            }
+            case Bytecode.FAIL: {
+                Site site = (Site) constants[code[pc + 2]];
+                throw site.newException((String) constants[code[pc + 1]]);
+            }
+            case Bytecode.HALT:
+                return null;
+            default:
+                // if this point is reached, there's a bug
+                throw new RuntimeException("unhandled case");
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package mino.walker;
+
+import java.util.*;
+
+import mino.language_mino.*;
+import mino.structure.*;
+
+/**
+ * Pass that adds the classes of a file, with their field and method
+ * definitions, to a class table, and records the body of each method.
+ */
+public class ClassCollector
+        extends Walker {
+
+    private final ClassTable classTable;
+
+    private final Map<MethodInfo, NStms> methodInfoToBodyMap;
+
+    private ClassInfo currentClassInfo;
+
+    private List<NId> idList;
+
+    private Token operatorToken;
+
+    public ClassCollector(
+            ClassTable classTable,
+            Map<MethodInfo, NStms> methodInfoToBodyMap) {
+
+        this.classTable = classTable;
+        this.methodInfoToBodyMap = methodInfoToBodyMap;
+    }
+
+    public void visit(
+            Node node) {
+
+        node.apply(this);
+    }
+
+    private List<NId> getParams(
+            NIdListOpt node) {
+
+        this.idList = new LinkedList<>();
+        visit(node);
+        List<NId> idList = this.idList;
+        this.idList = null;
+        return idList;
+    }
+
+    private Token getOperatorToken(
+            NOperator node) {
+
+        visit(node);
+        Token operatorToken = this.operatorToken;
+        this.operatorToken = null;
+        return operatorToken;
+    }
+
+    @Override
+    public void caseFile(
+            NFile node) {
+
+        // the main program is not part of any class
+        visit(node.get_Classdefs());
+    }
+
+    @Override
+    public void inClassdef(
+            NClassdef node) {
+
+        this.currentClassInfo = this.classTable.add(node);
+    }
+
+    @Override
+    public void outClassdef(
+            NClassdef node) {
+
+        this.currentClassInfo = null;
+    }
+
+    @Override
+    public void caseMember_Field(
+            NMember_Field node) {
+
+        this.currentClassInfo.getFieldTable().add(node);
+    }
+
+    @Override
+    public void caseMember_Method(
+            NMember_Method node) {
+
+        List<NId> params = getParams(node.get_IdListOpt());
+        MethodInfo methodInfo
+                = this.currentClassInfo.getMethodTable().add(node, params);
+        this.methodInfoToBodyMap.put(methodInfo, node.get_Stms());
+    }
+
+    @Override
+    public void caseMember_Operator(
+            NMember_Operator node) {
+
+        List<NId> params = getParams(node.get_IdListOpt());
+        Token operatorToken = getOperatorToken(node.get_Operator());
+        MethodInfo methodInfo = this.currentClassInfo.getMethodTable()
+                .add(node, params, operatorToken);
+        this.methodInfoToBodyMap.put(methodInfo, node.get_Stms());
+    }
+
+    @Override
+    public void caseMember_PrimitiveMethod(
+            NMember_PrimitiveMethod node) {
+
+        List<NId> params = getParams(node.get_IdListOpt());
+        this.currentClassInfo.getMethodTable().add(node, params);
+    }
+
+    @Override
+    public void caseMember_PrimitiveOperator(
+            NMember_PrimitiveOperator node) {
+
+        List<NId> params = getParams(node.get_IdListOpt());
+        Token operatorToken = getOperatorToken(node.get_Operator());
+        this.currentClassInfo.getMethodTable().add(node, params, operatorToken);
+    }
+
+    @Override
+    public void inIdList(
+            NIdList node) {
+
+        this.idList.add(node.get_Id());
+    }
+
+    @Override
+    public void caseAdditionalId(
+            NAdditionalId node) {
+
+        this.idList.add(node.get_Id());
+    }
+
+    @Override
+    public void caseOperator_Plus(
+            NOperator_Plus node) {
+
+        this.operatorToken = node.get_Plus();
+    }
+
+    @Override
+    public void caseOperator_Eq(
+            NOperator_Eq node) {
+
+        this.operatorToken = node.get_Eq();
+    }
+}
@@ -17,249 +17,160 @@
 
 package mino.walker;
 
-import java.math.*;
-import java.util.*;
-
 import mino.exception.*;
 import mino.language_mino.*;
 import mino.structure.*;
 
 public class InterpreterEngine
-        extends Walker {
-
-    private final ClassTable classTable = new ClassTable();
-
-    private ClassInfo currentClassInfo;
+        extends Walker
+        implements ExecutionEngine {
 
-    private List<NId> idList;
+    private final StandardOutput standardOutput;
 
-    private Token operatorToken;
+    private Program program;
 
-    private List<NExp> expList;
+    private Frame argumentFrame;
 
     private Instance expEval;
 
     private Frame currentFrame;
 
-    private ClassInfo objectClassInfo;
-
-    private BooleanClassInfo booleanClassInfo;
-
-    private IntegerClassInfo integerClassInfo;
-
-    private StringClassInfo stringClassInfo;
-
-    public void visit(
-            Node node) {
-
-        node.apply(this);
-    }
-
-    public void printStackTrace() {
-
-        Frame frame = this.currentFrame;
-        while (frame != null) {
-            Token locationToken = frame.getCurrentLocation();
-            String location = "";
-            if (locationToken != null) {
-                location = " at line " + locationToken.getLine() + " position "
-                        + locationToken.getPos();
-            }
-            MethodInfo invokedMethod = frame.getInvokedMethod();
-            if (invokedMethod != null) {
-                System.err.println(
-                        " in " + invokedMethod.getClassInfo().getName() + "."
-                                + invokedMethod.getName() + "()" + location);
-            }
-            else {
-                System.err.println(" in main program" + location);
-            }
+    private final CallStack callStack = new CallStack();
 
-            frame = frame.getPreviousFrame();
-        }
-    }
+    // set by a return statement until the invoked method is left
+    private boolean returning;
 
-    private List<NId> getParams(
-            NIdListOpt node) {
+    private Resolver resolver;
 
-        this.idList = new LinkedList<>();
-        visit(node);
-        List<NId> idList = this.idList;
-        this.idList = null;
-        return idList;
-    }
+    private BooleanClassInfo booleanClassInfo;
 
-    private Token getOperatorToken(
-            NOperator node) {
+    public InterpreterEngine(
+            StandardOutput standardOutput) {
 
-        visit(node);
-        Token operatorToken = this.operatorToken;
-        this.operatorToken = null;
-        return operatorToken;
+        this.standardOutput = standardOutput;
     }
 
-    private Instance getExpEval(
+    public void visit(
             Node node) {
 
-        visit(node);
-        Instance expEval = this.expEval;
-        this.expEval = null;
-        return expEval;
-    }
-
-    private List<NExp> getExpList(
-            NExpListOpt node) {
-
-        this.expList = new LinkedList<>();
-        visit(node);
-        List<NExp> expList = this.expList;
-        this.expList = null;
-        return expList;
+        node.apply(this);
     }
 
-    private Instance execute(
-            MethodInfo invokedMethod,
-            Frame frame,
-            Token location) {
-
-        this.currentFrame.setCurrentLocation(location);
-        this.currentFrame = frame;
-        try {
-            invokedMethod.execute(this);
-        }
-        catch (ReturnException e) {
-        }
+    @Override
+    public void load(
+            Node syntaxTree) {
 
-        this.currentFrame = frame.getPreviousFrame();
-        this.currentFrame.setCurrentLocation(null);
-        return frame.getReturnValue();
+        this.program = new Program((NFile) syntaxTree, this.standardOutput);
+        this.resolver = this.program.getResolver();
+        this.booleanClassInfo = this.program.getBooleanClassInfo();
     }
 
     @Override
-    public void caseFile(
-            NFile node) {
-
-        // collect class, field and method definitions
-        visit(node.get_Classdefs());
-
-        // handle compiler-known classes
-        this.objectClassInfo = this.classTable.getObjectClassInfoOrNull();
-        if (this.objectClassInfo == null) {
-            throw new InterpreterException("class Object is not defined", null);
-        }
-
-        this.booleanClassInfo = (BooleanClassInfo) this.classTable
-                .getBooleanClassInfoOrNull();
-        if (this.booleanClassInfo == null) {
-            throw new InterpreterException("class Boolean was not defined",
-                    null);
-        }
-
-        this.integerClassInfo = (IntegerClassInfo) this.classTable
-                .getIntegerClassInfoOrNull();
-        if (this.integerClassInfo == null) {
-            throw new InterpreterException("class Integer was not defined",
-                    null);
-        }
-
-        this.stringClassInfo
-                = (StringClassInfo) this.classTable.getStringClassInfoOrNull();
-        if (this.stringClassInfo == null) {
-            throw new InterpreterException("class String was not defined",
-                    null);
-        }
+    public void run() {
 
         // create initial Object instance
-        Instance instance = this.objectClassInfo.newInstance();
+        Instance instance = this.program.getObjectClassInfo().newInstance();
 
         // create initial frame
-        this.currentFrame = new Frame(null, instance, null);
+        this.currentFrame = this.callStack.push(null, instance,
+                this.program.getMainVariableTable());
 
         // execute statements
-        visit(node.get_Stms());
+        visit(this.program.getMainStms());
     }
 
     @Override
-    public void inClassdef(
-            NClassdef node) {
+    public void printStackTrace() {
 
-        this.currentClassInfo = this.classTable.add(node);
+        if (this.currentFrame != null) {
+            this.currentFrame.printStackTrace();
+        }
     }
 
     @Override
-    public void outClassdef(
-            NClassdef node) {
+    public void printStatistics() {
 
-        this.currentClassInfo = null;
+        Program.printStatistics(this.program);
     }
 
     @Override
-    public void caseMember_Field(
-            NMember_Field node) {
+    public Frame getCurrentFrame() {
 
-        this.currentClassInfo.getFieldTable().add(node);
+        return this.currentFrame;
     }
 
     @Override
-    public void caseMember_Method(
-            NMember_Method node) {
+    public Primitives getPrimitives() {
 
-        List<NId> params = getParams(node.get_IdListOpt());
-        this.currentClassInfo.getMethodTable().add(node, params);
+        return this.program.getPrimitives();
     }
 
     @Override
-    public void caseMember_Operator(
-            NMember_Operator node) {
+    public void executeBody(
+            MethodInfo methodInfo) {
 
-        List<NId> params = getParams(node.get_IdListOpt());
-        Token operatorToken = getOperatorToken(node.get_Operator());
-        this.currentClassInfo.getMethodTable().add(node, params, operatorToken);
+        visit(this.program.getBodyOrNull(methodInfo));
     }
 
-    @Override
-    public void caseMember_PrimitiveMethod(
-            NMember_PrimitiveMethod node) {
+    private Instance getExpEval(
+            Node node) {
 
-        List<NId> params = getParams(node.get_IdListOpt());
-        this.currentClassInfo.getMethodTable().add(node, params);
+        visit(node);
+        Instance expEval = this.expEval;
+        this.expEval = null;
+        return expEval;
     }
 
-    @Override
-    public void caseMember_PrimitiveOperator(
-            NMember_PrimitiveOperator node) {
+    private void evaluateArguments(
+            NExpListOpt node,
+            Frame frame) {
 
-        List<NId> params = getParams(node.get_IdListOpt());
-        Token operatorToken = getOperatorToken(node.get_Operator());
-        this.currentClassInfo.getMethodTable().add(node, params, operatorToken);
+        // arguments may themselves contain calls
+        Frame argumentFrame = this.argumentFrame;
+        this.argumentFrame = frame;
+        visit(node);
+        this.argumentFrame = argumentFrame;
     }
 
-    @Override
-    public void inIdList(
-            NIdList node) {
+    private FieldInfo getFieldInfo(
+            Instance self,
+            NFieldName fieldName) {
 
-        this.idList.add(node.get_Id());
-    }
-
-    @Override
-    public void caseAdditionalId(
-            NAdditionalId node) {
+        FieldInfo fieldInfo = this.resolver.getFieldInfoOrNull(fieldName);
+        if (fieldInfo == null) {
+            fieldInfo = self.getClassInfo().getFieldTable()
+                    .getFieldInfo(fieldName);
+        }
 
-        this.idList.add(node.get_Id());
+        return fieldInfo;
     }
 
-    @Override
-    public void caseOperator_Plus(
-            NOperator_Plus node) {
+    private Instance execute(
+            MethodInfo invokedMethod,
+            Frame frame,
+            Token location) {
+
+        this.currentFrame.setCurrentLocation(location);
+        this.currentFrame = frame;
+        invokedMethod.execute(this);
+        this.returning = false;
 
-        this.operatorToken = node.get_Plus();
+        this.currentFrame = frame.getPreviousFrame();
+        this.currentFrame.setCurrentLocation(null);
+        Instance returnValue = frame.getReturnValue();
+        this.callStack.pop(frame);
+        return returnValue;
     }
 
     @Override
-    public void caseOperator_Eq(
-            NOperator_Eq node) {
+    public void caseStms_More(
+            NStms_More node) {
 
-        this.operatorToken = node.get_Eq();
+        // skip remaining statements once a return statement is executed
+        visit(node.get_Stms());
+        if (!this.returning) {
+            visit(node.get_Stm());
+        }
     }
 
     @Override
@@ -267,7 +178,7 @@ public class InterpreterEngine
             NStm_VarAssign node) {
 
         Instance value = getExpEval(node.get_Exp());
-        this.currentFrame.setVar(node.get_Id(), value);
+        this.currentFrame.setVar(this.resolver.getSlot(node.get_Id()), value);
     }
 
     @Override
@@ -276,7 +187,7 @@ public class InterpreterEngine
 
         Instance value = getExpEval(node.get_Exp());
         Instance self = this.currentFrame.getReceiver();
-        self.setField(node.get_FieldName(), value);
+        self.setField(getFieldInfo(self, node.get_FieldName()), value);
     }
 
     @Override
@@ -301,6 +212,9 @@ public class InterpreterEngine
 
             // execute statements
             visit(node.get_Stms());
+            if (this.returning) {
+                break;
+            }
         }
     }
 
@@ -344,7 +258,7 @@ public class InterpreterEngine
             this.currentFrame.setReturnValue(value);
         }
 
-        throw new ReturnException();
+        this.returning = true;
     }
 
     @Override
@@ -367,7 +281,7 @@ public class InterpreterEngine
 
         Instance left = getExpEval(node.get_Exp());
         Instance right = getExpEval(node.get_AddExp());
-        if (left == right) {
+        if (Instance.isSame(left, right)) {
             this.expEval = this.booleanClassInfo.getTrue();
         }
         else {
@@ -390,9 +304,10 @@ public class InterpreterEngine
             }
         }
         else {
-            MethodInfo invokedMethod = left.getClassInfo().getMethodTable()
-                    .getMethodInfo(node.get_Eq());
-            Frame frame = new Frame(this.currentFrame, left, invokedMethod);
+            MethodInfo invokedMethod = this.resolver.getInlineCache(node)
+                    .getMethodInfo(left.getClassInfo());
+            Frame frame = this.callStack.push(this.currentFrame, left,
+                    invokedMethod);
             frame.setParam(right);
             this.expEval = execute(invokedMethod, frame, node.get_Eq());
         }
@@ -403,7 +318,11 @@ public class InterpreterEngine
             NExp_Isa node) {
 
         Instance left = getExpEval(node.get_Exp());
-        ClassInfo right = this.classTable.get(node.get_ClassName());
+        ClassInfo right = this.resolver.getClassInfoOrNull(node);
+        if (right == null) {
+            // reports the unknown class
+            right = this.program.getClassTable().get(node.get_ClassName());
+        }
 
         if (left == null) {
             this.expEval = this.booleanClassInfo.getTrue();
@@ -431,9 +350,10 @@ public class InterpreterEngine
                     node.get_Plus());
         }
         else {
-            MethodInfo invokedMethod = left.getClassInfo().getMethodTable()
-                    .getMethodInfo(node.get_Plus());
-            Frame frame = new Frame(this.currentFrame, left, invokedMethod);
+            MethodInfo invokedMethod = this.resolver.getInlineCache(node)
+                    .getMethodInfo(left.getClassInfo());
+            Frame frame = this.callStack.push(this.currentFrame, left,
+                    invokedMethod);
             frame.setParam(right);
             this.expEval = execute(invokedMethod, frame, node.get_Plus());
         }
@@ -466,11 +386,11 @@ public class InterpreterEngine
     public void caseTerm_New(
             NTerm_New node) {
 
-        ClassInfo classInfo = this.classTable.get(node.get_ClassName());
-
-        String name = classInfo.getName();
-        if (name.equals("Boolean") || name.equals("Integer")
-                || name.equals("String")) {
+        ClassInfo classInfo = this.resolver.getClassInfoOrNull(node);
+        if (classInfo == null) {
+            // the class is either unknown, which is reported here, or one
+            // that cannot be instantiated
+            this.program.getClassTable().get(node.get_ClassName());
             throw new InterpreterException("invalid use of new operator",
                     node.get_NewKwd());
         }
@@ -483,22 +403,22 @@ public class InterpreterEngine
             NTerm_Field node) {
 
         Instance self = this.currentFrame.getReceiver();
-        this.expEval = self.getField(node.get_FieldName());
+        this.expEval = self.getField(getFieldInfo(self, node.get_FieldName()));
     }
 
     @Override
     public void caseTerm_Var(
             NTerm_Var node) {
 
-        this.expEval = this.currentFrame.getVar(node.get_Id());
+        this.expEval = this.currentFrame
+                .getVar(this.resolver.getSlot(node.get_Id()), node.get_Id());
     }
 
     @Override
     public void caseTerm_Num(
             NTerm_Num node) {
 
-        this.expEval = this.integerClassInfo
-                .newInteger(new BigInteger(node.get_Number().getText()));
+        this.expEval = this.resolver.getLiteralInstance(node);
     }
 
     @Override
@@ -533,17 +453,13 @@ public class InterpreterEngine
     public void caseTerm_String(
             NTerm_String node) {
 
-        String string = node.get_String().getText();
-        this.expEval = this.stringClassInfo
-                .newString(string.substring(1, string.length() - 1));
+        this.expEval = this.resolver.getLiteralInstance(node);
     }
 
     @Override
     public void caseCall(
             NCall node) {
 
-        List<NExp> expList = getExpList(node.get_ExpListOpt());
-
         Instance receiver = getExpEval(node.get_RightUnaryExp());
         if (receiver == null) {
             throw new InterpreterException("receiver of "
@@ -551,21 +467,12 @@ public class InterpreterEngine
                     node.get_Id());
         }
 
-        MethodInfo invokedMethod = receiver.getClassInfo().getMethodTable()
-                .getMethodInfo(node.get_Id());
-
-        if (invokedMethod.getParamCount() != expList.size()) {
-            throw new InterpreterException(
-                    "method " + invokedMethod.getName() + " expects "
-                            + invokedMethod.getParamCount() + " arguments",
-                    node.get_Id());
-        }
-
-        Frame frame = new Frame(this.currentFrame, receiver, invokedMethod);
+        MethodInfo invokedMethod = this.resolver.getInlineCache(node)
+                .getMethodInfo(receiver.getClassInfo());
 
-        for (NExp exp : expList) {
-            frame.setParam(getExpEval(exp));
-        }
+        Frame frame = this.callStack.push(this.currentFrame, receiver,
+                invokedMethod);
+        evaluateArguments(node.get_ExpListOpt(), frame);
 
         this.expEval = execute(invokedMethod, frame, node.get_Id());
     }
@@ -574,25 +481,14 @@ public class InterpreterEngine
     public void caseSelfCall(
             NSelfCall node) {
 
-        List<NExp> expList = getExpList(node.get_ExpListOpt());
-
         Instance receiver = this.currentFrame.getReceiver();
 
-        MethodInfo invokedMethod = receiver.getClassInfo().getMethodTable()
-                .getMethodInfo(node.get_Id());
+        MethodInfo invokedMethod = this.resolver.getInlineCache(node)
+                .getMethodInfo(receiver.getClassInfo());
 
-        if (invokedMethod.getParamCount() != expList.size()) {
-            throw new InterpreterException(
-                    "method " + invokedMethod.getName() + " expects "
-                            + invokedMethod.getParamCount() + " arguments",
-                    node.get_Id());
-        }
-
-        Frame frame = new Frame(this.currentFrame, receiver, invokedMethod);
-
-        for (NExp exp : expList) {
-            frame.setParam(getExpEval(exp));
-        }
+        Frame frame = this.callStack.push(this.currentFrame, receiver,
+                invokedMethod);
+        evaluateArguments(node.get_ExpListOpt(), frame);
 
         this.expEval = execute(invokedMethod, frame, node.get_Id());
     }
@@ -601,7 +497,7 @@ public class InterpreterEngine
     public void caseExpList(
             NExpList node) {
 
-        this.expList.add(node.get_Exp());
+        this.argumentFrame.setParam(getExpEval(node.get_Exp()));
         visit(node.get_AdditionalExps());
     }
 
@@ -609,78 +505,6 @@ public class InterpreterEngine
     public void caseAdditionalExp(
             NAdditionalExp node) {
 
-        this.expList.add(node.get_Exp());
-    }
-
-    public void integerPlus(
-            MethodInfo methodInfo) {
-
-        IntegerInstance self
-                = (IntegerInstance) this.currentFrame.getReceiver();
-
-        String argName = methodInfo.getParamName(0);
-        Instance arg = this.currentFrame.getParameterValueWithoutId(argName);
-        if (!arg.isa(this.integerClassInfo)) {
-            throw new InterpreterException("right argument is not Integer",
-                    this.currentFrame.getPreviousFrame().getCurrentLocation());
-        }
-
-        BigInteger left = self.getValue();
-        BigInteger right = ((IntegerInstance) arg).getValue();
-        this.currentFrame.setReturnValue(
-                this.integerClassInfo.newInteger(left.add(right)));
-    }
-
-    public void stringPlus(
-            MethodInfo methodInfo) {
-
-        StringInstance self = (StringInstance) this.currentFrame.getReceiver();
-
-        String argName = methodInfo.getParamName(0);
-        Instance arg = this.currentFrame.getParameterValueWithoutId(argName);
-        if (!arg.isa(this.stringClassInfo)) {
-            throw new InterpreterException("right argument is not String",
-                    this.currentFrame.getPreviousFrame().getCurrentLocation());
-        }
-
-        String left = self.getValue();
-        String right = ((StringInstance) arg).getValue();
-        this.currentFrame.setReturnValue(
-                this.stringClassInfo.newString(left.concat(right)));
-    }
-
-    public void objectAbort(
-            MethodInfo methodInfo) {
-
-        String argName = methodInfo.getParamName(0);
-        Instance arg = this.currentFrame.getParameterValueWithoutId(argName);
-        if (arg == null) {
-            throw new InterpreterException("abort argument is null",
-                    this.currentFrame.getPreviousFrame().getCurrentLocation());
-        }
-        if (!arg.isa(this.stringClassInfo)) {
-            throw new InterpreterException("abort argument is not String",
-                    this.currentFrame.getPreviousFrame().getCurrentLocation());
-        }
-
-        String message = "ABORT: " + ((StringInstance) arg).getValue();
-        throw new InterpreterException(message,
-                this.currentFrame.getPreviousFrame().getCurrentLocation());
-    }
-
-    public void integerToS(
-            PrimitiveNormalMethodInfo primitiveNormalMethodInfo) {
-
-        IntegerInstance self
-                = (IntegerInstance) this.currentFrame.getReceiver();
-        this.currentFrame.setReturnValue(
-                this.stringClassInfo.newString(self.getValue().toString()));
-    }
-
-    public void stringToSystemOut(
-            PrimitiveNormalMethodInfo primitiveNormalMethodInfo) {
-
-        StringInstance self = (StringInstance) this.currentFrame.getReceiver();
-        System.out.println(self.getValue());
+        this.argumentFrame.setParam(getExpEval(node.get_Exp()));
     }
 }
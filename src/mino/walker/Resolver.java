@@ -0,0 +1,336 @@
+/* This file is part of Mino.
+ *
+ * See the NOTICE file distributed with this work for copyright information.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package mino.walker;
+
+import java.math.*;
+import java.util.*;
+
+import mino.language_mino.*;
+import mino.structure.*;
+
+/**
+ * Pre-execution pass that assigns a frame slot to every variable occurrence
+ * of a method body or of the main program, a field offset to every field
+ * occurrence that is visible from the class of the body, an inline cache to
+ * every call site, a canonical instance to every literal, and a class to every
+ * new and isa expression. Call sites whose method no class of their possible
+ * receivers redefines are bound to that method.
+ */
+public class Resolver
+        extends Walker {
+
+    private final Map<NId, Integer> idToSlotMap = new IdentityHashMap<>();
+
+    private final Map<NFieldName, FieldInfo> fieldNameToFieldInfoMap
+            = new IdentityHashMap<>();
+
+    private final Map<Node, InlineCache> callSiteToInlineCacheMap
+            = new IdentityHashMap<>();
+
+    private final Map<NTerm, Instance> literalToInstanceMap
+            = new IdentityHashMap<>();
+
+    private final Map<Node, ClassInfo> classSiteToClassInfoMap
+            = new IdentityHashMap<>();
+
+    private final ClassTable classTable;
+
+    private ClassInfo classInfo;
+
+    private VariableTable variableTable;
+
+    private int callSiteCount;
+
+    // call sites on self that are bound to a method
+    private int staticSelfCallSiteCount;
+
+    // call sites on other receivers that are bound to the only method of
+    // the program with their name
+    private int staticCallSiteCount;
+
+    public Resolver(
+            ClassTable classTable) {
+
+        this.classTable = classTable;
+    }
+
+    public void resolve(
+            Node node,
+            ClassInfo classInfo,
+            VariableTable variableTable) {
+
+        this.classInfo = classInfo;
+        this.variableTable = variableTable;
+        node.apply(this);
+        this.classInfo = null;
+        this.variableTable = null;
+    }
+
+    public int getSlot(
+            NId id) {
+
+        Integer slot = this.idToSlotMap.get(id);
+        if (slot == null) {
+            throw new RuntimeException("variable should have been resolved");
+        }
+
+        return slot;
+    }
+
+    public FieldInfo getFieldInfoOrNull(
+            NFieldName fieldName) {
+
+        return this.fieldNameToFieldInfoMap.get(fieldName);
+    }
+
+    public InlineCache getInlineCache(
+            Node callSite) {
+
+        InlineCache inlineCache = this.callSiteToInlineCacheMap.get(callSite);
+        if (inlineCache == null) {
+            throw new RuntimeException("call site should have been resolved");
+        }
+
+        return inlineCache;
+    }
+
+    /** Returns a report of the call sites bound to a method. */
+    public String getStaticCallSiteReport() {
+
+        return (this.staticSelfCallSiteCount + this.staticCallSiteCount)
+                + " of " + this.callSiteCount + " call sites bound statically ("
+                + this.staticSelfCallSiteCount + " on self, "
+                + this.staticCallSiteCount + " on other receivers)";
+    }
+
+    public Instance getLiteralInstance(
+            NTerm literal) {
+
+        Instance instance = this.literalToInstanceMap.get(literal);
+        if (instance == null) {
+            throw new RuntimeException("literal should have been resolved");
+        }
+
+        return instance;
+    }
+
+    public ClassInfo getClassInfoOrNull(
+            Node classSite) {
+
+        return this.classSiteToClassInfoMap.get(classSite);
+    }
+
+    private void resolveClassSite(
+            Node classSite,
+            NClassName className) {
+
+        // unknown classes are reported when the expression is evaluated
+        ClassInfo classInfo
+                = this.classTable.getClassInfoOrNull(className.getText());
+        if (classInfo != null) {
+            this.classSiteToClassInfoMap.put(classSite, classInfo);
+        }
+    }
+
+    private void resolveCallSite(
+            Node callSite,
+            Token nameToken,
+            int argCount,
+            boolean selfCall) {
+
+        int selector = this.classTable.getSelector(nameToken.getText());
+
+        MethodInfo staticMethodInfo;
+        if (selfCall) {
+            // self is an instance of the class of the body, which must have
+            // the method for the call to succeed
+            staticMethodInfo = this.classTable
+                    .getSingleImplementationOrNull(this.classInfo, selector);
+            if (staticMethodInfo != this.classInfo.getMethodTable()
+                    .getMethodInfoOrNull(selector)) {
+                staticMethodInfo = null;
+            }
+        }
+        else {
+            staticMethodInfo = this.classTable.getSingleImplementationOrNull(
+                    this.classTable.getObjectClassInfoOrNull(), selector);
+        }
+
+        // a wrong argument count is reported when the call is executed
+        if (staticMethodInfo != null
+                && staticMethodInfo.getParamCount() != argCount) {
+            staticMethodInfo = null;
+        }
+
+        this.callSiteCount++;
+        if (staticMethodInfo != null) {
+            if (selfCall) {
+                this.staticSelfCallSiteCount++;
+            }
+            else {
+                this.staticCallSiteCount++;
+            }
+        }
+
+        this.callSiteToInlineCacheMap.put(callSite, new InlineCache(nameToken,
+                selector, argCount, staticMethodInfo));
+    }
+
+    private void resolveVariable(
+            NId id) {
+
+        this.idToSlotMap.put(id, this.variableTable.resolve(id.getText()));
+    }
+
+    private void resolveField(
+            NFieldName fieldName) {
+
+        // fields of subclasses are not visible from here; they are looked up
+        // in the class of the receiver at run time
+        FieldInfo fieldInfo = this.classInfo.getFieldTable()
+                .getFieldInfoOrNull(fieldName.getText());
+        if (fieldInfo != null) {
+            this.fieldNameToFieldInfoMap.put(fieldName, fieldInfo);
+        }
+    }
+
+    @Override
+    public void inStm_VarAssign(
+            NStm_VarAssign node) {
+
+        resolveVariable(node.get_Id());
+    }
+
+    @Override
+    public void inStm_FieldAssign(
+            NStm_FieldAssign node) {
+
+        resolveField(node.get_FieldName());
+    }
+
+    @Override
+    public void inTerm_Field(
+            NTerm_Field node) {
+
+        resolveField(node.get_FieldName());
+    }
+
+    @Override
+    public void inTerm_Var(
+            NTerm_Var node) {
+
+        resolveVariable(node.get_Id());
+    }
+
+    @Override
+    public void inExp_Eq(
+            NExp_Eq node) {
+
+        resolveCallSite(node, node.get_Eq(), 1, false);
+    }
+
+    @Override
+    public void inAddExp_Add(
+            NAddExp_Add node) {
+
+        resolveCallSite(node, node.get_Plus(), 1, false);
+    }
+
+    @Override
+    public void inCall(
+            NCall node) {
+
+        ArgumentCounter argumentCounter = new ArgumentCounter();
+        node.get_ExpListOpt().apply(argumentCounter);
+        resolveCallSite(node, node.get_Id(), argumentCounter.count,
+                false);
+    }
+
+    @Override
+    public void inSelfCall(
+            NSelfCall node) {
+
+        ArgumentCounter argumentCounter = new ArgumentCounter();
+        node.get_ExpListOpt().apply(argumentCounter);
+        resolveCallSite(node, node.get_Id(), argumentCounter.count,
+                true);
+    }
+
+    @Override
+    public void inTerm_Num(
+            NTerm_Num node) {
+
+        // the literal keeps its instance alive, so it stays canonical
+        IntegerClassInfo integerClassInfo = (IntegerClassInfo) this.classTable
+                .getIntegerClassInfoOrNull();
+        BigInteger value = new BigInteger(node.get_Number().getText());
+        this.literalToInstanceMap.put(node, integerClassInfo.newInteger(value));
+    }
+
+    @Override
+    public void inTerm_String(
+            NTerm_String node) {
+
+        StringClassInfo stringClassInfo
+                = (StringClassInfo) this.classTable.getStringClassInfoOrNull();
+        String string = node.get_String().getText();
+        this.literalToInstanceMap.put(node, stringClassInfo
+                .newString(string.substring(1, string.length() - 1)));
+    }
+
+    @Override
+    public void inExp_Isa(
+            NExp_Isa node) {
+
+        resolveClassSite(node, node.get_ClassName());
+    }
+
+    @Override
+    public void inTerm_New(
+            NTerm_New node) {
+
+        // instances of Boolean, Integer and String cannot be created with
+        // new, so these sites are left unresolved and reported when evaluated
+        String name = node.get_ClassName().getText();
+        if (!name.equals("Boolean") && !name.equals("Integer")
+                && !name.equals("String")) {
+            resolveClassSite(node, node.get_ClassName());
+        }
+    }
+
+    private static class ArgumentCounter
+            extends Walker {
+
+        private int count;
+
+        @Override
+        public void caseExpList(
+                NExpList node) {
+
+            this.count++;
+            node.get_AdditionalExps().apply(this);
+        }
+
+        @Override
+        public void caseAdditionalExp(
+                NAdditionalExp node) {
+
+            this.count++;
+        }
+    }
+}